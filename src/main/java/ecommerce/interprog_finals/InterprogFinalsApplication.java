@@ -2,8 +2,10 @@ package ecommerce.interprog_finals;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class InterprogFinalsApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,42 @@
+package ecommerce.interprog_finals.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ecommerce.interprog_finals.entity.OrderItem;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * order_items used to be keyed by AUTO_INCREMENT. On MySQL the new pooled sequence is emulated
+ * by the order_items_seq table, which starts at 1; move it past the existing rows so new
+ * item ids never collide with old ones.
+ */
+@Component
+public class OrderItemSequenceInitializer implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderItemSequenceInitializer.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Override
+    public void run(String... args) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!"MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+                return;
+            }
+        }
+        int updated = jdbcTemplate.update(
+                "UPDATE order_items_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + ? FROM order_items))",
+                OrderItem.ID_ALLOCATION_SIZE + 1);
+        logger.info("order_items_seq aligned with existing order items ({} row(s) updated)", updated);
+    }
+}
@@ -0,0 +1,107 @@
+package ecommerce.interprog_finals.controller;
+
+import ecommerce.interprog_finals.service.SalesAnalyticsService;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+// Admin dashboard figures, read from the sales rollup tables (admin only)
+@RestController
+@RequestMapping("/api/admin/analytics")
+public class AdminAnalyticsController {
+
+    private static final int MAX_DAYS = 366;
+    private static final int MAX_HOURS = 24 * 31;
+    private static final int MAX_TOP = 100;
+
+    @Autowired
+    private SalesAnalyticsService salesAnalyticsService;
+
+    // Totals for the last "days" days (including today) and for today
+    @GetMapping("/summary")
+    public ResponseEntity<Map<String, Object>> getSummary(@RequestParam(defaultValue = "30") int days, HttpSession session) {
+        if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(salesAnalyticsService.getSummary(Math.min(Math.max(days, 1), MAX_DAYS)));
+    }
+
+    // Revenue per day (default: last 30 days) or, with granularity=hour, per hour (default: last 48 hours)
+    @GetMapping("/revenue")
+    public ResponseEntity<List<Map<String, Object>>> getRevenue(
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpSession session) {
+        if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if ("hour".equalsIgnoreCase(granularity)) {
+            LocalDateTime end = to != null ? to.plusDays(1).atStartOfDay() : LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            LocalDateTime start = from != null ? from.atStartOfDay() : end.minusHours(48);
+            if (start.isBefore(end.minusHours(MAX_HOURS))) {
+                start = end.minusHours(MAX_HOURS);
+            }
+            return ResponseEntity.ok(salesAnalyticsService.getHourlySeries(start, end));
+        }
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isBefore(end.minusDays(MAX_DAYS))) {
+            start = end.minusDays(MAX_DAYS);
+        }
+        return ResponseEntity.ok(salesAnalyticsService.getDailySeries(start, end));
+    }
+
+    // Best sellers by revenue over the last "days" days
+    @GetMapping("/top-products")
+    public ResponseEntity<List<Map<String, Object>>> getTopProducts(
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(defaultValue = "10") int limit,
+            HttpSession session) {
+        if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        LocalDate today = LocalDate.now();
+        return ResponseEntity.ok(salesAnalyticsService.getTopProducts(today.minusDays(Math.min(Math.max(days, 1), MAX_DAYS) - 1L),
+                today, Math.min(Math.max(limit, 1), MAX_TOP)));
+    }
+
+    @GetMapping("/top-categories")
+    public ResponseEntity<List<Map<String, Object>>> getTopCategories(
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(defaultValue = "10") int limit,
+            HttpSession session) {
+        if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        LocalDate today = LocalDate.now();
+        return ResponseEntity.ok(salesAnalyticsService.getTopCategories(today.minusDays(Math.min(Math.max(days, 1), MAX_DAYS) - 1L),
+                today, Math.min(Math.max(limit, 1), MAX_TOP)));
+    }
+
+    // Backfill: recomputes the rollups of a date range (default: today) from the orders
+    @PostMapping("/rebuild")
+    public ResponseEntity<?> rebuild(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            HttpSession session) {
+        if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end;
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().body("from must not be after to");
+        }
+        return ResponseEntity.ok(salesAnalyticsService.rebuild(start, end));
+    }
+}
@@ -1,13 +1,28 @@
 package ecommerce.interprog_finals.controller;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import ecommerce.interprog_finals.repository.ProductRepository;
+import ecommerce.interprog_finals.dto.BulkStatusRequest;
+import ecommerce.interprog_finals.dto.ProductSummaryDTO;
+import ecommerce.interprog_finals.service.FlashSaleService;
+import ecommerce.interprog_finals.service.OrderStatusService;
+import ecommerce.interprog_finals.service.PricingService;
+import ecommerce.interprog_finals.service.ProductService;
 import ecommerce.interprog_finals.entity.LoginReq;
+import ecommerce.interprog_finals.entity.PricingRule;
 import ecommerce.interprog_finals.entity.Product;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import jakarta.validation.Valid;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import ecommerce.interprog_finals.repository.AdminUserRepository;
 import ecommerce.interprog_finals.entity.AdminUser;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -17,13 +32,24 @@ import jakarta.servlet.http.HttpSession;
 @RestController
 @RequestMapping("/api/admin")
 public class AdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
     
     @Autowired
-    private ProductRepository productRepository;
+    private ProductService productService;
     @Autowired
     private PasswordEncoder passwordEncoder;
     @Autowired
     private AdminUserRepository adminUserRepository;
+    @Autowired
+    private FlashSaleService flashSaleService;
+    @Autowired
+    private PricingService pricingService;
+    @Autowired
+    private OrderStatusService orderStatusService;
+
+    @Value("${orders.bulk-status.max-orders:5000}")
+    private int maxBulkOrders;
     
     @PostMapping("/login")
     public ResponseEntity<String> login(@RequestBody LoginReq request, HttpSession session) {
@@ -50,11 +76,11 @@ public class AdminController {
     }
 
     @GetMapping("/products")
-    public ResponseEntity<List<Product>> getAllProducts(HttpSession session) {
+    public ResponseEntity<List<ProductSummaryDTO>> getAllProducts(HttpSession session) {
         if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        return ResponseEntity.ok(productRepository.findAll());
+        return ResponseEntity.ok(productService.getProductSummaries());
     }
 
     @PostMapping("/products")
@@ -62,7 +88,7 @@ public class AdminController {
         if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        return ResponseEntity.ok(productRepository.save(product));
+        return ResponseEntity.ok(productService.saveProduct(product));
     }
 
     @DeleteMapping("/products/{id}")
@@ -70,10 +96,153 @@ public class AdminController {
         if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        productRepository.deleteById(id);
+        productService.deleteProduct(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/products/cache-stats")
+    public ResponseEntity<Map<String, Object>> getProductCacheStats(HttpSession session) {
+        if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(productService.getCacheStats());
+    }
+
+    @GetMapping("/products/search-index-stats")
+    public ResponseEntity<Map<String, Object>> getProductSearchIndexStats(HttpSession session) {
+        if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(productService.getSearchIndexStats());
+    }
+
+    @GetMapping("/products/suggest-stats")
+    public ResponseEntity<Map<String, Object>> getProductSuggestStats(HttpSession session) {
+        if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(productService.getSuggestionStats());
+    }
+
+    @GetMapping("/products/facet-stats")
+    public ResponseEntity<Map<String, Object>> getProductFacetStats(HttpSession session) {
+        if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(productService.getFacetStats());
+    }
+
+    // Puts a product in flash-sale mode: checkouts are admitted against an in-memory counter
+    @PostMapping("/products/{id}/flash-sale")
+    public ResponseEntity<Map<String, Object>> startFlashSale(@PathVariable Long id, HttpSession session) {
+        if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Map<String, Object> sale = flashSaleService.start(id);
+        if (sale == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(sale);
+    }
+
+    // Ends the sale; 503 if the sold units could not be written to the product yet (the sale
+    // stays closed and the write is retried in the background)
+    @DeleteMapping("/products/{id}/flash-sale")
+    public ResponseEntity<String> stopFlashSale(@PathVariable Long id, HttpSession session) {
+        if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            if (!flashSaleService.stop(id)) {
+                return ResponseEntity.notFound().build();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to write back flash sale stock for product {}", id, e);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Flash sale closed, but its stock could not be saved yet; it will be retried");
+        }
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/flash-sales")
+    public ResponseEntity<List<Map<String, Object>>> getFlashSales(HttpSession session) {
+        if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(flashSaleService.list());
+    }
+
+    // Checkout pricing rules: shipping fees in centavos, VAT rate in basis points
+    @GetMapping("/pricing-rules")
+    public ResponseEntity<List<PricingRule>> getPricingRules(HttpSession session) {
+        if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(pricingService.getRules());
+    }
+
+    @PutMapping("/pricing-rules/{code}")
+    public ResponseEntity<?> updatePricingRule(@PathVariable String code, @RequestBody Map<String, Long> body, HttpSession session) {
+        if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Long value = body.get("value");
+        if (value == null || value < 0) {
+            return ResponseEntity.badRequest().body("value must be a non-negative number");
+        }
+        PricingRule rule = pricingService.updateRule(code, value);
+        if (rule == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(rule);
+    }
+
+    // Moves many orders to one status: the listed orderIds, or up to max-orders orders that have
+    // fromStatus and were placed before "before". Reports the outcome per order
+    @PatchMapping("/orders/status")
+    public ResponseEntity<?> bulkUpdateOrderStatus(@Valid @RequestBody BulkStatusRequest request, HttpSession session) {
+        if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        String target = OrderStatusService.canonical(request.status());
+        if (target == null) {
+            return ResponseEntity.badRequest().body("Unknown status: " + request.status());
+        }
+        boolean byIds = request.orderIds() != null && !request.orderIds().isEmpty();
+        if (byIds == (request.fromStatus() != null)) {
+            return ResponseEntity.badRequest().body("Send either orderIds or fromStatus");
+        }
+
+        List<OrderStatusService.Result> results;
+        boolean more = false;
+        if (byIds) {
+            if (request.orderIds().size() > maxBulkOrders) {
+                return ResponseEntity.badRequest().body("At most " + maxBulkOrders + " orders per request");
+            }
+            results = orderStatusService.updateByOrderIds(request.orderIds(), target);
+        } else {
+            String from = OrderStatusService.canonical(request.fromStatus());
+            if (from == null || !OrderStatusService.canTransition(from, target)) {
+                return ResponseEntity.badRequest().body("Orders cannot move from " + request.fromStatus() + " to " + target);
+            }
+            LocalDateTime before = request.before() != null ? request.before() : LocalDateTime.now();
+            results = orderStatusService.updateByFilter(from,
+                    Date.from(before.atZone(ZoneId.systemDefault()).toInstant()), target, maxBulkOrders);
+            more = results.size() == maxBulkOrders;
+        }
+
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (OrderStatusService.Result result : results) {
+            counts.merge(result.result(), 1, Integer::sum);
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", target);
+        response.put("counts", counts);
+        response.put("more", more);
+        response.put("results", results);
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/me")
     public ResponseEntity<?> getAdminSession(HttpSession session) {
         Boolean isAdmin = (Boolean) session.getAttribute("isAdmin");
@@ -1,16 +1,22 @@
 package ecommerce.interprog_finals.controller;
 
+import ecommerce.interprog_finals.dto.CustomerSummaryDTO;
+import ecommerce.interprog_finals.dto.OrderDetailsDTO;
 import ecommerce.interprog_finals.entity.Customer;
-import ecommerce.interprog_finals.entity.Order;
 import ecommerce.interprog_finals.repository.CustomerRepository;
-import ecommerce.interprog_finals.repository.OrderItemRepository;
-import ecommerce.interprog_finals.repository.OrderRepository;
+import ecommerce.interprog_finals.service.CustomerSessionRegistry;
+import ecommerce.interprog_finals.service.OrderService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/customers")
@@ -20,27 +26,59 @@ public class AdminCustomerController {
     private CustomerRepository customerRepository;
 
     @Autowired
-    private OrderRepository orderRepository;
+    private OrderService orderService;
 
     @Autowired
-    private OrderItemRepository orderItemRepository;
+    private CustomerSessionRegistry customerSessionRegistry;
 
-    // Get all customers (admin only)
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_ORDERS_PAGE_SIZE = 100;
+
+    // Get one page of customer summaries, optionally filtered by name/email (admin only)
     @GetMapping
-    public ResponseEntity<List<Customer>> getAllCustomers(HttpSession session) {
+    public ResponseEntity<Map<String, Object>> getCustomers(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            HttpSession session) {
         if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
-        List<Customer> customers = customerRepository.findAll();
-        // Attach orders and items to each customer
-        for (Customer customer : customers) {
-            List<Order> orders = orderRepository.findByCustomerId(customer.getId());
-            for (Order order : orders) {
-                order.setItems(orderItemRepository.findByOrder(order));
-            }
-            customer.setOrders(orders);
+        String search = (q == null || q.isBlank()) ? null : "%" + q.trim().toLowerCase() + "%";
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE),
+                Sort.by(Sort.Direction.ASC, "id"));
+        Page<CustomerSummaryDTO> result = customerRepository.findCustomerSummaries(search, pageRequest);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("content", result.getContent());
+        response.put("page", result.getNumber());
+        response.put("size", result.getSize());
+        response.put("totalElements", result.getTotalElements());
+        response.put("totalPages", result.getTotalPages());
+        return ResponseEntity.ok(response);
+    }
+
+    // Get one customer's orders with their items, newest first (admin only)
+    @GetMapping("/{id}/orders")
+    public ResponseEntity<List<OrderDetailsDTO>> getCustomerOrders(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "20") int limit,
+            HttpSession session) {
+        if (!Boolean.TRUE.equals(session.getAttribute("isAdmin"))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!customerRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        int pageSize = Math.min(Math.max(limit, 1), MAX_ORDERS_PAGE_SIZE);
+        List<OrderDetailsDTO> orders = orderService.getOrderHistory(id, before, pageSize);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (orders.size() == pageSize) {
+            response.header("X-Next-Cursor", String.valueOf(orders.get(orders.size() - 1).getRowId()));
         }
-        return ResponseEntity.ok(customers);
+        return response.body(orders);
     }
 
     // Delete a customer by ID (admin only)
@@ -53,6 +91,7 @@ public class AdminCustomerController {
             return ResponseEntity.notFound().build();
         }
         customerRepository.deleteById(id);
+        customerSessionRegistry.invalidate(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -68,6 +107,8 @@ public class AdminCustomerController {
         }
         customer.setBlocked(true);
         customerRepository.save(customer);
+        // Sessions the customer already has stop working on their next request
+        customerSessionRegistry.invalidate(id);
         return ResponseEntity.ok().build();
     }
 
@@ -4,19 +4,36 @@ import java.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.http.MediaType;
 import ecommerce.interprog_finals.entity.*;
 import ecommerce.interprog_finals.repository.*;
+import ecommerce.interprog_finals.service.CustomerPrincipal;
+import ecommerce.interprog_finals.service.CustomerSessionRegistry;
+import ecommerce.interprog_finals.service.FlashSaleService;
+import ecommerce.interprog_finals.service.IdempotencyKeyTakenException;
+import ecommerce.interprog_finals.service.IdempotencyService;
+import ecommerce.interprog_finals.service.InsufficientStockException;
+import ecommerce.interprog_finals.service.OrderProcessingWorker;
 import ecommerce.interprog_finals.service.OrderService;
+import ecommerce.interprog_finals.service.OrderStatusEvents;
+import ecommerce.interprog_finals.service.OrderStatusService;
+import ecommerce.interprog_finals.service.UnknownProductException;
+import ecommerce.interprog_finals.dto.CheckoutRequest;
 import ecommerce.interprog_finals.dto.OrderDetailsDTO;
 import ecommerce.interprog_finals.dto.OrderItemDTO;
 
@@ -33,270 +50,167 @@ public class OrderController {
     private OrderRepository orderRepository;
 
     @Autowired
-    private CheckoutInformationRepository checkoutInformationRepository;
+    private CustomerRepository customerRepository;
 
     @Autowired
-    private CustomerRepository customerRepository;
+    private CustomerSessionRegistry customerSessionRegistry;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private OrderProcessingWorker orderProcessingWorker;
+
+    @Autowired
+    private OrderStatusEvents orderStatusEvents;
+
+    @Autowired
+    private OrderStatusService orderStatusService;
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Autowired
+    private PendingCheckoutRepository pendingCheckoutRepository;
+
+    // When enabled, checkout only queues the order and answers 202; the worker places it
+    @Value("${checkout.async.enabled:false}")
+    private boolean asyncCheckout;
     
     @Autowired
     private OrderItemRepository orderItemRepository;
 
-    @Autowired
-    private ProductRepository productRepository;
 
-    // Endpoint to create an order (checkout)
+    // Endpoint to create an order (checkout). Requests carrying an Idempotency-Key header are
+    // placed at most once; repeats with the same key get the original response back. A
+    // Reservation-Id header names the stock hold made when checkout started
     @PostMapping
-    public ResponseEntity<String> processCheckout(@RequestBody Map<String, Object> orderData, Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
+    public ResponseEntity<String> processCheckout(@Valid @RequestBody CheckoutRequest request,
+                                                  @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                                  @RequestHeader(value = "Reservation-Id", required = false) String reservationId,
+                                                  Authentication authentication) {
+        // Get authenticated user from the session
+        CustomerPrincipal principal = customerSessionRegistry.currentCustomer(authentication);
+        if (principal == null) {
             logger.error("Unauthenticated user attempted to create an order");
             return ResponseEntity.status(401).body("Not authenticated");
         }
 
-        // Get authenticated user
-        String email = authentication.getName();
-        Customer customer = customerRepository.findByEmail(email);
-        if (customer == null) {
-            logger.error("Customer not found for email: {}", email);
-            return ResponseEntity.status(404).body("Customer not found");
+        // Verify the authenticated user matches the customer ID
+        Long customerId = request.customerId();
+        if (!principal.getId().equals(customerId)) {
+            logger.error("User {} attempted to create order for different customer {}", principal.getId(), customerId);
+            return ResponseEntity.status(403).body("Unauthorized to create order for this customer");
         }
 
-        // Verify the authenticated user matches the customer ID
-        Long customerId;
-        try {
-            customerId = Long.parseLong(orderData.get("customerId").toString());
-            if (!customer.getId().equals(customerId)) {
-                logger.error("User {} attempted to create order for different customer {}", customer.getId(), customerId);
-                return ResponseEntity.status(403).body("Unauthorized to create order for this customer");
-            }
-        } catch (NumberFormatException | NullPointerException e) {
-            logger.error("Invalid or missing customerId in order data", e);
-            return ResponseEntity.badRequest().body("Invalid or missing customerId in order data");
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return placeOrder(principal, request, reservationId, null);
+        }
+        if (idempotencyKey.length() > IdempotencyService.MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body("Idempotency-Key is too long");
         }
+        return idempotencyService.execute(principal.getId(), idempotencyKey,
+                IdempotencyService.fingerprint(request.toString()), claim -> placeOrder(principal, request, reservationId, claim));
+    }
 
+    private ResponseEntity<String> placeOrder(CustomerPrincipal principal, CheckoutRequest request, String reservationId,
+                                              IdempotencyService.Claim claim) {
+        Long customerId = principal.getId();
+        // Flash-sale products are admitted from memory first, so a sold-out sale is refused
+        // without touching the database
+        Map<Long, Integer> flashLines;
         try {
-            // Extract shipping address (try both keys for compatibility)
-            String shippingAddress = orderData.get("shippingAddress") != null
-                    ? orderData.get("shippingAddress").toString()
-                    : (orderData.get("address") != null ? orderData.get("address").toString() : null);
-            if (shippingAddress == null) {
-                return ResponseEntity.badRequest().body("Missing shipping address");
-            }
+            flashLines = flashSaleService.admit(request.quantities());
+        } catch (InsufficientStockException e) {
+            logger.warn("Rejected checkout for customer {}: {}", customerId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+        boolean placed = false;
+        try {
+            // A reference is enough to set the order's customer_id; no customer row is loaded
+            Customer customer = customerRepository.getReferenceById(customerId);
 
-            // Create CheckoutInformation
-            CheckoutInformation checkoutInformation = new CheckoutInformation();
-            checkoutInformation.setOrderId(orderData.get("orderId") != null ? orderData.get("orderId").toString() : UUID.randomUUID().toString());
-            checkoutInformation.setCustomerId(customerId);
-            checkoutInformation.setShippingAddress(shippingAddress);
-            checkoutInformation.setCity(orderData.get("city") != null ? orderData.get("city").toString() : null);
-            checkoutInformation.setState(orderData.get("state") != null ? orderData.get("state").toString() : null);
-            checkoutInformation.setZip(orderData.get("zip") != null ? orderData.get("zip").toString() : null);
-            checkoutInformation.setCountry(orderData.get("country") != null ? orderData.get("country").toString() : null);
-            checkoutInformation.setShippingMethod(orderData.get("shippingMethod") != null ? orderData.get("shippingMethod").toString() : null);
-            checkoutInformation.setPaymentMethod(orderData.get("paymentMethod") != null ? orderData.get("paymentMethod").toString() : null);
-            checkoutInformation.setTermsAccepted(true);
-
-            // Set customer info fields from orderData
-            checkoutInformation.setFirstName(orderData.get("firstName") != null ? orderData.get("firstName").toString() : null);
-            checkoutInformation.setLastName(orderData.get("lastName") != null ? orderData.get("lastName").toString() : null);
-            checkoutInformation.setEmail(orderData.get("email") != null ? orderData.get("email").toString() : null);
-            checkoutInformation.setPhone(orderData.get("phone") != null ? orderData.get("phone").toString() : null);
-
-            // Create Order
-            Order order = new Order();
-            order.setCustomer(customer);
-
-            // Use .doubleValue() to convert directly from Double to double
-            Object totalValue = orderData.get("total");
-            if (totalValue instanceof Double) {
-                order.setTotal(((Double) totalValue).doubleValue());
-            } else if (totalValue instanceof Integer) {
-                order.setTotal(((Integer) totalValue).doubleValue());
-            } else if (totalValue instanceof String) {
-                try {
-                    order.setTotal(Double.parseDouble((String) totalValue));
-                } catch (NumberFormatException e) {
-                    throw new IllegalArgumentException("Invalid total format: " + totalValue, e);
-                }
-            } else {
-                throw new IllegalArgumentException("Unexpected total type: " + (totalValue != null ? totalValue.getClass().getName() : "null"));
-            }
+            Order order = request.toOrder(OrderService.STATUS_PROCESSING);
+            List<OrderItem> orderItems = request.toOrderItems();
 
-            // Set structured shipping info fields if present
-            order.setShippingStreet(orderData.get("shippingStreet") != null ? orderData.get("shippingStreet").toString() : null);
-            order.setShippingCity(orderData.get("shippingCity") != null ? orderData.get("shippingCity").toString() : null);
-            order.setShippingProvince(orderData.get("shippingProvince") != null ? orderData.get("shippingProvince").toString() : null);
-            order.setShippingZipCode(orderData.get("shippingZipCode") != null ? orderData.get("shippingZipCode").toString() : null);
-            order.setShippingCountry(orderData.get("shippingCountry") != null ? orderData.get("shippingCountry").toString() : null);
-            order.setShippingMethod(orderData.get("shippingMethod") != null ? orderData.get("shippingMethod").toString() : null);
-            order.setStatus("Processing");
-            order.setOrderDate(new java.util.Date());            // Save order and checkout info
-            String orderId = orderService.createOrder(order, checkoutInformation, customerId);
-            Order savedOrder = orderRepository.findByOrderId(orderId);
-            
-            // Process order items
-            List<Map<String, Object>> items = null;
-            Object itemsObj = orderData.get("items");
-            Object productsObj = orderData.get("products");
-            
-            if (itemsObj instanceof List<?>) {
-                List<?> itemsList = (List<?>) itemsObj;
-                if (!itemsList.isEmpty() && itemsList.get(0) instanceof Map) {
-                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> checkedItems = (List<Map<String, Object>>) itemsList;
-                    items = checkedItems;
-                }
-            } else if (productsObj instanceof List<?>) {
-                List<?> productsList = (List<?>) productsObj;
-                if (!productsList.isEmpty() && productsList.get(0) instanceof Map) {                    @SuppressWarnings("unchecked")
-                    List<Map<String, Object>> checkedProducts = (List<Map<String, Object>>) productsList;
-                    items = checkedProducts;
+            String orderId;
+            try {
+                if (asyncCheckout) {
+                    // Accept-then-process: hold the stock and queue the checkout; poll GET /{orderId}/status
+                    PendingCheckout pending = orderService.enqueueOrder(customer, request, reservationId, flashLines, claim);
+                    placed = true;
+                    orderProcessingWorker.signal(pending.getId());
+                    return ResponseEntity.status(HttpStatus.ACCEPTED).body(OrderService.acceptedMessage(pending.getOrderId()));
                 }
+                // Save the order and its items, taking stock in the same transaction
+                orderId = orderService.placeOrder(customer, order, orderItems, reservationId, flashLines, claim);
+                placed = true;
+            } catch (InsufficientStockException | UnknownProductException e) {
+                // The cart is out of date: a product sold out or left the catalog
+                logger.warn("Rejected checkout for customer {}: {}", customerId, e.getMessage());
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
             }
-
-            if (items != null) {
-                for (Map<String, Object> item : items) {
-                    OrderItem orderItem = new OrderItem();
-                    orderItem.setOrder(savedOrder);
-                    // Handle product details
-                    Long productId = null;
-                    if (item.get("id") != null) {
-                        try {
-                            productId = Long.parseLong(item.get("id").toString());
-                        } catch (Exception e) {
-                            logger.warn("Invalid product ID: {}", item.get("id"));
-                        }
-                    }
-                    // Try to get product details from database first
-                    if (productId != null) {
-                        Optional<Product> product = productRepository.findById(productId);
-                        if (product.isPresent()) {
-                            Product p = product.get();
-                            orderItem.setProductId(productId);
-                            orderItem.setName(p.getName());
-                            orderItem.setImage(p.getImage());
-                            orderItem.setPrice(p.getPrice());
-                            // --- INVENTORY UPDATE LOGIC ---
-                            int quantity = 1;
-                            if (item.get("quantity") != null) {
-                                try {
-                                    if (item.get("quantity") instanceof Number) {
-                                        quantity = ((Number) item.get("quantity")).intValue();
-                                    } else {
-                                        quantity = Integer.parseInt(item.get("quantity").toString());
-                                    }
-                                } catch (Exception e) {
-                                    logger.warn("Invalid quantity: {}, using default of 1", item.get("quantity"));
-                                }
-                            }
-                            // Decrement stock
-                            int newStock = p.getStock() - quantity;
-                            if (newStock < 0) newStock = 0; // Prevent negative stock
-                            p.setStock(newStock);
-                            productRepository.save(p);
-                            orderItem.setQuantity(quantity);
-                            // --- END INVENTORY UPDATE LOGIC ---
-                        } else {
-                            setOrderItemFromCartData(orderItem, item);
-                            // Set quantity as before
-                            int quantity = 1;
-                            if (item.get("quantity") != null) {
-                                try {
-                                    if (item.get("quantity") instanceof Number) {
-                                        quantity = ((Number) item.get("quantity")).intValue();
-                                    } else {
-                                        quantity = Integer.parseInt(item.get("quantity").toString());
-                                    }
-                                } catch (Exception e) {
-                                    logger.warn("Invalid quantity: {}, using default of 1", item.get("quantity"));
-                                }
-                            }
-                            orderItem.setQuantity(quantity);
-                        }
-                    } else {
-                        setOrderItemFromCartData(orderItem, item);
-                        // Set quantity as before
-                        int quantity = 1;
-                        if (item.get("quantity") != null) {
-                            try {
-                                if (item.get("quantity") instanceof Number) {
-                                    quantity = ((Number) item.get("quantity")).intValue();
-                                } else {
-                                    quantity = Integer.parseInt(item.get("quantity").toString());
-                                }
-                            } catch (Exception e) {
-                                logger.warn("Invalid quantity: {}, using default of 1", item.get("quantity"));
-                            }
-                        }
-                        orderItem.setQuantity(quantity);
-                    }
-                    if (orderItem.getName() == null || orderItem.getPrice() == 0) {
-                        logger.warn("OrderItem missing product details: {}", item);
-                    }
-                    orderItemRepository.save(orderItem);
+            for (OrderItem orderItem : orderItems) {
+                if (orderItem.getName() == null || orderItem.getPrice().isZero()) {
+                    logger.warn("OrderItem missing product details for order {}: product {}", orderId, orderItem.getProductId());
                 }
             }
 
-            return ResponseEntity.ok("Order created successfully with orderId: " + orderId);
+            return ResponseEntity.ok(OrderService.placedMessage(orderId));
 
+        } catch (IdempotencyKeyTakenException e) {
+            // Nothing was placed; IdempotencyService answers with the first request's response
+            throw e;
         } catch (Exception e) {
             logger.error("Error processing checkout", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                    .body("Error processing checkout: " + e.getMessage());
+        } finally {
+            if (!placed && !flashLines.isEmpty()) {
+                flashSaleService.cancel(flashLines);
+            }
         }
     }
 
-    private void setOrderItemFromCartData(OrderItem orderItem, Map<String, Object> item) {
-        // Set product ID if available
-        if (item.get("id") != null) {
-            try {
-                orderItem.setProductId(Long.parseLong(item.get("id").toString()));
-            } catch (Exception e) {
-                logger.warn("Invalid product ID in cart data: {}", item.get("id"));
-            }
+    // Progress of a checkout that was answered with 202: Pending until the worker has placed
+    // the order, then Processing, or Rejected with the reason
+    @GetMapping("/{orderId}/status")
+    public ResponseEntity<Map<String, Object>> getOrderStatus(@PathVariable String orderId, Authentication authentication) {
+        CustomerPrincipal authenticatedCustomer = customerSessionRegistry.currentCustomer(authentication);
+        if (authenticatedCustomer == null) {
+            return ResponseEntity.status(401).build();
         }
-
-        // Set name
-        orderItem.setName(item.get("name") != null ? item.get("name").toString() : null);
-        
-        // Set image
-        orderItem.setImage(item.get("image") != null ? item.get("image").toString() : null);
-        
-        // Set price
-        if (item.get("price") instanceof Number) {
-            orderItem.setPrice(((Number) item.get("price")).doubleValue());
-        } else if (item.get("price") != null) {
-            try {
-                orderItem.setPrice(Double.parseDouble(item.get("price").toString()));
-            } catch (Exception e) {
-                logger.warn("Invalid price in cart data: {}", item.get("price"));
+        Order order = findOrder(orderId);
+        if (order == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!order.getCustomer().getId().equals(authenticatedCustomer.getId())) {
+            return ResponseEntity.status(403).build();
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("orderId", order.getOrderId());
+        response.put("status", order.getStatus());
+        if (OrderService.STATUS_REJECTED.equals(order.getStatus())) {
+            PendingCheckout pending = pendingCheckoutRepository.findByOrderId(orderId);
+            if (pending != null) {
+                response.put("message", pending.getError());
             }
         }
+        return ResponseEntity.ok(response);
     }
 
     // Get order details by orderId
     @GetMapping("/checkout/{orderId}")
     public ResponseEntity<OrderDetailsDTO> getCheckoutInformationByOrderId(@PathVariable String orderId, Authentication authentication) {
-        // Check authentication
-        if (authentication == null || !authentication.isAuthenticated()) {
+        // Get authenticated user from the session
+        CustomerPrincipal authenticatedCustomer = customerSessionRegistry.currentCustomer(authentication);
+        if (authenticatedCustomer == null) {
             logger.error("Unauthenticated user attempted to access order information");
             return ResponseEntity.status(401).body(null);
         }
 
-        // Get authenticated user
-        String email = authentication.getName();
-        Customer authenticatedCustomer = customerRepository.findByEmail(email);
-        if (authenticatedCustomer == null) {
-            logger.error("Customer not found for email: {}", email);
-            return ResponseEntity.status(404).body(null);
-        }
-
-        // Get checkout and order information
-        CheckoutInformation checkoutInformation = checkoutInformationRepository.findByOrderId(orderId);
-        if (checkoutInformation == null) {
-            return ResponseEntity.notFound().build();
-        }
-
-        Order order = orderRepository.findByOrderId(orderId);
+        // The order row holds the shipping, payment and contact details too
+        Order order = findOrder(orderId);
         if (order == null) {
             return ResponseEntity.notFound().build();
         }
@@ -309,25 +223,24 @@ public class OrderController {
         }
 
         OrderDetailsDTO orderDetailsDTO = new OrderDetailsDTO();
-        orderDetailsDTO.setOrderId(checkoutInformation.getOrderId());
+        orderDetailsDTO.setOrderId(order.getOrderId());
         orderDetailsDTO.setOrderDate(order.getOrderDate() != null ? order.getOrderDate().toString() : null);
         orderDetailsDTO.setStatus(order.getStatus());
-        orderDetailsDTO.setShippingMethod(checkoutInformation.getShippingMethod());
-        orderDetailsDTO.setPaymentMethod(checkoutInformation.getPaymentMethod());
-        orderDetailsDTO.setAddress(checkoutInformation.getShippingAddress());
-        orderDetailsDTO.setCity(checkoutInformation.getCity());
-        orderDetailsDTO.setState(checkoutInformation.getState());
-        orderDetailsDTO.setZip(checkoutInformation.getZip());
-        orderDetailsDTO.setCountry(checkoutInformation.getCountry());
-        orderDetailsDTO.setFirstName(checkoutInformation.getFirstName());
-        orderDetailsDTO.setLastName(checkoutInformation.getLastName());
-        orderDetailsDTO.setEmail(checkoutInformation.getEmail());
-        orderDetailsDTO.setPhone(checkoutInformation.getPhone());
+        orderDetailsDTO.setShippingMethod(order.getShippingMethod());
+        orderDetailsDTO.setPaymentMethod(order.getPaymentMethod());
+        orderDetailsDTO.setAddress(order.getShippingAddress());
+        orderDetailsDTO.setCity(order.getShippingCity());
+        orderDetailsDTO.setState(order.getShippingProvince());
+        orderDetailsDTO.setZip(order.getShippingZipCode());
+        orderDetailsDTO.setCountry(order.getShippingCountry());
+        orderDetailsDTO.setFirstName(order.getFirstName());
+        orderDetailsDTO.setLastName(order.getLastName());
+        orderDetailsDTO.setEmail(order.getEmail());
+        orderDetailsDTO.setPhone(order.getPhone());
 
         // Fetch order items and map to DTOs
         List<OrderItem> orderItems = orderItemRepository.findByOrder(order);
         List<OrderItemDTO> itemDTOs = new ArrayList<>();
-        double subtotal = 0.0;
         for (OrderItem item : orderItems) {
             OrderItemDTO itemDTO = new OrderItemDTO();
             itemDTO.setName(item.getName());
@@ -335,41 +248,39 @@ public class OrderController {
             itemDTO.setPrice(item.getPrice());
             itemDTO.setImage(item.getImage());
             itemDTOs.add(itemDTO);
-            subtotal += item.getPrice() * item.getQuantity();
         }
         orderDetailsDTO.setItems(itemDTOs);
-        // Calculate shipping, tax, and total (simple example)
-        double shipping = 150.0;
-        double tax = subtotal * 0.12;
-        double total = subtotal + shipping + tax;
-        orderDetailsDTO.setSubtotal(subtotal);
-        orderDetailsDTO.setShipping(shipping);
-        orderDetailsDTO.setTax(tax);
-        orderDetailsDTO.setTotal(total);
+        // Amounts priced and stored at checkout
+        orderDetailsDTO.setSubtotal(order.getSubtotal());
+        orderDetailsDTO.setShipping(order.getShipping());
+        orderDetailsDTO.setTax(order.getTax());
+        orderDetailsDTO.setTotal(order.getTotal());
         return ResponseEntity.ok(orderDetailsDTO);
-    }    // Get all orders for a customer    
+    }
+
+    private static final int DEFAULT_HISTORY_PAGE_SIZE = 20;
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
+    // Get one page of a customer's orders, newest first. The next page starts at the
+    // X-Next-Cursor response header value, passed back as ?before=
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<List<OrderDetailsDTO>> getOrdersByCustomer(@PathVariable Long customerId, Authentication authentication) {
+    public ResponseEntity<List<OrderDetailsDTO>> getOrdersByCustomer(@PathVariable Long customerId,
+                                                                     @RequestParam(required = false) Long before,
+                                                                     @RequestParam(defaultValue = "" + DEFAULT_HISTORY_PAGE_SIZE) int limit,
+                                                                     Authentication authentication) {
         if (customerId == null) {
             logger.error("No customerId provided");
             return ResponseEntity.badRequest().body(null);
         }
 
         try {
-            // Check authentication
-            if (authentication == null || !authentication.isAuthenticated()) {
+            // Get authenticated user from the session
+            CustomerPrincipal authenticatedCustomer = customerSessionRegistry.currentCustomer(authentication);
+            if (authenticatedCustomer == null) {
                 logger.error("Unauthenticated user attempted to access orders");
                 return ResponseEntity.status(401).body(null);
             }
 
-            // Get authenticated user
-            String email = authentication.getName();
-            Customer authenticatedCustomer = customerRepository.findByEmail(email);
-            if (authenticatedCustomer == null) {
-                logger.error("Customer not found for email: {}", email);
-                return ResponseEntity.status(404).body(null);
-            }
-
             // Verify the authenticated user is accessing their own orders
             if (!authenticatedCustomer.getId().equals(customerId)) {
                 logger.error("User {} attempted to access orders for different customer {}", 
@@ -377,100 +288,71 @@ public class OrderController {
                 return ResponseEntity.status(403).body(null);
             }
 
-            // Log successful authentication
-            logger.info("User {} successfully authenticated to view orders", email);
-
-            List<Order> orders = orderRepository.findByCustomerId(customerId);
-            if (orders == null || orders.isEmpty()) {
-                logger.warn("No orders found for customerId: {}", customerId);
-                return ResponseEntity.ok(new ArrayList<>()); // Return empty list, not error
-            }
+            int pageSize = Math.min(Math.max(limit, 1), MAX_HISTORY_PAGE_SIZE);
+            List<OrderDetailsDTO> orderDetailsList = orderService.getOrderHistory(customerId, before, pageSize);
 
-            List<OrderDetailsDTO> orderDetailsList = new ArrayList<>();
-            for (Order order : orders) {
-                try {
-                    CheckoutInformation checkoutInfo = checkoutInformationRepository.findByOrderId(order.getOrderId());
-                    OrderDetailsDTO dto = new OrderDetailsDTO();
-                    dto.setOrderId(order.getOrderId());
-                    dto.setOrderDate(order.getOrderDate() != null ? order.getOrderDate().toString() : null);
-                    dto.setStatus(order.getStatus());
-                    
-                    // Safely set checkout information fields
-                    if (checkoutInfo != null) {
-                        dto.setShippingMethod(checkoutInfo.getShippingMethod());
-                        dto.setPaymentMethod(checkoutInfo.getPaymentMethod());
-                        dto.setAddress(checkoutInfo.getShippingAddress());
-                        dto.setCity(checkoutInfo.getCity());
-                        dto.setState(checkoutInfo.getState());
-                        dto.setZip(checkoutInfo.getZip());
-                        dto.setCountry(checkoutInfo.getCountry());
-                        dto.setFirstName(checkoutInfo.getFirstName());
-                        dto.setLastName(checkoutInfo.getLastName());
-                        dto.setEmail(checkoutInfo.getEmail());
-                        dto.setPhone(checkoutInfo.getPhone());
-                    }
-
-                    // Fetch order items and map to DTOs
-                    List<OrderItem> orderItems = orderItemRepository.findByOrder(order);
-                    List<OrderItemDTO> itemDTOs = new ArrayList<>();
-                    double subtotal = 0.0;
-                    for (OrderItem item : orderItems) {
-                        try {
-                            OrderItemDTO itemDTO = new OrderItemDTO();
-                            itemDTO.setName(item.getName());
-                            itemDTO.setQuantity(item.getQuantity());
-                            itemDTO.setPrice(item.getPrice());
-                            itemDTO.setImage(item.getImage());
-                            itemDTOs.add(itemDTO);
-                            subtotal += item.getPrice() * item.getQuantity();
-                        } catch (Exception e) {
-                            logger.warn("Error processing order item for order {}: {}", order.getOrderId(), e.getMessage());
-                        }
-                    }
-                    dto.setItems(itemDTOs);
-
-                    // Calculate shipping, tax, and total (match frontend)
-                    double shipping = 150.0;
-                    double tax = subtotal * 0.12;
-                    double total = subtotal + shipping + tax;
-
-                    dto.setSubtotal(subtotal);
-                    dto.setShipping(shipping);
-                    dto.setTax(tax);
-                    dto.setTotal(total);
-
-                    orderDetailsList.add(dto);
-                } catch (Exception e) {
-                    logger.error("Error processing order {} for customerId {}: {}", 
-                        order.getOrderId(), customerId, e.getMessage());
-                    // Continue processing other orders
-                }
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (orderDetailsList.size() == pageSize) {
+                Long nextCursor = orderDetailsList.get(orderDetailsList.size() - 1).getRowId();
+                response.header("X-Next-Cursor", String.valueOf(nextCursor));
             }
-
-            return ResponseEntity.ok(orderDetailsList);
+            return response.body(orderDetailsList);
         } catch (Exception e) {
             logger.error("Error loading orders for customerId {}: {}", customerId, e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
         }
     }
 
-  @PatchMapping("/{orderId}/status")
-public ResponseEntity<String> updateOrderStatus(@PathVariable String orderId, @RequestBody Map<String, String> body) {
-    String newStatus = body.get("status");
-    if (newStatus == null || newStatus.trim().isEmpty()) {
-        logger.warn("Missing or empty status in update request for order {}", orderId);
-        return ResponseEntity.badRequest().body("Missing status");
+    // Live status changes of the customer's orders as Server-Sent Events ("order-status" events
+    // with orderId, status and message; "resync" when the client should reload its orders)
+    @GetMapping(value = "/customer/{customerId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrderEvents(@PathVariable Long customerId, Authentication authentication) {
+        CustomerPrincipal authenticatedCustomer = customerSessionRegistry.currentCustomer(authentication);
+        if (authenticatedCustomer == null) {
+            return ResponseEntity.status(401).build();
+        }
+        if (!authenticatedCustomer.getId().equals(customerId)) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok()
+                .header("Cache-Control", "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .body(orderStatusEvents.subscribe(customerId));
     }
 
-    Order order = orderRepository.findByOrderId(orderId);
-    if (order == null) {
-        logger.error("Order not found for orderId: {}", orderId);
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Order not found");
+    // Single-order status change; goes through the same life cycle and concurrency checks as the
+    // admin bulk change
+    @PatchMapping("/{orderId}/status")
+    public ResponseEntity<String> updateOrderStatus(@PathVariable String orderId, @RequestBody Map<String, String> body) {
+        String newStatus = body.get("status");
+        if (newStatus == null || newStatus.trim().isEmpty()) {
+            logger.warn("Missing or empty status in update request for order {}", orderId);
+            return ResponseEntity.badRequest().body("Missing status");
+        }
+        // Stored in its canonical spelling so bulk updates and filters match it
+        newStatus = OrderStatusService.canonical(newStatus);
+        if (newStatus == null) {
+            return ResponseEntity.badRequest().body("Unknown status");
+        }
+
+        OrderStatusService.Result result = orderStatusService.updateByOrderIds(List.of(orderId), newStatus).get(0);
+        switch (result.result()) {
+            case OrderStatusService.NOT_FOUND:
+                logger.error("Order not found for orderId: {}", orderId);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Order not found");
+            case OrderStatusService.INVALID_TRANSITION:
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body("A " + result.from() + " order cannot be moved to " + newStatus);
+            case OrderStatusService.CONFLICT:
+                return ResponseEntity.status(HttpStatus.CONFLICT).body("The order's status was changed by someone else; reload and try again");
+            default:
+                logger.info("Updated order {} status to {}", orderId, newStatus);
+                return ResponseEntity.ok("Order status updated");
+        }
     }
 
-    order.setStatus(newStatus);
-    orderRepository.save(order);
-    logger.info("Updated order {} status to {}", orderId, newStatus);
-    return ResponseEntity.ok("Order status updated");
+    // Null for unknown orders and for ids that are not order ids at all
+    private Order findOrder(String orderId) {
+        return OrderIds.isValid(orderId) ? orderRepository.findByOrderId(orderId) : null;
     }
 }
@@ -1,11 +1,23 @@
 package ecommerce.interprog_finals.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ecommerce.interprog_finals.dto.CartProductDTO;
+import ecommerce.interprog_finals.dto.ProductSummaryDTO;
+import ecommerce.interprog_finals.entity.Money;
 import ecommerce.interprog_finals.entity.Product;
+import ecommerce.interprog_finals.service.InventoryReservationService;
 import ecommerce.interprog_finals.service.ProductService;
+import ecommerce.interprog_finals.service.ProductSuggester;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/products")
@@ -15,17 +27,98 @@ public class ProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
     @GetMapping
-    public List<Product> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
-        // Ensure all image paths are correct before returning
-        for (Product product : products) {
-            if (product.getImage() != null && !product.getImage().isEmpty() && !product.getImage().startsWith("/uploads/")) {
-                product.setImage("/uploads/placeholders/" + product.getImage().replaceAll("^/+", ""));
+    public List<ProductSummaryDTO> getAllProducts() {
+        return productService.getProductSummaries();
+    }
+
+    private static final int MAX_LOOKUP_IDS = 100;
+
+    // Batch lookup for the cart and checkout pages: the requested products in request order,
+    // with only the fields those pages show. Unknown ids are left out.
+    @GetMapping(params = "ids")
+    public ResponseEntity<?> getProductsByIds(@RequestParam List<Long> ids) {
+        Set<Long> unique = new LinkedHashSet<>(ids);
+        unique.remove(null);
+        if (unique.size() > MAX_LOOKUP_IDS) {
+            return ResponseEntity.badRequest().body("At most " + MAX_LOOKUP_IDS + " ids per request");
+        }
+        Map<Long, Product> products = productService.getProductsByIds(unique);
+        List<CartProductDTO> found = new ArrayList<>();
+        for (Long id : unique) {
+            Product product = products.get(id);
+            if (product != null) {
+                found.add(new CartProductDTO(product));
             }
         }
-        System.out.println("Number of products returned from service: " + products.size());
-        return products;
+        return ResponseEntity.ok(found);
+    }
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // Paginated, filtered and sorted product listing (page is zero-based), with the filter
+    // sidebar's facet counts
+    @GetMapping("/search")
+    public Map<String, Object> searchProducts(
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) List<String> brand,
+            @RequestParam(required = false) Money minPrice,
+            @RequestParam(required = false) Money maxPrice,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size) {
+        int safePage = Math.max(page, 0);
+        int safeSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Page<ProductSummaryDTO> result = productService.searchProducts(category, brand, minPrice, maxPrice, status, inStock, sort, safePage, safeSize);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("content", result.getContent());
+        response.put("page", result.getNumber());
+        response.put("size", result.getSize());
+        response.put("totalElements", result.getTotalElements());
+        response.put("totalPages", result.getTotalPages());
+        response.put("facets", productService.getFacetCounts(category, brand, minPrice, maxPrice, status, inStock));
+        return response;
+    }
+
+    // Full-text search, ranked by relevance (page is zero-based)
+    @GetMapping("/search/text")
+    public Map<String, Object> searchText(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size) {
+        int safePage = Math.max(page, 0);
+        int safeSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Page<ProductSummaryDTO> result = productService.searchText(query, safePage, safeSize);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("query", query);
+        response.put("content", result.getContent());
+        response.put("page", result.getNumber());
+        response.put("size", result.getSize());
+        response.put("totalElements", result.getTotalElements());
+        response.put("totalPages", result.getTotalPages());
+        return response;
+    }
+
+    private static final int MAX_SUGGESTIONS = 20;
+
+    // Type-ahead suggestions for the search box
+    @GetMapping("/suggest")
+    public List<ProductSuggester.Suggestion> suggest(@RequestParam("q") String prefix,
+                                                     @RequestParam(defaultValue = "8") int limit) {
+        return productService.suggest(prefix, Math.min(Math.max(limit, 1), MAX_SUGGESTIONS));
+    }
+
+    // Units per product that are in stock and not held by a checkout reservation
+    @GetMapping("/availability")
+    public Map<Long, Integer> getAvailability(@RequestParam List<Long> ids) {
+        return inventoryReservationService.getAvailability(ids);
     }
 
     @PostMapping
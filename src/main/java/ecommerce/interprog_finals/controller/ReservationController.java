@@ -0,0 +1,65 @@
+package ecommerce.interprog_finals.controller;
+
+import ecommerce.interprog_finals.dto.ReservationRequest;
+import ecommerce.interprog_finals.service.CustomerPrincipal;
+import ecommerce.interprog_finals.service.CustomerSessionRegistry;
+import ecommerce.interprog_finals.service.InsufficientStockException;
+import ecommerce.interprog_finals.service.InventoryReservationService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reservations")
+public class ReservationController {
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private CustomerSessionRegistry customerSessionRegistry;
+
+    // Hold the cart's stock for the logged-in customer while they check out.
+    // Replaces the customer's previous reservation, if any
+    @PostMapping
+    public ResponseEntity<?> reserve(@Valid @RequestBody ReservationRequest request, Authentication authentication) {
+        CustomerPrincipal principal = customerSessionRegistry.currentCustomer(authentication);
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Not logged in"));
+        }
+        try {
+            InventoryReservationService.Reservation reservation =
+                    inventoryReservationService.reserve(principal.getId(), request.quantities());
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("reservationId", reservation.getId());
+            response.put("expiresAt", reservation.getExpiresAt());
+            response.put("items", reservation.getLines());
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "message", e.getMessage(),
+                "productId", e.getProductId(),
+                "requestedQuantity", e.getRequestedQuantity()
+            ));
+        }
+    }
+
+    // Give the held stock back before the reservation expires
+    @DeleteMapping("/{reservationId}")
+    public ResponseEntity<?> release(@PathVariable String reservationId, Authentication authentication) {
+        CustomerPrincipal principal = customerSessionRegistry.currentCustomer(authentication);
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!inventoryReservationService.release(reservationId, principal.getId())) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -10,11 +10,15 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
-import ecommerce.interprog_finals.repository.CheckoutInformationRepository;
-import ecommerce.interprog_finals.entity.CheckoutInformation;
+import ecommerce.interprog_finals.repository.OrderRepository;
+import ecommerce.interprog_finals.entity.Order;
+import ecommerce.interprog_finals.service.CustomerPrincipal;
+import ecommerce.interprog_finals.service.CustomerSessionRegistry;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.Map;
 
@@ -25,18 +29,21 @@ public class UserController {
     private final CustomerRepository customerRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
-    private final CheckoutInformationRepository checkoutInformationRepository;
+    private final OrderRepository orderRepository;
+    private final CustomerSessionRegistry customerSessionRegistry;
 
     public UserController(
             CustomerRepository customerRepository,
             PasswordEncoder passwordEncoder,
             AuthenticationManager authenticationManager,
-            CheckoutInformationRepository checkoutInformationRepository
+            OrderRepository orderRepository,
+            CustomerSessionRegistry customerSessionRegistry
     ) {
         this.customerRepository = customerRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
-        this.checkoutInformationRepository = checkoutInformationRepository;
+        this.orderRepository = orderRepository;
+        this.customerSessionRegistry = customerSessionRegistry;
     }
 
     // Registration endpoint
@@ -57,18 +64,12 @@ public class UserController {
             Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword())
             );
+            // The principal loaded during authentication already holds the customer's profile
+            CustomerPrincipal customer = (CustomerPrincipal) authentication.getPrincipal();
             SecurityContextHolder.getContext().setAuthentication(authentication);
             HttpSession session = request.getSession(true);
             session.setAttribute("SPRING_SECURITY_CONTEXT", SecurityContextHolder.getContext());
 
-            String email = authentication.getName();
-            Customer customer = customerRepository.findByEmail(email);
-            if (customer == null) {
-                return ResponseEntity.status(404).body("Customer not found");
-            }
-            if (customer.isBlocked()) {
-                return ResponseEntity.status(403).body("Your account is blocked. Please contact support.");
-            }
             return ResponseEntity.ok(Map.of(
                 "id", customer.getId(),
                 "firstName", customer.getFirstName(),
@@ -76,6 +77,8 @@ public class UserController {
                 "email", customer.getEmail(),
                 "phone", customer.getPhone()
             ));
+        } catch (LockedException e) {
+            return ResponseEntity.status(403).body("Your account is blocked. Please contact support.");
         } catch (AuthenticationException e) {
             return ResponseEntity.status(401).body("Invalid email or password");
         }
@@ -92,35 +95,29 @@ public class UserController {
     // Endpoint to get current logged-in customer's info
     @GetMapping("/me")
     public ResponseEntity<?> getCurrentCustomer(Authentication authentication) {
-        if (authentication == null || !authentication.isAuthenticated()) {
+        CustomerPrincipal customer = customerSessionRegistry.currentCustomer(authentication);
+        if (customer == null) {
             return ResponseEntity.status(401).body(Map.of("message", "Not logged in"));
         }
-        String email = authentication.getName();
-        Customer customer = customerRepository.findByEmail(email);
-        if (customer != null) {
-            // Fetch latest checkout info for this customer
-            java.util.Optional<CheckoutInformation> checkoutOpt = checkoutInformationRepository.findTopByCustomerIdOrderByIdDesc(customer.getId());
-            Map<String, Object> shippingAddress = Map.of();
-            if (checkoutOpt.isPresent()) {
-                CheckoutInformation checkout = checkoutOpt.get();
-                shippingAddress = Map.of(
-                    "street", checkout.getShippingAddress(),
-                    "city", checkout.getCity(),
-                    "state", checkout.getState(),
-                    "zipCode", checkout.getZip(),
-                    "country", checkout.getCountry()
-                );
-            }
-            return ResponseEntity.ok(Map.of(
-                "id", customer.getId(),
-                "firstName", customer.getFirstName(),
-                "lastName", customer.getLastName(),
-                "email", customer.getEmail(),
-                "phone", customer.getPhone(),
-                "username", customer.getFirstName() + " " + customer.getLastName(),
-                "shippingAddress", shippingAddress
-            ));
+        // Address of this customer's latest order
+        java.util.List<Order> latest = orderRepository.findLatestWithAddress(customer.getId(), PageRequest.of(0, 1));
+        Map<String, Object> shippingAddress = new java.util.HashMap<>();
+        if (!latest.isEmpty()) {
+            Order order = latest.get(0);
+            shippingAddress.put("street", order.getShippingAddress());
+            shippingAddress.put("city", order.getShippingCity());
+            shippingAddress.put("state", order.getShippingProvince());
+            shippingAddress.put("zipCode", order.getShippingZipCode());
+            shippingAddress.put("country", order.getShippingCountry());
         }
-        return ResponseEntity.status(404).body(Map.of("message", "Customer not found"));
+        return ResponseEntity.ok(Map.of(
+            "id", customer.getId(),
+            "firstName", customer.getFirstName(),
+            "lastName", customer.getLastName(),
+            "email", customer.getEmail(),
+            "phone", customer.getPhone(),
+            "username", customer.getFirstName() + " " + customer.getLastName(),
+            "shippingAddress", shippingAddress
+        ));
     }
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package ecommerce.interprog_finals.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.constraints.NotBlank;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Body of PATCH /api/admin/orders/status: either explicit order ids, or every order that has
+// fromStatus and was placed before the given time (now when omitted)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record BulkStatusRequest(
+        @NotBlank String status,
+        List<String> orderIds,
+        String fromStatus,
+        LocalDateTime before) {
+}
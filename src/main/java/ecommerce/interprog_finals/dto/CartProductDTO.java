@@ -0,0 +1,75 @@
+package ecommerce.interprog_finals.dto;
+
+import ecommerce.interprog_finals.entity.Money;
+import ecommerce.interprog_finals.entity.Product;
+
+// The product fields the cart and checkout pages show, returned by the batch product lookup
+public class CartProductDTO {
+    private Long id;
+    private String name;
+    private Money price;
+    private String image;
+    private Integer stock;
+    private String status;
+
+    public CartProductDTO() {
+    }
+
+    public CartProductDTO(Product product) {
+        this.id = product.getId();
+        this.name = product.getName();
+        this.price = product.getPrice();
+        this.image = product.getImage();
+        this.stock = product.getStock();
+        this.status = product.getStatus();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Money getPrice() {
+        return price;
+    }
+
+    public void setPrice(Money price) {
+        this.price = price;
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public void setImage(String image) {
+        this.image = image;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,26 @@
+package ecommerce.interprog_finals.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import ecommerce.interprog_finals.entity.OrderItem;
+
+// One cart line of a checkout request. Only the product and quantity are taken from the client;
+// the name, image and price sent by the cart are ignored and come from the catalog
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record CheckoutLineRequest(
+        @NotNull Long id,
+        @Positive Integer quantity) {
+
+    public int quantityOrDefault() {
+        return quantity != null ? quantity : 1;
+    }
+
+    public OrderItem toOrderItem() {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setProductId(id);
+        orderItem.setQuantity(quantityOrDefault());
+        return orderItem;
+    }
+}
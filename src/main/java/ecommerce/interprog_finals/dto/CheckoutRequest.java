@@ -0,0 +1,85 @@
+package ecommerce.interprog_finals.dto;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import ecommerce.interprog_finals.entity.Order;
+import ecommerce.interprog_finals.entity.OrderItem;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Body of POST /api/orders as sent by checkout.js; unknown fields (total, subtotal, vat, ...) are
+// ignored. The order id and all amounts are set by the server
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record CheckoutRequest(
+        @NotNull Long customerId,
+        @NotEmpty @JsonAlias("products") List<@Valid CheckoutLineRequest> items,
+        String firstName,
+        String lastName,
+        String email,
+        String phone,
+        @NotBlank @JsonAlias("address") String shippingAddress,
+        String city,
+        String state,
+        String zip,
+        String country,
+        String shippingMethod,
+        String paymentMethod,
+        String shippingStreet,
+        String shippingCity,
+        String shippingProvince,
+        String shippingZipCode,
+        String shippingCountry) {
+
+    public List<CheckoutLineRequest> itemsOrEmpty() {
+        return items != null ? items : List.of();
+    }
+
+    // Quantities per product id, merging repeated lines
+    public Map<Long, Integer> quantities() {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CheckoutLineRequest line : itemsOrEmpty()) {
+            if (line.id() != null) {
+                quantities.merge(line.id(), line.quantityOrDefault(), Integer::sum);
+            }
+        }
+        return quantities;
+    }
+
+    public Order toOrder(String status) {
+        Order order = new Order();
+        order.setShippingAddress(shippingAddress);
+        // Clients that only send the plain address fields still get a structured address
+        order.setShippingStreet(shippingStreet);
+        order.setShippingCity(shippingCity != null ? shippingCity : city);
+        order.setShippingProvince(shippingProvince != null ? shippingProvince : state);
+        order.setShippingZipCode(shippingZipCode != null ? shippingZipCode : zip);
+        order.setShippingCountry(shippingCountry != null ? shippingCountry : country);
+        order.setShippingMethod(shippingMethod);
+        order.setPaymentMethod(paymentMethod);
+        order.setTermsAccepted(true);
+        order.setFirstName(firstName);
+        order.setLastName(lastName);
+        order.setEmail(email);
+        order.setPhone(phone);
+        order.setStatus(status);
+        order.setOrderDate(new java.util.Date());
+        return order;
+    }
+
+    // Product and quantity only; OrderService fills in the catalog's name, image and price
+    public List<OrderItem> toOrderItems() {
+        List<OrderItem> orderItems = new ArrayList<>(itemsOrEmpty().size());
+        for (CheckoutLineRequest line : itemsOrEmpty()) {
+            orderItems.add(line.toOrderItem());
+        }
+        return orderItems;
+    }
+}
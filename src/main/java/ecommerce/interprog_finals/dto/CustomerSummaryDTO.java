@@ -0,0 +1,107 @@
+package ecommerce.interprog_finals.dto;
+
+import ecommerce.interprog_finals.entity.Money;
+
+import java.util.Date;
+
+public class CustomerSummaryDTO {
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String email;
+    private String phone;
+    private boolean blocked;
+    private long orderCount;
+    private Money totalSpent;
+    private Date lastOrderDate;
+
+    public CustomerSummaryDTO() {
+    }
+
+    // Used by the admin customer listing JPQL projection; the order total sum comes in centavos
+    public CustomerSummaryDTO(Long id, String firstName, String lastName, String email, String phone, boolean blocked,
+                              Long orderCount, Long totalSpentMinor, Date lastOrderDate) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.phone = phone;
+        this.blocked = blocked;
+        this.orderCount = orderCount != null ? orderCount : 0;
+        this.totalSpent = Money.ofMinor(totalSpentMinor != null ? totalSpentMinor : 0);
+        this.lastOrderDate = lastOrderDate;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public void setPhone(String phone) {
+        this.phone = phone;
+    }
+
+    public boolean isBlocked() {
+        return blocked;
+    }
+
+    public void setBlocked(boolean blocked) {
+        this.blocked = blocked;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public Money getTotalSpent() {
+        return totalSpent;
+    }
+
+    public void setTotalSpent(Money totalSpent) {
+        this.totalSpent = totalSpent;
+    }
+
+    public Date getLastOrderDate() {
+        return lastOrderDate;
+    }
+
+    public void setLastOrderDate(Date lastOrderDate) {
+        this.lastOrderDate = lastOrderDate;
+    }
+}
@@ -1,8 +1,13 @@
 package ecommerce.interprog_finals.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import ecommerce.interprog_finals.entity.Money;
+import java.util.Date;
 import java.util.List;
 
 public class OrderDetailsDTO {
+    @JsonIgnore
+    private Long rowId;
     private String orderId;
     private String orderDate;
     private String status;
@@ -18,15 +23,49 @@ public class OrderDetailsDTO {
     private String email;
     private String phone;
     private List<OrderItemDTO> items;
-    private double subtotal;
-    private double shipping;
-    private double tax;
-    private double total;
+    private Money subtotal;
+    private Money shipping;
+    private Money tax;
+    private Money total;
 
     public OrderDetailsDTO() {
     }
 
+    // Used by the order history JPQL projection over the orders table
+    public OrderDetailsDTO(Long rowId, String orderId, Date orderDate, String status, String shippingMethod,
+                           String paymentMethod, String address, String city, String state, String zip,
+                           String country, String firstName, String lastName, String email, String phone,
+                           Money subtotal, Money shipping, Money tax, Money total) {
+        this.rowId = rowId;
+        this.orderId = orderId;
+        this.orderDate = orderDate != null ? orderDate.toString() : null;
+        this.status = status;
+        this.shippingMethod = shippingMethod;
+        this.paymentMethod = paymentMethod;
+        this.address = address;
+        this.city = city;
+        this.state = state;
+        this.zip = zip;
+        this.country = country;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.phone = phone;
+        this.subtotal = subtotal;
+        this.shipping = shipping;
+        this.tax = tax;
+        this.total = total;
+    }
+
     // Getters and Setters
+    public Long getRowId() {
+        return rowId;
+    }
+
+    public void setRowId(Long rowId) {
+        this.rowId = rowId;
+    }
+
     public String getOrderId() {
         return orderId;
     }
@@ -147,35 +186,35 @@ public class OrderDetailsDTO {
         this.items = items;
     }
 
-    public double getSubtotal() {
+    public Money getSubtotal() {
         return subtotal;
     }
 
-    public void setSubtotal(double subtotal) {
+    public void setSubtotal(Money subtotal) {
         this.subtotal = subtotal;
     }
 
-    public double getShipping() {
+    public Money getShipping() {
         return shipping;
     }
 
-    public void setShipping(double shipping) {
+    public void setShipping(Money shipping) {
         this.shipping = shipping;
     }
 
-    public double getTax() {
+    public Money getTax() {
         return tax;
     }
 
-    public void setTax(double tax) {
+    public void setTax(Money tax) {
         this.tax = tax;
     }
 
-    public double getTotal() {
+    public Money getTotal() {
         return total;
     }
 
-    public void setTotal(double total) {
+    public void setTotal(Money total) {
         this.total = total;
     }
 }
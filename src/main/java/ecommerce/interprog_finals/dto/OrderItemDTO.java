@@ -1,15 +1,37 @@
 package ecommerce.interprog_finals.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import ecommerce.interprog_finals.entity.Money;
+
 public class OrderItemDTO {
+    @JsonIgnore
+    private Long orderRowId;
     private String name;
     private int quantity;
-    private double price;
+    private Money price;
     private String image;
 
     public OrderItemDTO() {
     }
 
+    // Used by the batched order item JPQL projection
+    public OrderItemDTO(Long orderRowId, String name, int quantity, Money price, String image) {
+        this.orderRowId = orderRowId;
+        this.name = name;
+        this.quantity = quantity;
+        this.price = price;
+        this.image = image;
+    }
+
     // Getters and Setters
+    public Long getOrderRowId() {
+        return orderRowId;
+    }
+
+    public void setOrderRowId(Long orderRowId) {
+        this.orderRowId = orderRowId;
+    }
+
     public String getName() {
         return name;
     }
@@ -26,11 +48,11 @@ public class OrderItemDTO {
         this.quantity = quantity;
     }
 
-    public double getPrice() {
+    public Money getPrice() {
         return price;
     }
 
-    public void setPrice(double price) {
+    public void setPrice(Money price) {
         this.price = price;
     }
 
@@ -0,0 +1,118 @@
+package ecommerce.interprog_finals.dto;
+
+import ecommerce.interprog_finals.entity.Money;
+import ecommerce.interprog_finals.entity.Product;
+
+// A product as shown in listings: everything but the description, features and specifications
+public class ProductSummaryDTO {
+    private Long id;
+    private String name;
+    private String sku;
+    private String category;
+    private Money price;
+    private Integer stock;
+    private String status;
+    private String image;
+    private String brand;
+
+    public ProductSummaryDTO() {
+    }
+
+    // Used by the product listing JPQL projection
+    public ProductSummaryDTO(Long id, String name, String sku, String category, Money price, Integer stock, String status,
+                             String image, String brand) {
+        this.id = id;
+        this.name = name;
+        this.sku = sku;
+        this.category = category;
+        this.price = price;
+        this.stock = stock;
+        this.status = status;
+        this.image = image;
+        this.brand = brand;
+    }
+
+    // Listing row of a loaded product, for results that come from the entity (search, cache)
+    public ProductSummaryDTO(Product product) {
+        this(product.getId(), product.getName(), product.getSku(), product.getCategory(), product.getPrice(),
+                product.getStock(), product.getStatus(), product.getImage(), product.getBrand());
+    }
+
+    // The same row with another stock level; cached rows are replaced, never changed
+    public ProductSummaryDTO withStock(Integer newStock) {
+        return new ProductSummaryDTO(id, name, sku, category, price, newStock, status, image, brand);
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    public Money getPrice() {
+        return price;
+    }
+
+    public void setPrice(Money price) {
+        this.price = price;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public void setImage(String image) {
+        this.image = image;
+    }
+
+    public String getBrand() {
+        return brand;
+    }
+
+    public void setBrand(String brand) {
+        this.brand = brand;
+    }
+}
@@ -0,0 +1,27 @@
+package ecommerce.interprog_finals.dto;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Cart lines to hold while the customer is on the checkout page
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ReservationRequest(
+        @NotEmpty @JsonAlias("products") List<@Valid CheckoutLineRequest> items) {
+
+    // Quantities per product id, merging repeated lines
+    public Map<Long, Integer> quantities() {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CheckoutLineRequest line : items) {
+            if (line.id() != null) {
+                quantities.merge(line.id(), line.quantityOrDefault(), Integer::sum);
+            }
+        }
+        return quantities;
+    }
+}
@@ -0,0 +1,86 @@
+package ecommerce.interprog_finals.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount in pesos, held as a whole number of centavos. Arithmetic is exact integer math on
+ * that number, so totals do not drift the way summed doubles do. Stored as a BIGINT column
+ * through {@link MoneyConverter} and written to JSON as a plain number with two decimals
+ * (1234.50), which is what the pages already expect.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private final long minor;
+
+    private Money(long minor) {
+        this.minor = minor;
+    }
+
+    public static Money ofMinor(long minor) {
+        return minor == 0 ? ZERO : new Money(minor);
+    }
+
+    // Rounds half up to the centavo; also used for JSON numbers and request parameters
+    @JsonCreator
+    public static Money of(BigDecimal amount) {
+        return ofMinor(amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public static Money of(String amount) {
+        return of(new BigDecimal(amount.trim()));
+    }
+
+    public long minor() {
+        return minor;
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minor, other.minor));
+    }
+
+    public Money times(long quantity) {
+        return ofMinor(Math.multiplyExact(minor, quantity));
+    }
+
+    // This amount scaled by a rate in basis points (1200 = 12%), rounded half up to the centavo
+    public Money basisPoints(long bps) {
+        long scaled = Math.multiplyExact(minor, bps);
+        long rounded = scaled >= 0 ? (scaled + 5_000) / 10_000 : -((-scaled + 5_000) / 10_000);
+        return ofMinor(rounded);
+    }
+
+    public boolean isZero() {
+        return minor == 0;
+    }
+
+    @JsonValue
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minor, 2);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minor, other.minor);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && minor == other.minor;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minor);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,19 @@
+package ecommerce.interprog_finals.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Maps every Money attribute to a BIGINT column of centavos
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, Long> {
+
+    @Override
+    public Long convertToDatabaseColumn(Money money) {
+        return money != null ? money.minor() : null;
+    }
+
+    @Override
+    public Money convertToEntityAttribute(Long minor) {
+        return minor != null ? Money.ofMinor(minor) : null;
+    }
+}
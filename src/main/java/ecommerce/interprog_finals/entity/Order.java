@@ -15,7 +15,9 @@ public class Order {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "order_id")
+    // Public order number; stored as 16 bytes (see OrderIds)
+    @Column(name = "order_id", columnDefinition = "binary(16)")
+    @Convert(converter = OrderIdConverter.class)
     private String orderId;
 
     @Column(name = "order_date")
@@ -23,7 +25,18 @@ public class Order {
     private Date orderDate;
 
     private String status;
-    private double total;
+    // Amounts computed by PricingService at checkout
+    @Column(name = "subtotal_minor", nullable = false)
+    private Money subtotal = Money.ZERO;
+
+    @Column(name = "shipping_minor", nullable = false)
+    private Money shipping = Money.ZERO;
+
+    @Column(name = "tax_minor", nullable = false)
+    private Money tax = Money.ZERO;
+
+    @Column(name = "total_minor", nullable = false)
+    private Money total = Money.ZERO;
 
     @ManyToOne
     @JoinColumn(name = "customer_id")
@@ -34,7 +47,10 @@ public class Order {
     @JsonManagedReference
     private List<OrderItem> items;
 
-    // Structured shipping info fields
+    // Address line as typed at checkout, and its structured parts
+    @Column(name = "shipping_address")
+    private String shippingAddress;
+
     private String shippingStreet;
     private String shippingCity;
     private String shippingProvince;
@@ -42,6 +58,22 @@ public class Order {
     private String shippingCountry;
     private String shippingMethod;
 
+    @Column(name = "payment_method")
+    private String paymentMethod;
+
+    @Column(name = "terms_accepted")
+    private boolean termsAccepted;
+
+    // Contact details given at checkout
+    @Column(name = "first_name")
+    private String firstName;
+
+    @Column(name = "last_name")
+    private String lastName;
+
+    private String email;
+    private String phone;
+
     // Constructors, getters, and setters
 
     public Order() {
@@ -79,11 +111,35 @@ public class Order {
         this.status = status;
     }
 
-    public double getTotal() {
+    public Money getSubtotal() {
+        return subtotal;
+    }
+
+    public void setSubtotal(Money subtotal) {
+        this.subtotal = subtotal;
+    }
+
+    public Money getShipping() {
+        return shipping;
+    }
+
+    public void setShipping(Money shipping) {
+        this.shipping = shipping;
+    }
+
+    public Money getTax() {
+        return tax;
+    }
+
+    public void setTax(Money tax) {
+        this.tax = tax;
+    }
+
+    public Money getTotal() {
         return total;
     }
 
-    public void setTotal(double total) {
+    public void setTotal(Money total) {
         this.total = total;
     }
 
@@ -103,6 +159,14 @@ public class Order {
         this.items = items;
     }
 
+    public String getShippingAddress() {
+        return shippingAddress;
+    }
+
+    public void setShippingAddress(String shippingAddress) {
+        this.shippingAddress = shippingAddress;
+    }
+
     public String getShippingStreet() {
         return shippingStreet;
     }
@@ -150,4 +214,52 @@ public class Order {
     public void setShippingMethod(String shippingMethod) {
         this.shippingMethod = shippingMethod;
     }
+
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public void setPaymentMethod(String paymentMethod) {
+        this.paymentMethod = paymentMethod;
+    }
+
+    public boolean isTermsAccepted() {
+        return termsAccepted;
+    }
+
+    public void setTermsAccepted(boolean termsAccepted) {
+        this.termsAccepted = termsAccepted;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public void setPhone(String phone) {
+        this.phone = phone;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package ecommerce.interprog_finals.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+// Stores the text order id used by the API in a BINARY(16) column (see OrderIds)
+@Converter
+public class OrderIdConverter implements AttributeConverter<String, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(String orderId) {
+        return orderId != null ? OrderIds.toBytes(orderId) : null;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] bytes) {
+        return bytes != null ? OrderIds.fromBytes(bytes) : null;
+    }
+}
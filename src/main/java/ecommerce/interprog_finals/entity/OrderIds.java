@@ -0,0 +1,130 @@
+package ecommerce.interprog_finals.entity;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Text form of the 16-byte order ids stored in BINARY(16) columns.
+ *
+ * <p>New ids are ULIDs: 128 bits written as 26 Crockford base32 characters, which sort in the
+ * same order as the bytes. Orders placed before binary ids existed keep the string they had.
+ * Short ids (such as the old ORD... numbers made by checkout.js) are stored as their ASCII bytes,
+ * padded with zeros. UUID strings are stored as their 16 bytes. A value whose first byte is
+ * printable ASCII is shown as that text; a ULID's first byte is the top of its millisecond
+ * timestamp, which stays below 0x20 until the year 3085.
+ */
+public final class OrderIds {
+
+    public static final int BYTES = 16;
+    public static final int ULID_LENGTH = 26;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final byte[] VALUES = new byte[128];
+    private static final Pattern UUID_PATTERN =
+            Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    static {
+        java.util.Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            VALUES[ALPHABET[i]] = (byte) i;
+            VALUES[Character.toLowerCase(ALPHABET[i])] = (byte) i;
+        }
+    }
+
+    private OrderIds() {
+    }
+
+    // 26-character ULID text of the 128-bit value hi:lo
+    public static String encode(long hi, long lo) {
+        char[] chars = new char[ULID_LENGTH];
+        for (int i = ULID_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (lo & 31)];
+            lo = (lo >>> 5) | (hi << 59);
+            hi >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    public static boolean isValid(String id) {
+        return id != null && parse(id) != null;
+    }
+
+    // Stored bytes of an order id; IllegalArgumentException if the text is not an order id
+    public static byte[] toBytes(String id) {
+        byte[] bytes = parse(id);
+        if (bytes == null) {
+            throw new IllegalArgumentException("Not an order id: " + id);
+        }
+        return bytes;
+    }
+
+    public static String fromBytes(byte[] bytes) {
+        if (bytes.length != BYTES) {
+            throw new IllegalArgumentException("Order ids are " + BYTES + " bytes, got " + bytes.length);
+        }
+        String legacy = asciiText(bytes);
+        if (legacy != null) {
+            return legacy;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return encode(buffer.getLong(), buffer.getLong());
+    }
+
+    private static byte[] parse(String id) {
+        if (id.length() == ULID_LENGTH) {
+            return parseUlid(id);
+        }
+        if (id.length() == 36 && UUID_PATTERN.matcher(id).matches()) {
+            UUID uuid = UUID.fromString(id);
+            return ByteBuffer.allocate(BYTES).putLong(uuid.getMostSignificantBits())
+                    .putLong(uuid.getLeastSignificantBits()).array();
+        }
+        if (id.isEmpty() || id.length() > BYTES) {
+            return null;
+        }
+        byte[] bytes = new byte[BYTES];
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < 0x20 || c > 0x7e) {
+                return null;
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+
+    private static byte[] parseUlid(String id) {
+        long hi = 0;
+        long lo = 0;
+        for (int i = 0; i < ULID_LENGTH; i++) {
+            char c = id.charAt(i);
+            int value = c < 128 ? VALUES[c] : -1;
+            // The first character only carries 3 bits
+            if (value < 0 || (i == 0 && value > 7)) {
+                return null;
+            }
+            hi = (hi << 5) | (lo >>> 59);
+            lo = (lo << 5) | value;
+        }
+        return ByteBuffer.allocate(BYTES).putLong(hi).putLong(lo).array();
+    }
+
+    // The legacy text stored in these bytes, or null if they hold a ULID
+    private static String asciiText(byte[] bytes) {
+        int length = BYTES;
+        while (length > 0 && bytes[length - 1] == 0) {
+            length--;
+        }
+        if (length == 0) {
+            return null;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] < 0x20 || bytes[i] > 0x7e) {
+                return null;
+            }
+        }
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+}
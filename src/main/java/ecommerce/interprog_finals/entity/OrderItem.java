@@ -6,8 +6,12 @@ import jakarta.persistence.*;
 @Entity
 @Table(name = "order_items")
 public class OrderItem {
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Pooled sequence instead of IDENTITY so Hibernate can batch item inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = OrderItem.ID_ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne
@@ -19,7 +23,8 @@ public class OrderItem {
     private Long productId;
 
     private int quantity;
-    private double price;
+    @Column(name = "price_minor", nullable = false)
+    private Money price = Money.ZERO;
 
     private String name;
     private String image;
@@ -57,10 +62,10 @@ public class OrderItem {
         this.quantity = quantity; 
     }
 
-    public double getPrice() { 
+    public Money getPrice() { 
         return price; 
     }
-    public void setPrice(double price) { 
+    public void setPrice(Money price) { 
         this.price = price; 
     }
 
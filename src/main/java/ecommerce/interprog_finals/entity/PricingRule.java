@@ -0,0 +1,55 @@
+package ecommerce.interprog_finals.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One admin-configurable checkout pricing constant; amounts are centavos, rates basis points
+@Entity
+@Table(name = "pricing_rules")
+public class PricingRule {
+
+    @Id
+    @Column(name = "code", length = 50)
+    private String code;
+
+    @Column(name = "rule_value", nullable = false)
+    private long value;
+
+    @Column(name = "description")
+    private String description;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public void setValue(long value) {
+        this.value = value;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
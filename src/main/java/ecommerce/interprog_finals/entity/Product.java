@@ -1,13 +1,21 @@
 package ecommerce.interprog_finals.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    // Backs the filtered/sorted listing in ProductService.searchProducts
+    @Index(name = "idx_products_category_price", columnList = "category, price_minor"),
+    @Index(name = "idx_products_brand_price", columnList = "brand, price_minor"),
+    @Index(name = "idx_products_status", columnList = "status"),
+    @Index(name = "idx_products_price", columnList = "price_minor")
+})
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -16,7 +24,8 @@ public class Product {
     private String name;
     private String sku;
     private String category;
-    private Double price;
+    @Column(name = "price_minor")
+    private Money price;
     private Integer stock;
     private String status;
     private String image;
@@ -54,10 +63,10 @@ public class Product {
         this.category = category; 
     }
 
-    public Double getPrice() { 
+    public Money getPrice() { 
         return price; 
     }
-    public void setPrice(Double price) { 
+    public void setPrice(Money price) { 
         this.price = price; 
     }
 
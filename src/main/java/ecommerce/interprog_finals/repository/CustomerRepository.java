@@ -1,8 +1,26 @@
 package ecommerce.interprog_finals.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ecommerce.interprog_finals.dto.CustomerSummaryDTO;
 import ecommerce.interprog_finals.entity.Customer;
 
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
     Customer findByEmail(String email);
-}
\ No newline at end of file
+
+    // Admin listing: one row per customer with order aggregates; search is a lower-cased LIKE pattern or null.
+    // Only placed orders count, the statuses SalesAnalyticsService counts: not Pending or Rejected
+    @Query(value = "select new ecommerce.interprog_finals.dto.CustomerSummaryDTO(c.id, c.firstName, c.lastName, c.email, "
+            + "c.phone, c.blocked, count(o.id), sum(o.total), max(o.orderDate)) "
+            + "from Customer c left join Order o on o.customer = c and o.status in ('Processing', 'Shipping', 'Delivered') "
+            + "where :search is null or lower(c.email) like :search "
+            + "or lower(c.firstName) like :search or lower(c.lastName) like :search "
+            + "group by c.id, c.firstName, c.lastName, c.email, c.phone, c.blocked",
+            countQuery = "select count(c) from Customer c "
+            + "where :search is null or lower(c.email) like :search "
+            + "or lower(c.firstName) like :search or lower(c.lastName) like :search")
+    Page<CustomerSummaryDTO> findCustomerSummaries(@Param("search") String search, Pageable pageable);
+}
@@ -1,11 +1,24 @@
 package ecommerce.interprog_finals.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ecommerce.interprog_finals.dto.OrderItemDTO;
 import ecommerce.interprog_finals.entity.OrderItem;
 import ecommerce.interprog_finals.entity.Order;
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
-    List<OrderItem> findByOrder(Order order);
-    List<OrderItem> findByOrderId(Long orderId);
+    // Both filter on the order_id column directly so the order_id index is used instead of a join
+    @Query("select i from OrderItem i where i.order = :order order by i.id")
+    List<OrderItem> findByOrder(@Param("order") Order order);
+
+    @Query("select i from OrderItem i where i.order.id = :orderId order by i.id")
+    List<OrderItem> findByOrderId(@Param("orderId") Long orderId);
+
+    // Items of many orders in one query, keyed by the order row id
+    @Query("select new ecommerce.interprog_finals.dto.OrderItemDTO(i.order.id, i.name, i.quantity, i.price, i.image) "
+            + "from OrderItem i where i.order.id in :orderRowIds order by i.id")
+    List<OrderItemDTO> findItemsByOrderRowIds(@Param("orderRowIds") Collection<Long> orderRowIds);
 }
@@ -1,10 +1,59 @@
 package ecommerce.interprog_finals.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ecommerce.interprog_finals.dto.OrderDetailsDTO;
 import ecommerce.interprog_finals.entity.Order;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByCustomerId(Long customerId);
+    // Filter on the foreign key column so the customer_id index is used instead of a join
+    @Query("select o from Order o where o.customer.id = :customerId order by o.id")
+    List<Order> findByCustomerId(@Param("customerId") Long customerId);
     Order findByOrderId(String orderId);
-}
\ No newline at end of file
+
+    // One page of a customer's order history, newest first, starting below the cursor row id
+    @Query("select new ecommerce.interprog_finals.dto.OrderDetailsDTO(o.id, o.orderId, o.orderDate, o.status, "
+            + "o.shippingMethod, o.paymentMethod, o.shippingAddress, o.shippingCity, o.shippingProvince, "
+            + "o.shippingZipCode, o.shippingCountry, o.firstName, o.lastName, o.email, o.phone, "
+            + "o.subtotal, o.shipping, o.tax, o.total) "
+            + "from Order o "
+            + "where o.customer.id = :customerId and o.id < :before "
+            + "order by o.id desc")
+    List<OrderDetailsDTO> findOrderHistory(@Param("customerId") Long customerId, @Param("before") Long before, Pageable pageable);
+
+    // The customer's newest orders that carry a shipping address, used to prefill checkout
+    @Query("select o from Order o where o.customer.id = :customerId and o.shippingAddress is not null order by o.id desc")
+    List<Order> findLatestWithAddress(@Param("customerId") Long customerId, Pageable pageable);
+
+    // Just what a bulk status change needs to know about an order
+    interface StatusRow {
+        Long getId();
+        String getOrderId();
+        String getStatus();
+        Long getCustomerId();
+    }
+
+    @Query("select o.id as id, o.orderId as orderId, o.status as status, o.customer.id as customerId "
+            + "from Order o where o.orderId in :orderIds")
+    List<StatusRow> findStatusRowsByOrderIds(@Param("orderIds") Collection<String> orderIds);
+
+    @Query("select o.id as id, o.orderId as orderId, o.status as status, o.customer.id as customerId "
+            + "from Order o where o.id in :ids")
+    List<StatusRow> findStatusRowsByIds(@Param("ids") Collection<Long> ids);
+
+    // Oldest first, so repeating a capped bulk change works through the backlog in order
+    @Query("select o.id as id, o.orderId as orderId, o.status as status, o.customer.id as customerId "
+            + "from Order o where o.status = :status and o.orderDate < :before order by o.id")
+    List<StatusRow> findStatusRowsByStatusBefore(@Param("status") String status, @Param("before") Date before, Pageable pageable);
+
+    // Set-based status change; rows whose status is no longer :from are left alone
+    @Modifying
+    @Query("update Order o set o.status = :to where o.id in :ids and o.status = :from")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("from") String from, @Param("to") String to);
+}
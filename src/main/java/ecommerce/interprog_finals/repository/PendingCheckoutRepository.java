@@ -0,0 +1,32 @@
+package ecommerce.interprog_finals.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ecommerce.interprog_finals.entity.PendingCheckout;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PendingCheckoutRepository extends JpaRepository<PendingCheckout, Long> {
+    PendingCheckout findByOrderId(String orderId);
+
+    @Query("select p.id from PendingCheckout p where p.status = :status order by p.id")
+    List<Long> findIdsByStatus(@Param("status") String status, Pageable pageable);
+
+    /**
+     * Ends a PROCESSING claim with a new status, but only if the row is still claimed by
+     * (claimedBy, claimedAt). Returns 0 when another worker took the row back in the meantime.
+     * The updated row stays locked until the caller's transaction ends, so two claimants can
+     * never both finish the same checkout. Going back to the queue clears the claim.
+     */
+    @Modifying
+    @Query("update PendingCheckout p set p.status = :status, p.error = :error, p.processedAt = :processedAt, "
+            + "p.claimedBy = case when :status = 'QUEUED' then null else p.claimedBy end, "
+            + "p.claimedAt = case when :status = 'QUEUED' then null else p.claimedAt end "
+            + "where p.id = :id and p.status = 'PROCESSING' and p.claimedBy = :claimedBy and p.claimedAt = :claimedAt")
+    int finishClaim(@Param("id") Long id, @Param("claimedBy") String claimedBy, @Param("claimedAt") LocalDateTime claimedAt,
+                    @Param("status") String status, @Param("error") String error,
+                    @Param("processedAt") LocalDateTime processedAt);
+}
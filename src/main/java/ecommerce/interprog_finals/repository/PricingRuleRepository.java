@@ -0,0 +1,7 @@
+package ecommerce.interprog_finals.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import ecommerce.interprog_finals.entity.PricingRule;
+
+public interface PricingRuleRepository extends JpaRepository<PricingRule, String> {
+}
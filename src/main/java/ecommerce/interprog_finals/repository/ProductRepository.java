@@ -1,7 +1,20 @@
 package ecommerce.interprog_finals.repository;
 
+import ecommerce.interprog_finals.dto.ProductSummaryDTO;
 import ecommerce.interprog_finals.entity.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
-}
\ No newline at end of file
+import java.util.List;
+
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+    // One batch of products in id order after the cursor id, for walking the whole catalog
+    List<Product> findByIdGreaterThanOrderByIdAsc(Long after, Pageable pageable);
+
+    // The product listing without the long description, features and specifications columns
+    @Query("select new ecommerce.interprog_finals.dto.ProductSummaryDTO(p.id, p.name, p.sku, p.category, p.price, "
+            + "p.stock, p.status, p.image, p.brand) from Product p order by p.id")
+    List<ProductSummaryDTO> findAllSummaries();
+}
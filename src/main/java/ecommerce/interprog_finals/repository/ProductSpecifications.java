@@ -0,0 +1,43 @@
+package ecommerce.interprog_finals.repository;
+
+import ecommerce.interprog_finals.entity.Money;
+import ecommerce.interprog_finals.entity.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> categoryIn(Collection<String> categories) {
+        if (categories == null || categories.isEmpty()) return null;
+        return (root, query, cb) -> root.get("category").in(categories);
+    }
+
+    public static Specification<Product> brandIn(Collection<String> brands) {
+        if (brands == null || brands.isEmpty()) return null;
+        return (root, query, cb) -> root.get("brand").in(brands);
+    }
+
+    public static Specification<Product> statusEquals(String status) {
+        if (status == null || status.isBlank()) return null;
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    // Only products with stock left; null or false means no filter
+    public static Specification<Product> inStock(Boolean inStock) {
+        if (!Boolean.TRUE.equals(inStock)) return null;
+        return (root, query, cb) -> cb.greaterThan(root.<Integer>get("stock"), 0);
+    }
+
+    public static Specification<Product> priceBetween(Money minPrice, Money maxPrice) {
+        if (minPrice == null && maxPrice == null) return null;
+        return (root, query, cb) -> {
+            if (minPrice == null) return cb.lessThanOrEqualTo(root.<Money>get("price"), maxPrice);
+            if (maxPrice == null) return cb.greaterThanOrEqualTo(root.<Money>get("price"), minPrice);
+            return cb.between(root.<Money>get("price"), minPrice, maxPrice);
+        };
+    }
+}
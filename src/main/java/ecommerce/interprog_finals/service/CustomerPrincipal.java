@@ -0,0 +1,95 @@
+package ecommerce.interprog_finals.service;
+
+import ecommerce.interprog_finals.entity.Customer;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Authenticated customer as stored in the security context. It carries the profile fields the
+ * customer endpoints need, so they can answer from the session instead of reloading the row
+ * by email on every request. The password is erased once authentication completes.
+ */
+public class CustomerPrincipal implements UserDetails, CredentialsContainer {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String email;
+    private final String firstName;
+    private final String lastName;
+    private final String phone;
+    private final boolean blocked;
+    private final long issuedAt;
+    private String password;
+
+    public CustomerPrincipal(Customer customer) {
+        this.id = customer.getId();
+        this.email = customer.getEmail();
+        this.firstName = customer.getFirstName();
+        this.lastName = customer.getLastName();
+        this.phone = customer.getPhone();
+        this.blocked = customer.isBlocked();
+        this.password = customer.getPassword();
+        this.issuedAt = System.currentTimeMillis();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public boolean isBlocked() {
+        return blocked;
+    }
+
+    // When this principal was loaded; compared against CustomerSessionRegistry revocations
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.singletonList(new SimpleGrantedAuthority("USER"));
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    // Blocked customers fail authentication with a LockedException
+    @Override
+    public boolean isAccountNonLocked() {
+        return !blocked;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        password = null;
+    }
+}
@@ -0,0 +1,40 @@
+package ecommerce.interprog_finals.service;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the {@link CustomerPrincipal} of a request and lets admin actions revoke principals
+ * that are already sitting in customer sessions. A revocation records the time of the block or
+ * delete; any principal issued before it is rejected from then on, so the customer has to log
+ * in again (which fails while they are blocked). Entries are only added by admin actions, so
+ * the map stays small.
+ */
+@Service
+public class CustomerSessionRegistry {
+
+    private final Map<Long, Long> revokedAt = new ConcurrentHashMap<>();
+
+    // The logged-in customer, or null if the request is anonymous or the session was revoked
+    public CustomerPrincipal currentCustomer(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        if (!(authentication.getPrincipal() instanceof CustomerPrincipal principal)) {
+            return null;
+        }
+        Long revoked = revokedAt.get(principal.getId());
+        if (revoked != null && principal.getIssuedAt() <= revoked) {
+            return null;
+        }
+        return principal;
+    }
+
+    // Called when an admin blocks or deletes a customer
+    public void invalidate(Long customerId) {
+        revokedAt.put(customerId, System.currentTimeMillis());
+    }
+}
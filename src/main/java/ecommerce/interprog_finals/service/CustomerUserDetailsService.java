@@ -6,9 +6,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-
-import java.util.Collections;
 
 @Service
 public class CustomerUserDetailsService implements UserDetailsService {
@@ -25,10 +22,6 @@ public class CustomerUserDetailsService implements UserDetailsService {
         if (customer == null) {
             throw new UsernameNotFoundException("User not found");
         }
-        return new org.springframework.security.core.userdetails.User(
-            customer.getEmail(),
-            customer.getPassword(),
-            Collections.singletonList(new SimpleGrantedAuthority("USER"))
-        );
+        return new CustomerPrincipal(customer);
     }
 }
\ No newline at end of file
@@ -0,0 +1,254 @@
+package ecommerce.interprog_finals.service;
+
+import ecommerce.interprog_finals.entity.Product;
+import ecommerce.interprog_finals.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control for products in flash-sale mode.
+ *
+ * <p>When a sale starts, the product's stock is loaded into an in-memory counter. A checkout is
+ * admitted by a compare-and-set on that counter, so exactly as many units are sold as there were
+ * in stock. Once the counter reaches zero, requests fail with {@link SoldOutException} before any
+ * database work. Admitted units are not taken from products.stock per request. The scheduled
+ * flush writes the accumulated difference back in one batched UPDATE per interval, so the hot
+ * row is locked once per flush rather than once per checkout.
+ *
+ * <p>Callers must {@link #cancel} admitted units if the order is not placed after all.
+ *
+ * <p>A stopped sale stays registered until its final flush has written the sold units to
+ * products.stock. Until then its product is refused as sold out, so the normal stock path never
+ * sells units the row still shows. A failed final flush is retried by the scheduled flush.
+ *
+ * <p>Limits: the counter lives in this JVM only. Every instance that starts a sale for the same
+ * product admits against the full stock, so sales must be run on a single instance. Admissions
+ * not yet flushed are lost if the JVM dies; the row then still counts those units as in stock.
+ */
+@Service
+public class FlashSaleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlashSaleService.class);
+
+    // Counter value of a sale that has been stopped; admissions then take the normal stock path
+    private static final int CLOSED = Integer.MIN_VALUE;
+
+    private static final class FlashSale {
+        final Long productId;
+        final int startingStock;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final AtomicInteger remaining;
+        // Counter value already written to products.stock; only changed under the sale's lock
+        int flushedRemaining;
+        // Counter value when the sale was stopped; set under the sale's lock
+        int closedRemaining;
+
+        FlashSale(Long productId, int stock) {
+            this.productId = productId;
+            this.startingStock = stock;
+            this.remaining = new AtomicInteger(stock);
+            this.flushedRemaining = stock;
+        }
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    private final Map<Long, FlashSale> sales = new ConcurrentHashMap<>();
+
+    // Puts the product in flash-sale mode with its current stock; null if the product does not exist
+    public Map<String, Object> start(Long productId) {
+        FlashSale sale = sales.get(productId);
+        if (sale == null) {
+            Product product = productRepository.findById(productId).orElse(null);
+            if (product == null) {
+                return null;
+            }
+            int stock = product.getStock() != null ? product.getStock() : 0;
+            sales.putIfAbsent(productId, new FlashSale(productId, stock));
+            sale = sales.get(productId);
+            logger.info("Flash sale started for product {} with {} units", productId, stock);
+        }
+        return describe(sale);
+    }
+
+    /**
+     * Leaves flash-sale mode and writes the outstanding units back; false if no sale was running.
+     * Throws if that final write fails. The sale then stays registered, closed to admissions,
+     * until the scheduled flush or another stop manages to write it.
+     */
+    public boolean stop(Long productId) {
+        FlashSale sale = sales.get(productId);
+        if (sale == null) {
+            return false;
+        }
+        int left;
+        synchronized (sale) {
+            int current = sale.remaining.getAndSet(CLOSED);
+            if (current != CLOSED) {
+                sale.closedRemaining = current;
+            }
+            left = sale.closedRemaining;
+            flush(sale, left);
+            sales.remove(productId, sale);
+        }
+        logger.info("Flash sale stopped for product {} with {} units left", productId, left);
+        return true;
+    }
+
+    public boolean isActive(Long productId) {
+        return sales.containsKey(productId);
+    }
+
+    // Units left in the sale, or null when the product is not in flash-sale mode
+    public Integer remaining(Long productId) {
+        FlashSale sale = sales.get(productId);
+        if (sale == null) {
+            return null;
+        }
+        int remaining = sale.remaining.get();
+        return remaining != CLOSED ? remaining : null;
+    }
+
+    public List<Map<String, Object>> list() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (FlashSale sale : sales.values()) {
+            result.add(describe(sale));
+        }
+        return result;
+    }
+
+    /**
+     * Takes the requested units of every flash-sale product in {@code quantities} from its
+     * counter. Products not on sale are ignored and left to the normal stock path. Returns the
+     * admitted quantities. Throws {@link SoldOutException}, with nothing admitted, if any sale
+     * product does not have enough units left.
+     */
+    public Map<Long, Integer> admit(Map<Long, Integer> quantities) {
+        if (sales.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Integer> admitted = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            FlashSale sale = sales.get(line.getKey());
+            if (sale == null) {
+                continue;
+            }
+            int quantity = line.getValue();
+            boolean onSale = true;
+            while (true) {
+                int current = sale.remaining.get();
+                if (current == CLOSED) {
+                    // Stopped meanwhile: the order takes this product through the normal stock
+                    // path, once the final flush has put the sold units on the row
+                    boolean unflushed;
+                    synchronized (sale) {
+                        unflushed = sales.get(sale.productId) == sale;
+                    }
+                    if (unflushed) {
+                        cancel(admitted);
+                        throw new SoldOutException(sale.productId, quantity);
+                    }
+                    onSale = false;
+                    break;
+                }
+                if (current < quantity) {
+                    cancel(admitted);
+                    throw new SoldOutException(sale.productId, quantity);
+                }
+                if (sale.remaining.compareAndSet(current, current - quantity)) {
+                    break;
+                }
+            }
+            if (onSale) {
+                admitted.put(sale.productId, quantity);
+            }
+        }
+        return admitted;
+    }
+
+    // Returns units admitted for an order that was not placed
+    public void cancel(Map<Long, Integer> admitted) {
+        Map<Long, Integer> directReturns = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> line : admitted.entrySet()) {
+            FlashSale sale = sales.get(line.getKey());
+            if (sale == null || !giveBack(sale, line.getValue())) {
+                // The sale already ended and flushed these units; put them back on the row
+                directReturns.put(line.getKey(), -line.getValue());
+            }
+        }
+        if (!directReturns.isEmpty()) {
+            productService.applyStockDeltas(directReturns);
+        }
+    }
+
+    // Write-behind of admitted units to products.stock; also finishes stopped sales whose final
+    // flush failed
+    @Scheduled(fixedDelayString = "${flash-sale.flush-interval-ms:1000}")
+    public void flushAll() {
+        for (FlashSale sale : sales.values()) {
+            synchronized (sale) {
+                try {
+                    int current = sale.remaining.get();
+                    if (current != CLOSED) {
+                        flush(sale, current);
+                    } else {
+                        flush(sale, sale.closedRemaining);
+                        sales.remove(sale.productId, sale);
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to flush flash sale stock for product {}: {}", sale.productId, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static boolean giveBack(FlashSale sale, int quantity) {
+        while (true) {
+            int current = sale.remaining.get();
+            if (current == CLOSED) {
+                return false;
+            }
+            if (sale.remaining.compareAndSet(current, current + quantity)) {
+                return true;
+            }
+        }
+    }
+
+    // Writes the units sold (or returned) since the last flush; callers hold the sale's lock. If
+    // the write fails the units stay pending and the next flush writes them
+    private void flush(FlashSale sale, int remaining) {
+        int delta = sale.flushedRemaining - remaining;
+        if (delta == 0) return;
+        productService.applyStockDeltas(Map.of(sale.productId, delta));
+        sale.flushedRemaining = remaining;
+    }
+
+    private static Map<String, Object> describe(FlashSale sale) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("productId", sale.productId);
+        description.put("startingStock", sale.startingStock);
+        int remaining = sale.remaining.get();
+        description.put("remaining", remaining != CLOSED ? remaining : 0);
+        synchronized (sale) {
+            int counted = remaining != CLOSED ? remaining : sale.closedRemaining;
+            description.put("unflushed", sale.flushedRemaining - counted);
+        }
+        description.put("startedAt", sale.startedAt.toString());
+        return description;
+    }
+}
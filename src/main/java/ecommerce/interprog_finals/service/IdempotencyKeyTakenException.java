@@ -0,0 +1,9 @@
+package ecommerce.interprog_finals.service;
+
+// Thrown inside an order transaction when another request already stored the same Idempotency-Key
+public class IdempotencyKeyTakenException extends RuntimeException {
+
+    public IdempotencyKeyTakenException(String key) {
+        super("Idempotency-Key " + key + " was already used");
+    }
+}
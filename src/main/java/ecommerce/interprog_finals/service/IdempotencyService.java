@@ -0,0 +1,229 @@
+package ecommerce.interprog_finals.service;
+
+import ecommerce.interprog_finals.entity.IdempotencyRecord;
+import ecommerce.interprog_finals.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Runs a request at most once per (customer, Idempotency-Key) and replays its response for
+ * repeats. Requests with the same key that arrive while the first is still running wait for
+ * its result instead of running again. Finished responses stay in memory for a short window,
+ * which covers double clicks and quick retries. They are also stored in the idempotency_keys
+ * table for the full TTL, so later retries and restarts still replay them. Server errors are
+ * not stored, so the client can retry those with the same key.
+ *
+ * <p>The action gets a {@link Claim} for the key. A request that places an order hands it to the
+ * order transaction, which stores the response through {@link #storeWithOrder} before it
+ * commits. The key and the order then commit or roll back together, and the unique index stops
+ * another instance from placing the same request twice. Responses that did not place anything
+ * (rejections) are stored after the action returns.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final int MAX_KEY_LENGTH = 255;
+    private static final long SWEEP_INTERVAL_MILLIS = 60_000;
+
+    // The key a request runs under, passed to the transaction that acts on it
+    public static final class Claim {
+        private final Long customerId;
+        private final String key;
+        private final String requestHash;
+        private boolean stored;
+
+        private Claim(Long customerId, String key, String requestHash) {
+            this.customerId = customerId;
+            this.key = key;
+            this.requestHash = requestHash;
+        }
+    }
+
+    private static final class Entry {
+        final String requestHash;
+        final CompletableFuture<ResponseEntity<String>> result = new CompletableFuture<>();
+        volatile long expiresAt = Long.MAX_VALUE;
+
+        Entry(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Value("${checkout.idempotency.memory-ttl-minutes:10}")
+    private long memoryTtlMinutes;
+
+    @Value("${checkout.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepAt = new AtomicLong();
+
+    public ResponseEntity<String> execute(Long customerId, String key, String requestHash,
+                                          Function<Claim, ResponseEntity<String>> action) {
+        sweepIfDue();
+        String entryKey = customerId + ":" + key;
+        Entry mine = new Entry(requestHash);
+        Entry existing;
+        while ((existing = entries.putIfAbsent(entryKey, mine)) != null) {
+            if (existing.expiresAt > System.currentTimeMillis()) {
+                if (!existing.requestHash.equals(requestHash)) {
+                    return keyReused();
+                }
+                // Same request already running or done: wait for it and return its response
+                try {
+                    return existing.result.join();
+                } catch (CompletionException e) {
+                    // Fail the same way the first request did
+                    if (e.getCause() instanceof RuntimeException cause) {
+                        throw cause;
+                    }
+                    throw e;
+                }
+            }
+            entries.remove(entryKey, existing);
+        }
+
+        ResponseEntity<String> response;
+        try {
+            response = loadOrRun(customerId, key, requestHash, action);
+        } catch (RuntimeException e) {
+            entries.remove(entryKey, mine);
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 422) {
+            entries.remove(entryKey, mine);
+        } else {
+            mine.expiresAt = System.currentTimeMillis() + memoryTtlMinutes * 60_000;
+        }
+        mine.result.complete(response);
+        return response;
+    }
+
+    private ResponseEntity<String> loadOrRun(Long customerId, String key, String requestHash,
+                                             Function<Claim, ResponseEntity<String>> action) {
+        IdempotencyRecord record = idempotencyRecordRepository.findByCustomerIdAndIdempotencyKey(customerId, key);
+        if (record != null) {
+            if (record.getCreatedAt().isAfter(LocalDateTime.now().minusHours(ttlHours))) {
+                if (!record.getRequestHash().equals(requestHash)) {
+                    return keyReused();
+                }
+                return ResponseEntity.status(record.getStatusCode()).body(record.getResponseBody());
+            }
+            idempotencyRecordRepository.delete(record);
+        }
+
+        Claim claim = new Claim(customerId, key, requestHash);
+        ResponseEntity<String> response;
+        try {
+            response = action.apply(claim);
+        } catch (IdempotencyKeyTakenException e) {
+            // Another instance placed the same request first; its response is committed now
+            IdempotencyRecord winner = idempotencyRecordRepository.findByCustomerIdAndIdempotencyKey(customerId, key);
+            if (winner == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body("A request with this Idempotency-Key is already in progress");
+            }
+            if (!winner.getRequestHash().equals(requestHash)) {
+                return keyReused();
+            }
+            return ResponseEntity.status(winner.getStatusCode()).body(winner.getResponseBody());
+        }
+        if (!claim.stored && !response.getStatusCode().is5xxServerError()) {
+            try {
+                idempotencyRecordRepository.save(record(claim, response.getStatusCode(), response.getBody()));
+            } catch (DataIntegrityViolationException e) {
+                // Another instance stored the same key first; both requests already ran
+                logger.warn("Idempotency key {} for customer {} was stored concurrently", key, customerId);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Stores the response for {@code claim} in the caller's transaction, so it commits or rolls
+     * back with the work it describes. Does nothing for requests sent without a key. Throws
+     * {@link IdempotencyKeyTakenException} if another request already stored the key; the caller's
+     * transaction must then roll back.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void storeWithOrder(Claim claim, HttpStatusCode status, String body) {
+        if (claim == null) {
+            return;
+        }
+        try {
+            // Flushed now so a duplicate key fails here, before the order commits
+            idempotencyRecordRepository.saveAndFlush(record(claim, status, body));
+        } catch (DataIntegrityViolationException e) {
+            throw new IdempotencyKeyTakenException(claim.key);
+        }
+        claim.stored = true;
+    }
+
+    private static IdempotencyRecord record(Claim claim, HttpStatusCode status, String body) {
+        IdempotencyRecord stored = new IdempotencyRecord();
+        stored.setCustomerId(claim.customerId);
+        stored.setIdempotencyKey(claim.key);
+        stored.setRequestHash(claim.requestHash);
+        stored.setStatusCode(status.value());
+        stored.setResponseBody(body);
+        stored.setCreatedAt(LocalDateTime.now());
+        return stored;
+    }
+
+    // Drops expired in-memory entries and stored keys at most once per sweep interval
+    private void sweepIfDue() {
+        long now = System.currentTimeMillis();
+        long due = nextSweepAt.get();
+        if (now < due || !nextSweepAt.compareAndSet(due, now + SWEEP_INTERVAL_MILLIS)) {
+            return;
+        }
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        try {
+            idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(ttlHours));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to purge expired idempotency keys: {}", e.getMessage());
+        }
+    }
+
+    private static ResponseEntity<String> keyReused() {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body("Idempotency-Key was already used for a different request");
+    }
+
+    // SHA-256 of the request's canonical text, used to detect a key reused with another payload
+    public static String fingerprint(String canonicalRequest) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
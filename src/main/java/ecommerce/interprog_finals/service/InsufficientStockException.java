@@ -0,0 +1,26 @@
+package ecommerce.interprog_finals.service;
+
+public class InsufficientStockException extends RuntimeException {
+
+    private final Long productId;
+    private final int requestedQuantity;
+
+    public InsufficientStockException(Long productId, int requestedQuantity) {
+        this("Insufficient stock for product " + productId + " (requested " + requestedQuantity + ")",
+                productId, requestedQuantity);
+    }
+
+    protected InsufficientStockException(String message, Long productId, int requestedQuantity) {
+        super(message);
+        this.productId = productId;
+        this.requestedQuantity = requestedQuantity;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public int getRequestedQuantity() {
+        return requestedQuantity;
+    }
+}
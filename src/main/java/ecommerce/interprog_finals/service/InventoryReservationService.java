@@ -0,0 +1,368 @@
+package ecommerce.interprog_finals.service;
+
+import ecommerce.interprog_finals.entity.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Time-limited holds on product stock for customers who are checking out.
+ *
+ * <p>Every product has one counter with the number of units currently held, so
+ * "available = stock - held" is one map lookup no matter how many holds exist. A hold is taken
+ * with a compare-and-set on that counter and is refused if it would exceed the stock. Holds end
+ * in one of three ways: the order is committed, the customer releases them, or they expire and
+ * the background sweeper releases them.
+ *
+ * <p>Reservations live in memory. Each sweep checkpoints the ones that changed since the last
+ * sweep to the inventory_reservations table, and they are restored from that table on startup.
+ * A crash can lose the holds made since the last checkpoint. That only makes units available
+ * early; the conditional stock UPDATE at checkout still prevents overselling.
+ */
+@Service
+public class InventoryReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryReservationService.class);
+
+    // Extra time granted to a reservation that is being turned into an order
+    private static final long CHECKOUT_GRACE_MILLIS = 60_000;
+
+    public static final class Reservation {
+        private final String id;
+        private final Long customerId;
+        private final Map<Long, Integer> lines = new LinkedHashMap<>();
+        private long expiresAt;
+        private boolean released;
+
+        Reservation(String id, Long customerId, long expiresAt) {
+            this.id = id;
+            this.customerId = customerId;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Long getCustomerId() {
+            return customerId;
+        }
+
+        public synchronized long getExpiresAt() {
+            return expiresAt;
+        }
+
+        public synchronized Map<Long, Integer> getLines() {
+            return new LinkedHashMap<>(lines);
+        }
+    }
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${inventory.reservations.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private final Map<Long, String> customerReservations = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> held = new ConcurrentHashMap<>();
+    // Ids of reservations created, changed or released since the last checkpoint
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Holds the given quantities for the customer and replaces any reservation the customer
+     * already has. Either every line is held or none is; throws
+     * {@link InsufficientStockException} for the first line that does not fit.
+     */
+    public Reservation reserve(Long customerId, Map<Long, Integer> quantities) {
+        String previous = customerReservations.get(customerId);
+        if (previous != null) {
+            Reservation old = reservations.get(previous);
+            if (old != null) {
+                release(old);
+            }
+        }
+        Reservation reservation = new Reservation(UUID.randomUUID().toString(), customerId,
+                System.currentTimeMillis() + ttlMinutes * 60_000);
+        synchronized (reservation) {
+            acquire(reservation, quantities);
+        }
+        reservations.put(reservation.id, reservation);
+        customerReservations.put(customerId, reservation.id);
+        changed.add(reservation.id);
+        return reservation;
+    }
+
+    /**
+     * Makes sure the customer holds at least the given quantities before their order takes the
+     * stock. Uses the named reservation (or else the customer's current one) and holds only the
+     * units it is missing. If there is none, a new reservation is created. Throws
+     * {@link InsufficientStockException} if the missing units are held by other customers.
+     *
+     * <p>Inside a transaction, what this call held is given back if the transaction does not
+     * commit: a reservation it created is released, units it added to an existing one are
+     * removed again. A failed checkout therefore does not hide stock until the hold expires.
+     */
+    public Reservation holdForCheckout(Long customerId, String reservationId, Map<Long, Integer> quantities) {
+        Reservation reservation = reservationId != null ? reservations.get(reservationId) : null;
+        if (reservation == null || !reservation.customerId.equals(customerId)) {
+            String current = customerReservations.get(customerId);
+            reservation = current != null ? reservations.get(current) : null;
+        }
+        if (reservation != null) {
+            synchronized (reservation) {
+                if (!reservation.released) {
+                    Map<Long, Integer> missing = new LinkedHashMap<>();
+                    for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                        int extra = line.getValue() - reservation.lines.getOrDefault(line.getKey(), 0);
+                        if (extra > 0) {
+                            missing.put(line.getKey(), extra);
+                        }
+                    }
+                    Map<Long, Integer> acquired = acquire(reservation, missing);
+                    reservation.expiresAt = Math.max(reservation.expiresAt, System.currentTimeMillis() + CHECKOUT_GRACE_MILLIS);
+                    changed.add(reservation.id);
+                    undoOnRollback(reservation, acquired, false);
+                    return reservation;
+                }
+            }
+        }
+        Reservation created = reserve(customerId, quantities);
+        undoOnRollback(created, Map.of(), true);
+        return created;
+    }
+
+    private void undoOnRollback(Reservation reservation, Map<Long, Integer> acquired, boolean created) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || (!created && acquired.isEmpty())) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) return;
+                if (created) {
+                    release(reservation);
+                } else {
+                    unhold(reservation, acquired);
+                }
+            }
+        });
+    }
+
+    // Binds the reservation to one queued order: the customer's next checkout holds its own stock
+    public void detach(Reservation reservation) {
+        customerReservations.remove(reservation.customerId, reservation.id);
+    }
+
+    // Called once the order that used this reservation has committed its stock decrement
+    public void commit(Reservation reservation) {
+        release(reservation);
+    }
+
+    // Releases the customer's reservation; false if it does not exist or belongs to someone else
+    public boolean release(String reservationId, Long customerId) {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation == null || !reservation.customerId.equals(customerId)) {
+            return false;
+        }
+        release(reservation);
+        return true;
+    }
+
+    // Units that can still be reserved, per product id; products that do not exist are left out
+    public Map<Long, Integer> getAvailability(Collection<Long> productIds) {
+        Map<Long, Product> products = productService.getProductsByIds(productIds);
+        Map<Long, Integer> availability = new LinkedHashMap<>();
+        for (Long productId : productIds) {
+            Product product = products.get(productId);
+            if (product == null) {
+                continue;
+            }
+            Integer flashRemaining = flashSaleService.remaining(productId);
+            if (flashRemaining != null) {
+                // The sale's counter is ahead of products.stock until its next flush
+                availability.put(productId, Math.max(flashRemaining, 0));
+            } else {
+                availability.put(productId, Math.max(stockOf(product) - heldUnits(productId), 0));
+            }
+        }
+        return availability;
+    }
+
+    public int heldUnits(Long productId) {
+        AtomicInteger counter = held.get(productId);
+        return counter != null ? counter.get() : 0;
+    }
+
+    // Releases expired reservations and checkpoints the remaining ones if anything changed
+    @Scheduled(fixedDelayString = "${inventory.reservations.sweep-interval-ms:5000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        for (Reservation reservation : reservations.values()) {
+            if (reservation.getExpiresAt() <= now) {
+                release(reservation);
+            }
+        }
+        if (!changed.isEmpty()) {
+            List<String> ids = new ArrayList<>();
+            for (String id : changed) {
+                changed.remove(id);
+                ids.add(id);
+            }
+            try {
+                checkpoint(ids);
+            } catch (RuntimeException e) {
+                changed.addAll(ids);
+                logger.warn("Failed to checkpoint inventory reservations: {}", e.getMessage());
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        long now = System.currentTimeMillis();
+        jdbcTemplate.query("SELECT reservation_id, product_id, customer_id, quantity, expires_at FROM inventory_reservations",
+                rs -> {
+                    long expiresAt = rs.getTimestamp("expires_at").getTime();
+                    if (expiresAt <= now) {
+                        // Deleted by the next checkpoint
+                        changed.add(rs.getString("reservation_id"));
+                        return;
+                    }
+                    Long customerId = rs.getLong("customer_id");
+                    Reservation reservation = reservations.computeIfAbsent(rs.getString("reservation_id"),
+                            id -> new Reservation(id, customerId, expiresAt));
+                    long productId = rs.getLong("product_id");
+                    int quantity = rs.getInt("quantity");
+                    synchronized (reservation) {
+                        reservation.lines.merge(productId, quantity, Integer::sum);
+                    }
+                    held.computeIfAbsent(productId, id -> new AtomicInteger()).addAndGet(quantity);
+                    customerReservations.put(reservation.customerId, reservation.id);
+                });
+        if (!reservations.isEmpty()) {
+            logger.info("Restored {} inventory reservations", reservations.size());
+        }
+    }
+
+    // Holds every line on the reservation or, if one does not fit, none of them; returns the
+    // units held per product (flash-sale and unknown products are skipped)
+    private Map<Long, Integer> acquire(Reservation reservation, Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) return Map.of();
+        Map<Long, Product> products = productService.getProductsByIds(quantities.keySet());
+        Map<Long, Integer> acquired = new HashMap<>();
+        try {
+            for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                Product product = products.get(line.getKey());
+                if (product == null || flashSaleService.isActive(product.getId())) {
+                    // Flash-sale units are only taken at checkout, by admission on the sale's counter
+                    continue;
+                }
+                int quantity = line.getValue();
+                AtomicInteger counter = held.computeIfAbsent(product.getId(), id -> new AtomicInteger());
+                int stock = stockOf(product);
+                while (true) {
+                    int current = counter.get();
+                    if (stock - current < quantity) {
+                        throw new InsufficientStockException(product.getId(), quantity);
+                    }
+                    if (counter.compareAndSet(current, current + quantity)) {
+                        break;
+                    }
+                }
+                acquired.put(product.getId(), quantity);
+            }
+        } catch (InsufficientStockException e) {
+            acquired.forEach((productId, quantity) -> held.get(productId).addAndGet(-quantity));
+            throw e;
+        }
+        acquired.forEach((productId, quantity) -> reservation.lines.merge(productId, quantity, Integer::sum));
+        return acquired;
+    }
+
+    // Takes units that were added to a live reservation off it again
+    private void unhold(Reservation reservation, Map<Long, Integer> quantities) {
+        synchronized (reservation) {
+            if (reservation.released) return;
+            quantities.forEach((productId, quantity) -> {
+                reservation.lines.computeIfPresent(productId, (id, current) -> current > quantity ? current - quantity : null);
+                held.get(productId).addAndGet(-quantity);
+            });
+        }
+        changed.add(reservation.id);
+    }
+
+    private void release(Reservation reservation) {
+        Map<Long, Integer> lines;
+        synchronized (reservation) {
+            if (reservation.released) return;
+            reservation.released = true;
+            lines = new HashMap<>(reservation.lines);
+        }
+        reservations.remove(reservation.id, reservation);
+        customerReservations.remove(reservation.customerId, reservation.id);
+        lines.forEach((productId, quantity) -> held.get(productId).addAndGet(-quantity));
+        changed.add(reservation.id);
+    }
+
+    // Rewrites the rows of the given reservations in one transaction: released ones are only
+    // deleted, live ones are deleted and inserted with their current lines
+    private void checkpoint(List<String> ids) {
+        List<Object[]> deletes = new ArrayList<>(ids.size());
+        List<Object[]> rows = new ArrayList<>();
+        for (String id : ids) {
+            deletes.add(new Object[] { id });
+            Reservation reservation = reservations.get(id);
+            if (reservation == null) continue;
+            Timestamp expiresAt;
+            Map<Long, Integer> lines;
+            synchronized (reservation) {
+                if (reservation.released) continue;
+                expiresAt = new Timestamp(reservation.expiresAt);
+                lines = new LinkedHashMap<>(reservation.lines);
+            }
+            lines.forEach((productId, quantity) ->
+                    rows.add(new Object[] { reservation.id, productId, reservation.customerId, quantity, expiresAt }));
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate("DELETE FROM inventory_reservations WHERE reservation_id = ?", deletes);
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate("INSERT INTO inventory_reservations "
+                        + "(reservation_id, product_id, customer_id, quantity, expires_at) VALUES (?, ?, ?, ?, ?)", rows);
+            }
+        });
+    }
+
+    private static int stockOf(Product product) {
+        return product.getStock() != null ? product.getStock() : 0;
+    }
+}
@@ -0,0 +1,58 @@
+package ecommerce.interprog_finals.service;
+
+import ecommerce.interprog_finals.entity.OrderIds;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Issues order ids that increase with time, so new orders are appended at the right edge of the
+ * order_id index instead of landing on random pages the way random UUIDs do.
+ *
+ * <p>An id is 128 bits: a 48-bit millisecond timestamp, the 16-bit node id of this instance and a
+ * 64-bit sequence. The sequence starts at a random value every millisecond and counts up within
+ * it, so ids from one node never repeat or go backwards, even if the clock does. The last
+ * (millisecond, sequence) pair is advanced with a compare-and-set; there is no lock, and
+ * ThreadLocalRandom is used instead of the shared SecureRandom behind UUID.randomUUID().
+ */
+@Service
+public class OrderIdGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIdGenerator.class);
+
+    private record Tick(long millis, long sequence) {
+    }
+
+    // Unique per running instance; a random node id is picked when none is configured
+    @Value("${orders.id.node-id:-1}")
+    private int nodeId;
+
+    private final AtomicReference<Tick> last = new AtomicReference<>(new Tick(0, 0));
+
+    @PostConstruct
+    public void init() {
+        if (nodeId < 0 || nodeId > 0xFFFF) {
+            nodeId = ThreadLocalRandom.current().nextInt(0x10000);
+            logger.info("Using random order id node {}", nodeId);
+        }
+    }
+
+    public String next() {
+        long now = System.currentTimeMillis();
+        while (true) {
+            Tick previous = last.get();
+            // Room above the random start so counting up within one millisecond never overflows
+            Tick tick = now > previous.millis()
+                    ? new Tick(now, ThreadLocalRandom.current().nextLong() >>> 2)
+                    : new Tick(previous.millis(), previous.sequence() + 1);
+            if (last.compareAndSet(previous, tick)) {
+                return OrderIds.encode((tick.millis() << 16) | nodeId, tick.sequence());
+            }
+        }
+    }
+}
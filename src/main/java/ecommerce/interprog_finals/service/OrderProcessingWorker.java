@@ -0,0 +1,239 @@
+package ecommerce.interprog_finals.service;
+
+import ecommerce.interprog_finals.entity.PendingCheckout;
+import ecommerce.interprog_finals.repository.PendingCheckoutRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Drains the pending_checkouts queue filled by asynchronous checkout.
+ *
+ * <p>One dispatcher thread takes queued ids in micro-batches of up to {@code batch-size}. It
+ * claims each batch with a single batched UPDATE, so a row is only processed by the worker whose
+ * claim changed it from QUEUED to PROCESSING, and loads the claimed rows in one query. Every
+ * checkout in the batch then runs in its own transaction on a virtual thread. At most
+ * {@code concurrency} run at once, which keeps the worker within the connection pool.
+ *
+ * <p>A claim records the instance ({@code node-id}) and the claim time. When an instance starts
+ * it takes back only its own unfinished claims. The poll also takes back claims older than
+ * {@code claim-timeout-ms}, whoever holds them. Every worker step finishes its checkout with an
+ * update that still requires its own claim, so a checkout taken back from a slow or restarted
+ * instance is never placed twice.
+ *
+ * <p>Accepted checkouts wake the worker directly. A periodic poll also picks up rows queued by
+ * other instances or left over from a restart.
+ *
+ * <p>With {@code checkout.async.enabled=false} the worker never starts: it runs no reclaim or
+ * poll queries and leaves any rows still in pending_checkouts alone.
+ */
+@Service
+public class OrderProcessingWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderProcessingWorker.class);
+
+    // The worker's own SQL; public so RepositoryQueryPlanTest can check their plans
+    public static final String RECLAIM_OWN_SQL = "UPDATE pending_checkouts SET status = 'QUEUED', claimed_by = NULL, claimed_at = NULL "
+            + "WHERE status = 'PROCESSING' AND claimed_by = ?";
+    public static final String RECLAIM_STALE_SQL = "UPDATE pending_checkouts SET status = 'QUEUED', claimed_by = NULL, claimed_at = NULL "
+            + "WHERE status = 'PROCESSING' AND (claimed_at < ? OR (claimed_at IS NULL AND created_at < ?))";
+    public static final String CLAIM_SQL = "UPDATE pending_checkouts SET status = 'PROCESSING', attempts = attempts + 1, "
+            + "claimed_by = ?, claimed_at = ? WHERE id = ? AND status = 'QUEUED'";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PendingCheckoutRepository pendingCheckoutRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${checkout.async.enabled:false}")
+    private boolean enabled;
+
+    @Value("${checkout.async.batch-size:50}")
+    private int batchSize;
+
+    @Value("${checkout.async.concurrency:8}")
+    private int concurrency;
+
+    @Value("${checkout.async.max-attempts:3}")
+    private int maxAttempts;
+
+    // Must be unique per running instance; defaults to the host name
+    @Value("${checkout.async.node-id:}")
+    private String nodeId;
+
+    @Value("${checkout.async.claim-timeout-ms:300000}")
+    private long claimTimeoutMs;
+
+    private final BlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
+    private ExecutorService executor;
+    private Thread dispatcher;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = defaultNodeId();
+        }
+        // Rows this instance claimed before it stopped go back to the queue; other instances'
+        // claims are only taken back once their lease is stale
+        int reclaimed = jdbcTemplate.update(RECLAIM_OWN_SQL, nodeId);
+        if (reclaimed > 0) {
+            logger.info("Re-queued {} checkouts this worker ({}) left in progress", reclaimed, nodeId);
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        running = true;
+        dispatcher = Thread.ofVirtual().name("order-dispatcher").start(this::dispatchLoop);
+        pollQueued();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    // Wakes the worker for a checkout that was just queued; before start the poll picks it up
+    public void signal(Long pendingCheckoutId) {
+        if (!running) return;
+        if (queued.add(pendingCheckoutId)) {
+            queue.offer(pendingCheckoutId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${checkout.async.poll-interval-ms:5000}")
+    public void pollQueued() {
+        if (!running) return;
+        reclaimStale();
+        for (Long id : pendingCheckoutRepository.findIdsByStatus(PendingCheckout.QUEUED, PageRequest.of(0, batchSize * 10))) {
+            signal(id);
+        }
+    }
+
+    // Claims older than the lease (or made before claims were recorded) go back to the queue
+    private void reclaimStale() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(claimTimeoutMs, ChronoUnit.MILLIS));
+        int reclaimed = jdbcTemplate.update(RECLAIM_STALE_SQL, cutoff, cutoff);
+        if (reclaimed > 0) {
+            logger.warn("Re-queued {} checkouts whose claim went stale", reclaimed);
+        }
+    }
+
+    private static String defaultNodeId() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return UUID.randomUUID().toString();
+        }
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                List<Long> batch = new ArrayList<>(batchSize);
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                batch.forEach(queued::remove);
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Order processing batch failed", e);
+            }
+        }
+    }
+
+    private void processBatch(List<Long> ids) throws InterruptedException {
+        LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<Object[]> args = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            args.add(new Object[] { nodeId, Timestamp.valueOf(claimedAt), id });
+        }
+        int[] updated = jdbcTemplate.batchUpdate(CLAIM_SQL, args);
+        List<Long> claimed = new ArrayList<>(ids.size());
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] > 0) {
+                claimed.add(ids.get(i));
+            }
+        }
+        if (claimed.isEmpty()) return;
+
+        Semaphore permits = new Semaphore(concurrency);
+        List<Future<?>> tasks = new ArrayList<>(claimed.size());
+        for (PendingCheckout pending : pendingCheckoutRepository.findAllById(claimed)) {
+            // Taken back and claimed again elsewhere since our claim
+            if (!nodeId.equals(pending.getClaimedBy()) || !claimedAt.equals(pending.getClaimedAt())) continue;
+            permits.acquire();
+            tasks.add(executor.submit(() -> {
+                try {
+                    process(pending);
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        for (Future<?> future : tasks) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                logger.error("Order processing task failed", e.getCause());
+            }
+        }
+    }
+
+    private void process(PendingCheckout pending) {
+        try {
+            if (!orderService.processPendingCheckout(pending)) {
+                logger.warn("Queued order {} was taken back from this worker; skipped", pending.getOrderId());
+            }
+        } catch (InsufficientStockException | UnknownProductException e) {
+            logger.warn("Rejected queued order {}: {}", pending.getOrderId(), e.getMessage());
+            orderService.rejectPendingCheckout(pending, e.getMessage());
+        } catch (RuntimeException e) {
+            if (pending.getAttempts() >= maxAttempts) {
+                logger.error("Giving up on queued order {} after {} attempts", pending.getOrderId(), pending.getAttempts(), e);
+                orderService.rejectPendingCheckout(pending, "Order could not be processed");
+            } else {
+                logger.warn("Queued order {} failed, retrying: {}", pending.getOrderId(), e.getMessage());
+                orderService.requeuePendingCheckout(pending, e.getMessage());
+            }
+        }
+    }
+}
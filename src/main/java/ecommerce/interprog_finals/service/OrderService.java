@@ -1,60 +1,359 @@
 package ecommerce.interprog_finals.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ecommerce.interprog_finals.entity.CheckoutInformation;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ecommerce.interprog_finals.dto.CheckoutRequest;
+import ecommerce.interprog_finals.dto.OrderDetailsDTO;
+import ecommerce.interprog_finals.dto.OrderItemDTO;
+import ecommerce.interprog_finals.entity.Money;
 import ecommerce.interprog_finals.entity.Order;
+import ecommerce.interprog_finals.entity.OrderItem;
+import ecommerce.interprog_finals.entity.PendingCheckout;
+import ecommerce.interprog_finals.entity.Product;
 import ecommerce.interprog_finals.entity.Customer;
-import ecommerce.interprog_finals.repository.CheckoutInformationRepository;
+import ecommerce.interprog_finals.repository.OrderItemRepository;
 import ecommerce.interprog_finals.repository.OrderRepository;
-import ecommerce.interprog_finals.repository.CustomerRepository;
+import ecommerce.interprog_finals.repository.PendingCheckoutRepository;
 
-import java.util.UUID;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 public class OrderService {
 
+    public static final String STATUS_PENDING = "Pending";
+    public static final String STATUS_PROCESSING = "Processing";
+    public static final String STATUS_REJECTED = "Rejected";
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
     @Autowired
     private OrderRepository orderRepository;
 
     @Autowired
-    private CheckoutInformationRepository checkoutInformationRepository;
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Autowired
+    private OrderIdGenerator orderIdGenerator;
+
+    @Autowired
+    private PendingCheckoutRepository pendingCheckoutRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderStatusEvents orderStatusEvents;
+
+    @Autowired
+    private SalesAnalyticsService salesAnalyticsService;
 
     @Autowired
-    private CustomerRepository customerRepository;
+    private IdempotencyService idempotencyService;
 
+    // Bodies of the checkout responses; also stored with the order for Idempotency-Key replays
+    public static String placedMessage(String orderId) {
+        return "Order created successfully with orderId: " + orderId;
+    }
+
+    public static String acceptedMessage(String orderId) {
+        return "Order accepted with orderId: " + orderId;
+    }
+
+    /**
+     * Runs the whole checkout in one transaction: one product lookup for all lines, one batched
+     * stock decrement, one insert of the order row (which also carries the shipping, payment and
+     * contact details), and a batched insert of the order items.
+     * The number of round trips does not grow with the number of cart lines. Items get their name,
+     * image and price from the catalog. The order's subtotal, shipping, VAT and total are then
+     * priced by {@link PricingService} and stored on the row; the client sends no amounts.
+     * Throws {@link UnknownProductException} when a line names no catalog product and
+     * {@link InsufficientStockException} when a line cannot be fulfilled; nothing is written in
+     * either case.
+     *
+     * <p>The stock is first held through {@link InventoryReservationService}, reusing the
+     * customer's reservation if they have one, so an order cannot take units another customer is
+     * holding. The hold is released once the transaction commits.
+     *
+     * <p>{@code flashLines} are the units already admitted by {@link FlashSaleService}. Those are
+     * neither held nor decremented here; the flash sale writes them back to products.stock in
+     * batches.
+     *
+     * <p>A checkout sent with an Idempotency-Key passes its {@code claim}; the response is stored
+     * in this transaction, so the key is only taken if the order is placed.
+     */
     @Transactional
-    public String createOrder(Order order, CheckoutInformation checkoutInformation, Long customerId) {
+    public String placeOrder(Customer customer, Order order, List<OrderItem> items, String reservationId,
+                             Map<Long, Integer> flashLines, IdempotencyService.Claim claim) {
         if (order == null) {
             throw new IllegalArgumentException("Order cannot be null");
         }
 
-        if (checkoutInformation == null) {
-            throw new IllegalArgumentException("CheckoutInformation cannot be null");
-        }
-
-        if (customerId == null) {
-            throw new IllegalArgumentException("Customer ID cannot be null");
+        if (customer == null || customer.getId() == null) {
+            throw new IllegalArgumentException("Customer cannot be null");
         }
 
-        // Use orderId from order if present, otherwise generate a new one
+        // Orders accepted by enqueueOrder already have their id
         String orderId = order.getOrderId();
-        if (orderId == null || orderId.isEmpty()) {
-            orderId = UUID.randomUUID().toString();
+        if (orderId == null) {
+            orderId = orderIdGenerator.next();
         }
         order.setOrderId(orderId);
-        checkoutInformation.setOrderId(orderId);
+        order.setCustomer(customer);
+
+        Map<Long, Integer> stockLines = applyCatalog(items);
+        applyTotals(order, items);
+        stockLines.keySet().removeAll(flashLines.keySet());
+        InventoryReservationService.Reservation reservation =
+                inventoryReservationService.holdForCheckout(customer.getId(), reservationId, stockLines);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                inventoryReservationService.commit(reservation);
+            }
+        });
+        productService.decrementStock(stockLines);
+
+        Order savedOrder = orderRepository.save(order);
+        for (OrderItem item : items) {
+            item.setOrder(savedOrder);
+        }
+        orderItemRepository.saveAll(items);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                salesAnalyticsService.recordPlaced(savedOrder, items);
+            }
+        });
+        idempotencyService.storeWithOrder(claim, HttpStatus.OK, placedMessage(orderId));
 
-        // Set Customer
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new IllegalArgumentException("Customer with ID " + customerId + " not found"));
+        return orderId;
+    }
+
+    /**
+     * Accept step of asynchronous checkout. Holds the stock, saves the order as Pending and queues
+     * the request for {@link OrderProcessingWorker}, all in one short transaction. Throws
+     * {@link InsufficientStockException} if the stock is held by other customers. Units admitted
+     * by a flash sale ({@code flashLines}) are not held again; they are stored with the queued
+     * checkout and given back to the sale if it is rejected. The Idempotency-Key {@code claim}, if
+     * any, is stored with the queued checkout.
+     */
+    @Transactional
+    public PendingCheckout enqueueOrder(Customer customer, CheckoutRequest request, String reservationId,
+                                        Map<Long, Integer> flashLines, IdempotencyService.Claim claim) {
+        Order order = request.toOrder(STATUS_PENDING);
+        order.setOrderId(orderIdGenerator.next());
         order.setCustomer(customer);
 
-        // Save both entities to the database
+        List<OrderItem> items = request.toOrderItems();
+        Map<Long, Integer> stockLines = applyCatalog(items);
+        applyTotals(order, items);
+        stockLines.keySet().removeAll(flashLines.keySet());
+        InventoryReservationService.Reservation reservation =
+                inventoryReservationService.holdForCheckout(customer.getId(), reservationId, stockLines);
+        inventoryReservationService.detach(reservation);
         orderRepository.save(order);
-        checkoutInformationRepository.save(checkoutInformation);
 
-        return orderId;
+        PendingCheckout pending = new PendingCheckout();
+        pending.setOrderId(order.getOrderId());
+        pending.setCustomerId(customer.getId());
+        pending.setReservationId(reservation.getId());
+        try {
+            pending.setPayload(objectMapper.writeValueAsString(request));
+            if (!flashLines.isEmpty()) {
+                pending.setFlashLines(objectMapper.writeValueAsString(flashLines));
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize checkout request", e);
+        }
+        pending.setStatus(PendingCheckout.QUEUED);
+        pending.setCreatedAt(LocalDateTime.now());
+        PendingCheckout saved = pendingCheckoutRepository.save(pending);
+        idempotencyService.storeWithOrder(claim, HttpStatus.ACCEPTED, acceptedMessage(order.getOrderId()));
+        return saved;
+    }
+
+    /**
+     * Worker step: places the queued order and moves it from Pending to Processing. Returns false
+     * without doing anything if the worker no longer holds the claim on the checkout (it was
+     * taken back after a stale lease and may already be placed by another instance).
+     */
+    @Transactional
+    public boolean processPendingCheckout(PendingCheckout pending) {
+        // Marks the checkout done first: the row stays locked until this transaction commits
+        if (!finishClaim(pending, PendingCheckout.DONE, null)) {
+            return false;
+        }
+        CheckoutRequest request;
+        try {
+            request = objectMapper.readValue(pending.getPayload(), CheckoutRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable checkout payload for order " + pending.getOrderId(), e);
+        }
+        Order order = orderRepository.findByOrderId(pending.getOrderId());
+        if (order == null) {
+            throw new IllegalStateException("Order " + pending.getOrderId() + " no longer exists");
+        }
+        order.setStatus(STATUS_PROCESSING);
+        placeOrder(order.getCustomer(), order, request.toOrderItems(), pending.getReservationId(),
+                flashLinesOf(pending), null);
+        publishAfterCommit(order, null);
+        return true;
+    }
+
+    // Worker step for a checkout that cannot be placed: the order ends as Rejected. Does nothing
+    // if the worker no longer holds the claim.
+    @Transactional
+    public void rejectPendingCheckout(PendingCheckout pending, String error) {
+        if (!finishClaim(pending, PendingCheckout.FAILED, truncate(error))) {
+            return;
+        }
+        Order order = orderRepository.findByOrderId(pending.getOrderId());
+        if (order != null) {
+            order.setStatus(STATUS_REJECTED);
+            orderRepository.save(order);
+            publishAfterCommit(order, truncate(error));
+        }
+        if (pending.getReservationId() != null) {
+            inventoryReservationService.release(pending.getReservationId(), pending.getCustomerId());
+        }
+        Map<Long, Integer> flashLines = flashLinesOf(pending);
+        if (!flashLines.isEmpty()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    flashSaleService.cancel(flashLines);
+                }
+            });
+        }
+    }
+
+    // Worker step after a transient failure: the checkout goes back to the queue, unless the
+    // worker no longer holds the claim
+    @Transactional
+    public void requeuePendingCheckout(PendingCheckout pending, String error) {
+        finishClaim(pending, PendingCheckout.QUEUED, truncate(error));
+    }
+
+    private boolean finishClaim(PendingCheckout pending, String status, String error) {
+        LocalDateTime processedAt = PendingCheckout.QUEUED.equals(status) ? null : LocalDateTime.now();
+        return pendingCheckoutRepository.finishClaim(pending.getId(), pending.getClaimedBy(), pending.getClaimedAt(),
+                status, error, processedAt) > 0;
+    }
+
+    /**
+     * Loads the products of all items in one lookup and copies the catalog's name, image and price
+     * onto every item. Throws {@link UnknownProductException} for an item whose product is missing
+     * or not in the catalog, so no amount sent by the client reaches the order. Returns the
+     * quantities to take from stock, merged per product.
+     */
+    private Map<Long, Integer> applyCatalog(List<OrderItem> items) {
+        List<Long> productIds = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            productIds.add(item.getProductId());
+        }
+        Map<Long, Product> products = productService.getProductsByIds(productIds);
+
+        Map<Long, Integer> stockLines = new LinkedHashMap<>();
+        for (OrderItem item : items) {
+            Product product = item.getProductId() != null ? products.get(item.getProductId()) : null;
+            if (product == null) {
+                throw new UnknownProductException(item.getProductId());
+            }
+            item.setName(product.getName());
+            item.setImage(product.getImage());
+            item.setPrice(product.getPrice() != null ? product.getPrice() : Money.ZERO);
+            stockLines.merge(product.getId(), item.getQuantity(), Integer::sum);
+        }
+        return stockLines;
+    }
+
+    // Pushes the order's new status to the customer's open event streams once it is committed
+    private void publishAfterCommit(Order order, String message) {
+        Long customerId = order.getCustomer().getId();
+        String orderId = order.getOrderId();
+        String status = order.getStatus();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                orderStatusEvents.publish(customerId, orderId, status, message);
+            }
+        });
+    }
+
+    private void applyTotals(Order order, List<OrderItem> items) {
+        PricingService.OrderTotals totals = pricingService.price(items, order.getShippingMethod());
+        order.setSubtotal(totals.subtotal());
+        order.setShipping(totals.shipping());
+        order.setTax(totals.tax());
+        order.setTotal(totals.total());
+    }
+
+    private Map<Long, Integer> flashLinesOf(PendingCheckout pending) {
+        if (pending.getFlashLines() == null) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(pending.getFlashLines(), new TypeReference<Map<Long, Integer>>() {});
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable flash-sale lines for order " + pending.getOrderId(), e);
+        }
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) return error;
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    /**
+     * One page of a customer's order history, newest first, in two queries: the order headers
+     * joined with their checkout information, then the items of every order on the page.
+     * Totals are the ones stored at checkout.
+     * Pass the rowId of the last order of the previous page as {@code before} to continue.
+     */
+    @Transactional(readOnly = true)
+    public List<OrderDetailsDTO> getOrderHistory(Long customerId, Long before, int limit) {
+        long cursor = before != null ? before : Long.MAX_VALUE;
+        List<OrderDetailsDTO> orders = orderRepository.findOrderHistory(customerId, cursor, PageRequest.of(0, limit));
+        if (orders.isEmpty()) {
+            return orders;
+        }
+
+        Map<Long, List<OrderItemDTO>> itemsByOrder = new HashMap<>();
+        for (OrderDetailsDTO order : orders) {
+            itemsByOrder.put(order.getRowId(), new ArrayList<>());
+        }
+        for (OrderItemDTO item : orderItemRepository.findItemsByOrderRowIds(itemsByOrder.keySet())) {
+            itemsByOrder.get(item.getOrderRowId()).add(item);
+        }
+
+        for (OrderDetailsDTO order : orders) {
+            order.setItems(itemsByOrder.get(order.getRowId()));
+        }
+        return orders;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,154 @@
+package ecommerce.interprog_finals.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process bus that pushes order status changes to the customer's open Server-Sent Events
+ * streams.
+ *
+ * <p>Every subscriber has a bounded buffer and a virtual thread that drains it into the stream.
+ * An idle connection is a parked virtual thread and no platform thread. {@link #publish} only
+ * offers to the buffers, so a slow or stalled client never blocks the request that changed the
+ * order. If a buffer is full, its oldest event is dropped and the client gets a {@code resync}
+ * event, which tells it to reload its orders.
+ *
+ * <p>Events are not stored. A client that reconnects should reload its orders first.
+ */
+@Service
+public class OrderStatusEvents {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusEvents.class);
+
+    public record StatusChange(long sequence, String orderId, String status, String message, String changedAt) {
+    }
+
+    private final class Subscriber {
+        final Long customerId;
+        final SseEmitter emitter;
+        final BlockingQueue<StatusChange> buffer;
+        volatile boolean overflowed;
+        volatile boolean closed;
+        volatile Thread sender;
+
+        Subscriber(Long customerId, SseEmitter emitter) {
+            this.customerId = customerId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+
+    @Value("${orders.events.buffer-size:32}")
+    private int bufferSize;
+
+    @Value("${orders.events.heartbeat-seconds:25}")
+    private long heartbeatSeconds;
+
+    @Value("${orders.events.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Opens a stream of the customer's status changes; it ends after the configured timeout
+    public SseEmitter subscribe(Long customerId) {
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        Subscriber subscriber = new Subscriber(customerId, emitter);
+        emitter.onCompletion(() -> close(subscriber));
+        emitter.onTimeout(() -> close(subscriber));
+        emitter.onError(e -> close(subscriber));
+        subscribers.computeIfAbsent(customerId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        subscriber.sender = Thread.ofVirtual().name("order-events-" + customerId).start(() -> deliver(subscriber));
+        return emitter;
+    }
+
+    // Queues the change for every open stream of the customer; never blocks
+    public void publish(Long customerId, String orderId, String status, String message) {
+        Set<Subscriber> streams = customerId != null ? subscribers.get(customerId) : null;
+        if (streams == null || streams.isEmpty()) return;
+        StatusChange change = new StatusChange(sequence.incrementAndGet(), orderId, status, message,
+                LocalDateTime.now().toString());
+        for (Subscriber subscriber : streams) {
+            while (!subscriber.buffer.offer(change)) {
+                subscriber.buffer.poll();
+                subscriber.overflowed = true;
+            }
+        }
+    }
+
+    public int subscriberCount() {
+        int count = 0;
+        for (Set<Subscriber> streams : subscribers.values()) {
+            count += streams.size();
+        }
+        return count;
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        for (Set<Subscriber> streams : subscribers.values()) {
+            for (Subscriber subscriber : streams) {
+                subscriber.emitter.complete();
+                close(subscriber);
+            }
+        }
+    }
+
+    // Runs on the subscriber's virtual thread until the stream is closed
+    private void deliver(Subscriber subscriber) {
+        try {
+            // Sends the response headers right away so the client sees the stream as open
+            subscriber.emitter.send(SseEmitter.event().comment("connected"));
+            while (!subscriber.closed) {
+                StatusChange change = subscriber.buffer.poll(heartbeatSeconds, TimeUnit.SECONDS);
+                if (subscriber.overflowed) {
+                    subscriber.overflowed = false;
+                    subscriber.emitter.send(SseEmitter.event().name("resync").data(""));
+                }
+                if (change == null) {
+                    // Keeps proxies from closing the idle connection and detects clients that left
+                    subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+                } else {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(change.sequence()))
+                            .name("order-status")
+                            .data(change));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Order event stream for customer {} closed: {}", subscriber.customerId, e.getMessage());
+            subscriber.emitter.complete();
+        } finally {
+            close(subscriber);
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        if (subscriber.closed) return;
+        subscriber.closed = true;
+        subscribers.computeIfPresent(subscriber.customerId, (id, streams) -> {
+            streams.remove(subscriber);
+            return streams.isEmpty() ? null : streams;
+        });
+        Thread sender = subscriber.sender;
+        if (sender != null && sender != Thread.currentThread()) {
+            sender.interrupt();
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package ecommerce.interprog_finals.service;
+
+import ecommerce.interprog_finals.entity.OrderIds;
+import ecommerce.interprog_finals.repository.OrderRepository;
+import ecommerce.interprog_finals.repository.OrderRepository.StatusRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Order status life cycle and bulk status changes for the admin console.
+ *
+ * <p>Pending orders belong to the checkout worker, which moves them to Processing or Rejected.
+ * Admins then move them on to Shipping and Delivered. Rejected and Delivered are final.
+ *
+ * <p>A bulk change loads the current status of all targeted orders in one query and checks each
+ * one against the transitions. Then it runs one UPDATE per current status and chunk of ids. The
+ * UPDATE only matches rows that still have the status that was checked, so an order changed by
+ * someone else in the meantime is reported as a conflict instead of being overwritten.
+ */
+@Service
+public class OrderStatusService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusService.class);
+
+    public static final String STATUS_SHIPPING = "Shipping";
+    public static final String STATUS_DELIVERED = "Delivered";
+
+    // Per-order outcomes of a bulk change
+    public static final String UPDATED = "UPDATED";
+    public static final String UNCHANGED = "UNCHANGED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String INVALID_TRANSITION = "INVALID_TRANSITION";
+    public static final String CONFLICT = "CONFLICT";
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final List<String> STATUSES = List.of(OrderService.STATUS_PENDING, OrderService.STATUS_PROCESSING,
+            STATUS_SHIPPING, STATUS_DELIVERED, OrderService.STATUS_REJECTED);
+
+    private static final Map<String, Set<String>> TRANSITIONS = Map.of(
+            OrderService.STATUS_PENDING, Set.of(),
+            OrderService.STATUS_PROCESSING, Set.of(STATUS_SHIPPING, STATUS_DELIVERED),
+            STATUS_SHIPPING, Set.of(STATUS_DELIVERED),
+            STATUS_DELIVERED, Set.of(),
+            OrderService.STATUS_REJECTED, Set.of());
+
+    public record Result(String orderId, String result, String from) {
+    }
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderStatusEvents orderStatusEvents;
+
+    @Autowired
+    private SalesAnalyticsService salesAnalyticsService;
+
+    // The status's canonical spelling ("shipping" -> "Shipping"), or null if it is not a known status
+    public static String canonical(String status) {
+        if (status == null) return null;
+        for (String known : STATUSES) {
+            if (known.equalsIgnoreCase(status.trim())) {
+                return known;
+            }
+        }
+        return null;
+    }
+
+    public static boolean canTransition(String from, String to) {
+        Set<String> next = TRANSITIONS.get(canonical(from));
+        return next != null && next.contains(to);
+    }
+
+    /**
+     * Moves the given orders to {@code target}, which must be a canonical status. Returns one
+     * result per distinct order id, in request order.
+     */
+    @Transactional
+    public List<Result> updateByOrderIds(Collection<String> orderIds, String target) {
+        Set<String> requested = new LinkedHashSet<>(orderIds);
+        // Ids as the database returns them (ULIDs in upper case), by requested id
+        Map<String, String> stored = new HashMap<>();
+        for (String orderId : requested) {
+            if (OrderIds.isValid(orderId)) {
+                stored.put(orderId, OrderIds.fromBytes(OrderIds.toBytes(orderId)));
+            }
+        }
+        List<String> valid = new ArrayList<>(stored.values());
+        Map<String, StatusRow> rows = new HashMap<>();
+        for (List<String> chunk : chunks(valid)) {
+            for (StatusRow row : orderRepository.findStatusRowsByOrderIds(chunk)) {
+                rows.put(row.getOrderId(), row);
+            }
+        }
+
+        Map<String, Result> results = apply(new ArrayList<>(rows.values()), target);
+        List<Result> ordered = new ArrayList<>(requested.size());
+        for (String orderId : requested) {
+            StatusRow row = stored.containsKey(orderId) ? rows.get(stored.get(orderId)) : null;
+            ordered.add(row != null ? results.get(row.getOrderId()) : new Result(orderId, NOT_FOUND, null));
+        }
+        return ordered;
+    }
+
+    /**
+     * Moves up to {@code limit} orders that have status {@code from} and were placed before
+     * {@code before} to {@code target}, oldest first. Returns one result per order; a full page
+     * means more orders may match.
+     */
+    @Transactional
+    public List<Result> updateByFilter(String from, Date before, String target, int limit) {
+        List<StatusRow> rows = orderRepository.findStatusRowsByStatusBefore(from, before, PageRequest.of(0, limit));
+        return new ArrayList<>(apply(rows, target).values());
+    }
+
+    private Map<String, Result> apply(List<StatusRow> rows, String target) {
+        Map<String, Result> results = new LinkedHashMap<>();
+        Map<String, List<StatusRow>> byStatus = new LinkedHashMap<>();
+        for (StatusRow row : rows) {
+            if (target.equals(row.getStatus())) {
+                results.put(row.getOrderId(), new Result(row.getOrderId(), UNCHANGED, row.getStatus()));
+            } else if (!canTransition(row.getStatus(), target)) {
+                results.put(row.getOrderId(), new Result(row.getOrderId(), INVALID_TRANSITION, row.getStatus()));
+            } else {
+                byStatus.computeIfAbsent(row.getStatus(), status -> new ArrayList<>()).add(row);
+            }
+        }
+
+        List<StatusRow> updated = new ArrayList<>();
+        for (Map.Entry<String, List<StatusRow>> group : byStatus.entrySet()) {
+            String from = group.getKey();
+            for (List<StatusRow> chunk : chunks(group.getValue())) {
+                Map<Long, StatusRow> byId = new LinkedHashMap<>();
+                for (StatusRow row : chunk) {
+                    byId.put(row.getId(), row);
+                }
+                int count = orderRepository.updateStatus(byId.keySet(), from, target);
+                Set<Long> changed = byId.keySet();
+                if (count != byId.size()) {
+                    // Some rows changed status since they were read: only those now at the target
+                    // were moved by this update
+                    changed = new LinkedHashSet<>();
+                    for (StatusRow current : orderRepository.findStatusRowsByIds(byId.keySet())) {
+                        if (target.equals(current.getStatus())) {
+                            changed.add(current.getId());
+                        }
+                    }
+                }
+                for (StatusRow row : chunk) {
+                    boolean moved = changed.contains(row.getId());
+                    results.put(row.getOrderId(), new Result(row.getOrderId(), moved ? UPDATED : CONFLICT, from));
+                    if (moved) {
+                        updated.add(row);
+                    }
+                }
+            }
+        }
+        if (!updated.isEmpty()) {
+            logger.info("Moved {} orders to {}", updated.size(), target);
+            publishAfterCommit(updated, target);
+        }
+        return results;
+    }
+
+    // Pushes the change to the customers' event streams and the sales rollups once committed
+    private void publishAfterCommit(List<StatusRow> rows, String status) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                Map<String, List<Long>> idsByFrom = new HashMap<>();
+                for (StatusRow row : rows) {
+                    orderStatusEvents.publish(row.getCustomerId(), row.getOrderId(), status, null);
+                    idsByFrom.computeIfAbsent(row.getStatus(), from -> new ArrayList<>()).add(row.getId());
+                }
+                idsByFrom.forEach((from, ids) -> salesAnalyticsService.recordStatusChange(ids, from, status));
+            }
+        });
+    }
+
+    private static <T> List<List<T>> chunks(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += CHUNK_SIZE) {
+            chunks.add(values.subList(i, Math.min(i + CHUNK_SIZE, values.size())));
+        }
+        return chunks;
+    }
+}
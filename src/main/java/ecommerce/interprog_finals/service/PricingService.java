@@ -0,0 +1,94 @@
+package ecommerce.interprog_finals.service;
+
+import ecommerce.interprog_finals.entity.Money;
+import ecommerce.interprog_finals.entity.OrderItem;
+import ecommerce.interprog_finals.entity.PricingRule;
+import ecommerce.interprog_finals.repository.PricingRuleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Server-side checkout pricing. Computes an order's subtotal, shipping, VAT and total in
+ * centavos from the catalog prices of its items and the rules in the pricing_rules table.
+ *
+ * <p>The rules are read once and kept in memory. They are reloaded when an admin changes one
+ * here, and otherwise every {@code refresh-seconds}, which picks up changes made on other
+ * instances. Codes missing from the table fall back to the old hard-coded values.
+ */
+@Service
+public class PricingService {
+
+    public static final String SHIPPING_STANDARD = "SHIPPING_STANDARD";
+    public static final String SHIPPING_EXPRESS = "SHIPPING_EXPRESS";
+    public static final String TAX_RATE_BPS = "TAX_RATE_BPS";
+
+    private static final Map<String, Long> DEFAULTS = Map.of(
+            SHIPPING_STANDARD, 15000L,
+            SHIPPING_EXPRESS, 30000L,
+            TAX_RATE_BPS, 1200L);
+
+    public record OrderTotals(Money subtotal, Money shipping, Money tax, Money total) {
+    }
+
+    private record Snapshot(Map<String, Long> rules, long loadedAt) {
+    }
+
+    @Autowired
+    private PricingRuleRepository pricingRuleRepository;
+
+    @Value("${pricing.rules.refresh-seconds:60}")
+    private long refreshSeconds;
+
+    private volatile Snapshot snapshot;
+
+    // Totals for the given items (catalog prices already applied) and shipping method
+    public OrderTotals price(List<OrderItem> items, String shippingMethod) {
+        Map<String, Long> rules = rules();
+        // Summed as primitive centavos; one Money is created per amount, not per line
+        long subtotalMinor = 0;
+        for (OrderItem item : items) {
+            subtotalMinor = Math.addExact(subtotalMinor, Math.multiplyExact(item.getPrice().minor(), (long) item.getQuantity()));
+        }
+        Money subtotal = Money.ofMinor(subtotalMinor);
+        Money shipping = Money.ofMinor("express".equalsIgnoreCase(shippingMethod)
+                ? rules.get(SHIPPING_EXPRESS) : rules.get(SHIPPING_STANDARD));
+        Money tax = subtotal.basisPoints(rules.get(TAX_RATE_BPS));
+        return new OrderTotals(subtotal, shipping, tax, subtotal.plus(shipping).plus(tax));
+    }
+
+    public List<PricingRule> getRules() {
+        return pricingRuleRepository.findAll();
+    }
+
+    // Changes one rule and reloads the cache; null if no rule has that code
+    public PricingRule updateRule(String code, long value) {
+        PricingRule rule = pricingRuleRepository.findById(code).orElse(null);
+        if (rule == null) {
+            return null;
+        }
+        rule.setValue(value);
+        rule.setUpdatedAt(LocalDateTime.now());
+        PricingRule saved = pricingRuleRepository.save(rule);
+        snapshot = null;
+        return saved;
+    }
+
+    private Map<String, Long> rules() {
+        Snapshot current = snapshot;
+        if (current == null || current.loadedAt() + refreshSeconds * 1000 <= System.currentTimeMillis()) {
+            Map<String, Long> rules = new HashMap<>(DEFAULTS);
+            for (PricingRule rule : pricingRuleRepository.findAll()) {
+                rules.put(rule.getCode(), rule.getValue());
+            }
+            current = new Snapshot(Map.copyOf(rules), System.currentTimeMillis());
+            snapshot = current;
+        }
+        return current.rules();
+    }
+}
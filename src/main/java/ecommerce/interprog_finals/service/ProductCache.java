@@ -0,0 +1,254 @@
+package ecommerce.interprog_finals.service;
+
+import ecommerce.interprog_finals.dto.ProductSummaryDTO;
+import ecommerce.interprog_finals.entity.Product;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, TTL-based in-memory cache for catalog reads made through {@link ProductService}.
+ * Single products are kept in an LRU map capped at {@code maxEntries}; the product listing
+ * summaries are kept as one snapshot. Catalog edits ({@link #evict}, {@link #clear}) drop the
+ * snapshot. Stock changes do not: their committed deltas are applied in place to the cached
+ * product and its summary row, so checkouts do not cause listing reloads.
+ *
+ * <p>Evictions and committed stock changes bump a generation counter. Loaders read
+ * {@link #generation()} before going to the database and pass it back when caching the result,
+ * so a row read before a concurrent change committed is not cached after it. Products whose stock
+ * change is committing (between {@link #beginStockChange} and {@link #endStockChange}) are not
+ * cached at all, since the loaded row may or may not already include the delta.
+ *
+ * <p>Products are copied on the way in and out, so callers can never change a cached instance.
+ */
+public class ProductCache {
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    // The listing rows in order; a stock change swaps one row, positions never move
+    private static final class Summaries extends AbstractList<ProductSummaryDTO> implements RandomAccess {
+        final AtomicReferenceArray<ProductSummaryDTO> rows;
+        final Map<Long, Integer> positions;
+
+        Summaries(List<ProductSummaryDTO> all) {
+            rows = new AtomicReferenceArray<>(all.toArray(new ProductSummaryDTO[0]));
+            positions = new HashMap<>(all.size() * 2);
+            for (int i = 0; i < all.size(); i++) {
+                positions.put(all.get(i).getId(), i);
+            }
+        }
+
+        @Override
+        public ProductSummaryDTO get(int index) {
+            return rows.get(index);
+        }
+
+        @Override
+        public int size() {
+            return rows.length();
+        }
+    }
+
+    private final Map<Long, Entry<Product>> products;
+    private volatile Entry<Summaries> summaries;
+    // Products with a stock change between beforeCommit and afterCompletion; guarded by products
+    private final Map<Long, Integer> committing = new HashMap<>();
+
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ProductCache(int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be positive");
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.products = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry<Product>> eldest) {
+                if (size() > ProductCache.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Product get(Long id) {
+        long now = System.currentTimeMillis();
+        synchronized (products) {
+            Entry<Product> entry = products.get(id);
+            if (entry != null && entry.expiresAt > now) {
+                hits.increment();
+                return copy(entry.value);
+            }
+            if (entry != null) {
+                products.remove(id);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    // Caches a product that was just saved; like any catalog edit this drops the listing snapshot
+    public void put(Product product) {
+        if (product == null || product.getId() == null) return;
+        Entry<Product> entry = new Entry<>(copy(product), System.currentTimeMillis() + ttlMillis);
+        synchronized (products) {
+            generation.incrementAndGet();
+            products.put(product.getId(), entry);
+            summaries = null;
+        }
+    }
+
+    // Caches a product loaded after generation() returned "seenGeneration"; dropped if anything
+    // changed since or its stock is being committed
+    public void put(Product product, long seenGeneration) {
+        if (product == null || product.getId() == null) return;
+        Entry<Product> entry = new Entry<>(copy(product), System.currentTimeMillis() + ttlMillis);
+        synchronized (products) {
+            if (generation.get() != seenGeneration || committing.containsKey(product.getId())) return;
+            products.put(product.getId(), entry);
+        }
+    }
+
+    public List<ProductSummaryDTO> getSummaries() {
+        Entry<Summaries> entry = summaries;
+        if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void putSummaries(List<ProductSummaryDTO> all, long seenGeneration) {
+        Entry<Summaries> entry = new Entry<>(new Summaries(all), System.currentTimeMillis() + ttlMillis);
+        synchronized (products) {
+            if (generation.get() != seenGeneration || !committing.isEmpty()) return;
+            summaries = entry;
+        }
+    }
+
+    // Called before a transaction that changed the stock of these products commits
+    public void beginStockChange(Collection<Long> ids) {
+        synchronized (products) {
+            for (Long id : ids) {
+                committing.merge(id, 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Called once that transaction has finished, with the units it took per product (negative
+     * values returned units). On commit the deltas are applied to the cached product and summary
+     * row, never going below zero. {@code begun} tells whether {@link #beginStockChange} ran.
+     */
+    public void endStockChange(Map<Long, Integer> taken, boolean committed, boolean begun) {
+        synchronized (products) {
+            if (begun) {
+                for (Long id : taken.keySet()) {
+                    committing.computeIfPresent(id, (key, count) -> count > 1 ? count - 1 : null);
+                }
+            }
+            if (!committed) {
+                return;
+            }
+            generation.incrementAndGet();
+            Entry<Summaries> listing = summaries;
+            for (Map.Entry<Long, Integer> delta : taken.entrySet()) {
+                Entry<Product> entry = products.get(delta.getKey());
+                if (entry != null) {
+                    Product product = copy(entry.value);
+                    product.setStock(minus(product.getStock(), delta.getValue()));
+                    products.put(delta.getKey(), new Entry<>(product, entry.expiresAt));
+                }
+                Integer position = listing != null ? listing.value.positions.get(delta.getKey()) : null;
+                if (position != null) {
+                    ProductSummaryDTO row = listing.value.rows.get(position);
+                    listing.value.rows.set(position, row.withStock(minus(row.getStock(), delta.getValue())));
+                }
+            }
+        }
+    }
+
+    private static Integer minus(Integer stock, int taken) {
+        return stock != null ? Math.max(stock - taken, 0) : null;
+    }
+
+    private static Product copy(Product product) {
+        Product copy = new Product();
+        copy.setId(product.getId());
+        copy.setName(product.getName());
+        copy.setSku(product.getSku());
+        copy.setCategory(product.getCategory());
+        copy.setPrice(product.getPrice());
+        copy.setStock(product.getStock());
+        copy.setStatus(product.getStatus());
+        copy.setImage(product.getImage());
+        copy.setDescription(product.getDescription());
+        copy.setBrand(product.getBrand());
+        copy.setFeatures(product.getFeatures());
+        copy.setSpecifications(product.getSpecifications());
+        return copy;
+    }
+
+    public void evict(Long id) {
+        synchronized (products) {
+            generation.incrementAndGet();
+            products.remove(id);
+            summaries = null;
+        }
+    }
+
+    public void clear() {
+        synchronized (products) {
+            generation.incrementAndGet();
+            products.clear();
+            summaries = null;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        int size;
+        synchronized (products) {
+            size = products.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlSeconds", ttlMillis / 1000);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.sum());
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hitCount / requests);
+        return stats;
+    }
+}
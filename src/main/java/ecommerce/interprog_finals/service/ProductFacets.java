@@ -0,0 +1,547 @@
+package ecommerce.interprog_finals.service;
+
+import ecommerce.interprog_finals.entity.Money;
+import ecommerce.interprog_finals.entity.Product;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Facet counts for the product filter sidebar, kept in memory by {@link ProductService}.
+ *
+ * <p>Every product has an ordinal. Every facet value (a category, a status, a price bucket, in
+ * stock or not) has a bitset of the ordinals that have it. A filter is the OR of the selected
+ * values of a facet, ANDed across facets. The count of a value is the size of its bitset ANDed
+ * with the filters of the other facets, so ticking one category still shows how many products
+ * the other categories would add.
+ *
+ * <p>A facet with many values (brands) would need one catalog-sized bitset per value, so once it
+ * passes {@link #MAX_DENSE_VALUES} values it keeps a member list per value instead, and its
+ * counts come from one pass over the matching ordinals. Price ranges are resolved with 100-peso
+ * bands: bands inside the range are ORed, only the two boundary bands are checked product by
+ * product. Results are cached per filter combination until the next change.
+ *
+ * <p>Ordinals of deleted products are reused, so the bitsets never grow past the largest
+ * catalog size.
+ */
+public class ProductFacets {
+
+    public static final String CATEGORY = "category";
+    public static final String BRAND = "brand";
+    public static final String STATUS = "status";
+    public static final String PRICE = "price";
+    public static final String AVAILABILITY = "availability";
+
+    public static final String IN_STOCK = "in-stock";
+    public static final String OUT_OF_STOCK = "out-of-stock";
+
+    private static final String[] FACETS = { CATEGORY, BRAND, STATUS, PRICE, AVAILABILITY };
+    private static final int CATEGORY_FACET = 0;
+    private static final int BRAND_FACET = 1;
+    private static final int STATUS_FACET = 2;
+    private static final int PRICE_FACET = 3;
+    private static final int AVAILABILITY_FACET = 4;
+
+    // Upper bounds (exclusive, in centavos) of the price buckets; the last bucket is open-ended
+    private static final long[] PRICE_BOUNDS = { 500_00, 1000_00, 2500_00, 5000_00 };
+    private static final String[] PRICE_BUCKETS = { "0-500", "500-1000", "1000-2500", "2500-5000", "5000+" };
+
+    // Price bands used to resolve min/max price filters; the last band is open-ended
+    private static final long BAND_WIDTH = 100_00;
+    private static final int BAND_COUNT = 100;
+
+    // Facets with more values than this switch from bitsets to member lists
+    private static final int MAX_DENSE_VALUES = 64;
+
+    // Values returned per facet, most frequent first
+    private static final int MAX_VALUES_RETURNED = 100;
+
+    private static final int MAX_CACHED_RESULTS = 256;
+
+    private static final class Bits {
+        long[] words = new long[0];
+
+        void set(int bit) {
+            int word = bit >>> 6;
+            if (word >= words.length) {
+                words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+            }
+            words[word] |= 1L << bit;
+        }
+
+        void clear(int bit) {
+            int word = bit >>> 6;
+            if (word < words.length) {
+                words[word] &= ~(1L << bit);
+            }
+        }
+    }
+
+    // The ordinals that have one facet value: a bitset, or an unordered member list once sparse
+    private static final class ValueSet {
+        Bits bits = new Bits();
+        int[] members;
+        int size;
+
+        void add(int ordinal) {
+            if (bits != null) {
+                bits.set(ordinal);
+                return;
+            }
+            if (size == members.length) {
+                members = Arrays.copyOf(members, Math.max(4, size * 2));
+            }
+            members[size++] = ordinal;
+        }
+
+        void remove(int ordinal) {
+            if (bits != null) {
+                bits.clear(ordinal);
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                if (members[i] == ordinal) {
+                    members[i] = members[--size];
+                    return;
+                }
+            }
+        }
+
+        void toMembers(int[] valueOf, int id) {
+            bits = null;
+            members = new int[4];
+            size = 0;
+            for (int ordinal = 0; ordinal < valueOf.length; ordinal++) {
+                if (valueOf[ordinal] == id) {
+                    add(ordinal);
+                }
+            }
+        }
+
+        void orInto(long[] target) {
+            if (bits != null) {
+                or(target, bits.words);
+                return;
+            }
+            for (int i = 0; i < size; i++) {
+                int ordinal = members[i];
+                if (ordinal >>> 6 < target.length) {
+                    target[ordinal >>> 6] |= 1L << ordinal;
+                }
+            }
+        }
+
+        long bytes() {
+            return bits != null ? 8L * bits.words.length : 4L * members.length;
+        }
+    }
+
+    private static final class Facet {
+        final String name;
+        final boolean alwaysDense;
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+        final List<ValueSet> sets = new ArrayList<>();
+        boolean dense = true;
+        // Value id per ordinal, -1 if the product has none
+        int[] valueOf = new int[0];
+
+        Facet(String name, boolean alwaysDense) {
+            this.name = name;
+            this.alwaysDense = alwaysDense;
+        }
+
+        int idOf(String value) {
+            Integer id = ids.get(value);
+            if (id != null) return id;
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+            ValueSet set = new ValueSet();
+            sets.add(set);
+            if (!dense) {
+                set.toMembers(new int[0], id);
+            } else if (!alwaysDense && values.size() > MAX_DENSE_VALUES) {
+                dense = false;
+                for (int i = 0; i < sets.size(); i++) {
+                    sets.get(i).toMembers(valueOf, i);
+                }
+            }
+            return id;
+        }
+
+        void assign(int ordinal, String value) {
+            if (ordinal >= valueOf.length) {
+                int previous = valueOf.length;
+                valueOf = Arrays.copyOf(valueOf, Math.max(ordinal + 1, previous * 2));
+                Arrays.fill(valueOf, previous, valueOf.length, -1);
+            }
+            int old = valueOf[ordinal];
+            int id = value != null ? idOf(value) : -1;
+            if (old == id) return;
+            if (old >= 0) sets.get(old).remove(ordinal);
+            if (id >= 0) sets.get(id).add(ordinal);
+            valueOf[ordinal] = id;
+        }
+
+        long bytes() {
+            long bytes = 4L * valueOf.length;
+            for (ValueSet set : sets) {
+                bytes += set.bytes();
+            }
+            return bytes;
+        }
+    }
+
+    private final Facet[] facets = new Facet[FACETS.length];
+    private Facet priceBands;
+
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final Bits live = new Bits();
+    private long[] prices = new long[0];
+    // Stock per ordinal, kept so committed stock changes can be applied without re-reading the row
+    private int[] stock = new int[0];
+    private int nextOrdinal;
+
+    private final Map<String, Map<String, Object>> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+            return size() > MAX_CACHED_RESULTS;
+        }
+    };
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ProductFacets() {
+        reset();
+    }
+
+    public void put(Product product) {
+        if (product == null || product.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(product.getId());
+            if (ordinal == null) {
+                ordinal = freeOrdinals.isEmpty() ? nextOrdinal++ : freeOrdinals.pop();
+                ordinals.put(product.getId(), ordinal);
+                live.set(ordinal);
+            }
+            if (ordinal >= prices.length) {
+                prices = Arrays.copyOf(prices, Math.max(ordinal + 1, prices.length * 2));
+                stock = Arrays.copyOf(stock, prices.length);
+            }
+            long price = product.getPrice() != null ? product.getPrice().minor() : 0;
+            prices[ordinal] = price;
+            stock[ordinal] = stockOf(product);
+            facets[CATEGORY_FACET].assign(ordinal, blankToNull(product.getCategory()));
+            facets[BRAND_FACET].assign(ordinal, blankToNull(product.getBrand()));
+            facets[STATUS_FACET].assign(ordinal, blankToNull(product.getStatus()));
+            facets[PRICE_FACET].assign(ordinal, PRICE_BUCKETS[bucketOf(price)]);
+            facets[AVAILABILITY_FACET].assign(ordinal, stock[ordinal] > 0 ? IN_STOCK : OUT_OF_STOCK);
+            priceBands.assign(ordinal, String.valueOf(bandOf(price)));
+            clearCache();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies committed stock changes: units taken per product id, negative for units returned.
+     * Stock stops at zero like the UPDATE that took it. Cached counts are only dropped when a
+     * product moved between in stock and out of stock.
+     */
+    public void takeStock(Map<Long, Integer> taken) {
+        lock.writeLock().lock();
+        try {
+            boolean moved = false;
+            for (Map.Entry<Long, Integer> line : taken.entrySet()) {
+                Integer ordinal = ordinals.get(line.getKey());
+                if (ordinal == null) continue;
+                int before = stock[ordinal];
+                stock[ordinal] = (int) Math.max(0L, (long) before - line.getValue());
+                if ((before > 0) != (stock[ordinal] > 0)) {
+                    facets[AVAILABILITY_FACET].assign(ordinal, stock[ordinal] > 0 ? IN_STOCK : OUT_OF_STOCK);
+                    moved = true;
+                }
+            }
+            if (moved) {
+                clearCache();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.remove(productId);
+            if (ordinal == null) return;
+            for (Facet facet : facets) {
+                facet.assign(ordinal, null);
+            }
+            priceBands.assign(ordinal, null);
+            live.clear(ordinal);
+            freeOrdinals.push(ordinal);
+            clearCache();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts per facet value under the given filters. {@code selected} maps a facet name to the
+     * values ticked for it (any of them matches); the price facet is filtered by the
+     * {@code minPrice}/{@code maxPrice} range instead. The result has one value-to-count map per
+     * facet plus the number of products matching all filters under "total".
+     */
+    public Map<String, Object> count(Map<String, Collection<String>> selected, Money minPrice, Money maxPrice) {
+        String key = new TreeMap<>(selected) + "|" + minPrice + "|" + maxPrice;
+        lock.readLock().lock();
+        try {
+            synchronized (cache) {
+                Map<String, Object> cached = cache.get(key);
+                if (cached != null) return cached;
+            }
+
+            int wordCount = live.words.length;
+            // Per facet, the products its own filter lets through (null: no filter)
+            long[][] filters = new long[facets.length][];
+            for (int f = 0; f < facets.length; f++) {
+                Facet facet = facets[f];
+                if (f == PRICE_FACET) {
+                    filters[f] = priceFilter(minPrice, maxPrice, wordCount);
+                    continue;
+                }
+                Collection<String> values = selected.get(facet.name);
+                if (values == null || values.isEmpty()) continue;
+                long[] filter = new long[wordCount];
+                for (String value : values) {
+                    Integer id = facet.ids.get(value);
+                    if (id != null) {
+                        facet.sets.get(id).orInto(filter);
+                    }
+                }
+                filters[f] = filter;
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("total", cardinality(matching(filters, -1, wordCount)));
+            for (int f = 0; f < facets.length; f++) {
+                result.put(facets[f].name, countValues(facets[f], matching(filters, f, wordCount)));
+            }
+            synchronized (cache) {
+                cache.put(key, result);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            long bytes = 8L * live.words.length + 12L * prices.length + priceBands.bytes();
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (Facet facet : facets) {
+                values.put(facet.name, facet.values.size());
+                bytes += facet.bytes();
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("products", ordinals.size());
+            stats.put("ordinals", nextOrdinal);
+            stats.put("values", values);
+            stats.put("approxBytes", bytes);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < FACETS.length; i++) {
+            facets[i] = new Facet(FACETS[i], false);
+        }
+        priceBands = new Facet("price-band", true);
+        ordinals.clear();
+        freeOrdinals.clear();
+        live.words = new long[0];
+        prices = new long[0];
+        stock = new int[0];
+        nextOrdinal = 0;
+        clearCache();
+    }
+
+    private void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    // Live products that pass every filter except the one of facet "skip"
+    private long[] matching(long[][] filters, int skip, int wordCount) {
+        long[] result = Arrays.copyOf(live.words, wordCount);
+        for (int f = 0; f < filters.length; f++) {
+            if (f != skip && filters[f] != null) {
+                and(result, filters[f]);
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Long> countValues(Facet facet, long[] mask) {
+        long[] counts = new long[facet.values.size()];
+        if (facet.dense) {
+            for (int id = 0; id < counts.length; id++) {
+                counts[id] = andCardinality(mask, facet.sets.get(id).bits.words);
+            }
+        } else if (cardinality(mask) <= ordinals.size() / 2) {
+            // Count the matching products
+            for (int word = 0; word < mask.length; word++) {
+                countOrdinals(facet, counts, mask[word], word, 1);
+            }
+        } else {
+            // Most products match: start from the value sizes and take off the products that do not
+            for (int id = 0; id < counts.length; id++) {
+                counts[id] = facet.sets.get(id).size;
+            }
+            for (int word = 0; word < mask.length; word++) {
+                countOrdinals(facet, counts, live.words[word] & ~mask[word], word, -1);
+            }
+        }
+
+        Map<String, Long> values = new LinkedHashMap<>();
+        if (facet.name.equals(PRICE)) {
+            for (String bucket : PRICE_BUCKETS) {
+                Integer id = facet.ids.get(bucket);
+                values.put(bucket, id != null ? counts[id] : 0L);
+            }
+        } else if (facet.name.equals(AVAILABILITY)) {
+            for (String value : List.of(IN_STOCK, OUT_OF_STOCK)) {
+                Integer id = facet.ids.get(value);
+                values.put(value, id != null ? counts[id] : 0L);
+            }
+        } else {
+            List<Integer> ids = new ArrayList<>();
+            for (int id = 0; id < counts.length; id++) {
+                if (counts[id] > 0) ids.add(id);
+            }
+            ids.sort((a, b) -> counts[a] != counts[b] ? Long.compare(counts[b], counts[a])
+                    : facet.values.get(a).compareTo(facet.values.get(b)));
+            for (int id : ids.subList(0, Math.min(ids.size(), MAX_VALUES_RETURNED))) {
+                values.put(facet.values.get(id), counts[id]);
+            }
+        }
+        return values;
+    }
+
+    private static void countOrdinals(Facet facet, long[] counts, long bits, int word, int delta) {
+        while (bits != 0) {
+            int ordinal = (word << 6) + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            int id = ordinal < facet.valueOf.length ? facet.valueOf[ordinal] : -1;
+            if (id >= 0) counts[id] += delta;
+        }
+    }
+
+    // Products priced within [min, max]: whole bands are ORed, the boundary bands checked per product
+    private long[] priceFilter(Money minPrice, Money maxPrice, int wordCount) {
+        if (minPrice == null && maxPrice == null) return null;
+        long min = minPrice != null ? minPrice.minor() : Long.MIN_VALUE;
+        long max = maxPrice != null ? maxPrice.minor() : Long.MAX_VALUE;
+        long[] filter = new long[wordCount];
+        if (min > max) return filter;
+        int firstBand = minPrice != null ? bandOf(min) : 0;
+        int lastBand = maxPrice != null ? bandOf(max) : BAND_COUNT;
+        for (int band = firstBand; band <= lastBand; band++) {
+            Integer id = priceBands.ids.get(String.valueOf(band));
+            if (id == null) continue;
+            long[] words = priceBands.sets.get(id).bits.words;
+            if (band != firstBand && band != lastBand) {
+                or(filter, words);
+                continue;
+            }
+            for (int word = 0; word < Math.min(words.length, wordCount); word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    int ordinal = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (prices[ordinal] >= min && prices[ordinal] <= max) {
+                        filter[word] |= 1L << ordinal;
+                    }
+                }
+            }
+        }
+        return filter;
+    }
+
+    private static int bucketOf(long priceMinor) {
+        for (int i = 0; i < PRICE_BOUNDS.length; i++) {
+            if (priceMinor < PRICE_BOUNDS[i]) return i;
+        }
+        return PRICE_BOUNDS.length;
+    }
+
+    private static int bandOf(long priceMinor) {
+        return (int) Math.max(0, Math.min(priceMinor / BAND_WIDTH, BAND_COUNT));
+    }
+
+    private static void or(long[] target, long[] source) {
+        for (int i = 0; i < Math.min(target.length, source.length); i++) {
+            target[i] |= source[i];
+        }
+    }
+
+    private static void and(long[] target, long[] source) {
+        int shared = Math.min(target.length, source.length);
+        for (int i = 0; i < shared; i++) {
+            target[i] &= source[i];
+        }
+        Arrays.fill(target, shared, target.length, 0L);
+    }
+
+    private static long andCardinality(long[] a, long[] b) {
+        long count = 0;
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            count += Long.bitCount(a[i] & b[i]);
+        }
+        return count;
+    }
+
+    private static long cardinality(long[] words) {
+        long count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static int stockOf(Product product) {
+        return product.getStock() != null ? product.getStock() : 0;
+    }
+}
@@ -0,0 +1,364 @@
+package ecommerce.interprog_finals.service;
+
+import ecommerce.interprog_finals.entity.Product;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the product text fields, used by {@link ProductService} for
+ * full-text search.
+ *
+ * <p>Every indexed product gets an ordinal. Each term keeps a posting list of the ordinals that
+ * contain it, in ascending order, with a weighted term frequency (a name match counts more than
+ * a description match). A query is analyzed the same way as the products, the posting lists of
+ * its terms are intersected starting with the shortest one, and the matches are ranked with BM25.
+ *
+ * <p>Updating a product appends it under a new ordinal and marks the old one as deleted, so the
+ * posting lists stay sorted without being rewritten. Once deleted ordinals make up a quarter of
+ * the index, the posting lists are compacted.
+ */
+public class ProductSearchIndex {
+
+    // Field weights: how many times a token of that field counts towards the term frequency
+    private static final int NAME_WEIGHT = 3;
+    private static final int BRAND_WEIGHT = 2;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int TEXT_WEIGHT = 1;
+
+    // BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Deepest hit that can be paged to
+    public static final int MAX_WINDOW = 10_000;
+
+    private static final int MIN_DELETED_FOR_COMPACTION = 1024;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "the", "to", "with");
+
+    public record Result(List<Long> productIds, int total) {
+    }
+
+    private static final class Postings {
+        int[] ordinals = new int[2];
+        int[] frequencies = new int[2];
+        int size;
+
+        void add(int ordinal, int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+        }
+    }
+
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private long[] productIds = new long[1024];
+    private int[] lengths = new int[1024];
+    private final BitSet deleted = new BitSet();
+    private int nextOrdinal;
+    private int deletedCount;
+    private long totalLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Adds the product, or replaces its previous version
+    public void index(Product product) {
+        if (product == null || product.getId() == null) return;
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = addTokens(frequencies, product.getName(), NAME_WEIGHT)
+                + addTokens(frequencies, product.getBrand(), BRAND_WEIGHT)
+                + addTokens(frequencies, product.getCategory(), CATEGORY_WEIGHT)
+                + addTokens(frequencies, product.getDescription(), TEXT_WEIGHT)
+                + addTokens(frequencies, product.getFeatures(), TEXT_WEIGHT)
+                + addTokens(frequencies, product.getSpecifications(), TEXT_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(product.getId());
+            if (frequencies.isEmpty()) return;
+            int ordinal = nextOrdinal++;
+            if (ordinal == productIds.length) {
+                productIds = Arrays.copyOf(productIds, ordinal * 2);
+                lengths = Arrays.copyOf(lengths, ordinal * 2);
+            }
+            productIds[ordinal] = product.getId();
+            lengths[ordinal] = length;
+            totalLength += length;
+            ordinals.put(product.getId(), ordinal);
+            frequencies.forEach((term, frequency) -> terms.computeIfAbsent(term, t -> new Postings()).add(ordinal, frequency));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            ordinals.clear();
+            deleted.clear();
+            nextOrdinal = 0;
+            deletedCount = 0;
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Products that contain every term of the query, best match first. Returns the ids of hits
+     * {@code offset} to {@code offset + limit} (within {@link #MAX_WINDOW}) and the number of
+     * matching products.
+     */
+    public Result search(String query, int offset, int limit) {
+        List<String> queryTerms = new ArrayList<>(frequenciesOf(query).keySet());
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return new Result(List.of(), 0);
+        }
+        int window = Math.min(offset + limit, MAX_WINDOW);
+
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[queryTerms.size()];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = terms.get(queryTerms.get(i));
+                if (lists[i] == null) {
+                    return new Result(List.of(), 0);
+                }
+            }
+            Arrays.sort(lists, Comparator.comparingInt(postings -> postings.size));
+
+            int liveCount = ordinals.size();
+            double averageLength = liveCount > 0 ? (double) totalLength / liveCount : 1;
+            double[] idf = new double[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                idf[i] = Math.log(1 + (liveCount - lists[i].size + 0.5) / (lists[i].size + 0.5));
+            }
+
+            // Min-heap of the best "window" hits; ties go to the older product
+            PriorityQueue<double[]> best = new PriorityQueue<>(
+                    Comparator.<double[]>comparingDouble(hit -> hit[0]).thenComparingDouble(hit -> -hit[1]));
+            int[] cursors = new int[lists.length];
+            int total = 0;
+            Postings driver = lists[0];
+            candidates:
+            for (int d = 0; d < driver.size; d++) {
+                int ordinal = driver.ordinals[d];
+                if (deleted.get(ordinal)) continue;
+                double norm = K1 * (1 - B + B * lengths[ordinal] / averageLength);
+                double score = idf[0] * bm25(driver.frequencies[d], norm);
+                for (int i = 1; i < lists.length; i++) {
+                    Postings postings = lists[i];
+                    int at = advance(postings, cursors[i], ordinal);
+                    cursors[i] = at;
+                    if (at == postings.size) break candidates;
+                    if (postings.ordinals[at] != ordinal) continue candidates;
+                    score += idf[i] * bm25(postings.frequencies[at], norm);
+                }
+                total++;
+                if (best.size() < window) {
+                    best.add(new double[] { score, ordinal });
+                } else if (score > best.peek()[0]) {
+                    best.poll();
+                    best.add(new double[] { score, ordinal });
+                }
+            }
+
+            long[] ranked = new long[best.size()];
+            for (int i = ranked.length - 1; i >= 0; i--) {
+                ranked[i] = productIds[(int) best.poll()[1]];
+            }
+            List<Long> page = new ArrayList<>();
+            for (int i = offset; i < ranked.length; i++) {
+                page.add(ranked[i]);
+            }
+            return new Result(page, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            long postings = 0;
+            long postingBytes = 0;
+            for (Postings list : terms.values()) {
+                postings += list.size;
+                postingBytes += 8L * list.ordinals.length;
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("products", ordinals.size());
+            stats.put("deletedOrdinals", deletedCount);
+            stats.put("terms", terms.size());
+            stats.put("postings", postings);
+            stats.put("postingBytes", postingBytes);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits text into index terms: lower-cased letter/digit runs with accents removed, stop
+     * words and single letters dropped, and plurals reduced with the S-stemmer ("shoes" and
+     * "shoe" are the same term).
+     */
+    public static List<String> analyze(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) return tokens;
+        StringBuilder token = new StringBuilder();
+        boolean ascii = true;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(Character.toLowerCase(c));
+                ascii &= c < 128;
+            } else if (!token.isEmpty()) {
+                String term = ascii ? token.toString() : fold(token);
+                if (!(term.length() == 1 && Character.isLetter(term.charAt(0))) && !STOP_WORDS.contains(term)) {
+                    tokens.add(stem(term));
+                }
+                token.setLength(0);
+                ascii = true;
+            }
+        }
+        return tokens;
+    }
+
+    static String stem(String term) {
+        if (term.length() <= 3 || Character.isDigit(term.charAt(0))) return term;
+        if (term.endsWith("ies") && !term.endsWith("eies") && !term.endsWith("aies")) {
+            return term.substring(0, term.length() - 3) + "y";
+        }
+        if (term.endsWith("es") && !term.endsWith("aes") && !term.endsWith("ees") && !term.endsWith("oes")) {
+            return term.substring(0, term.length() - 1);
+        }
+        if (term.endsWith("s") && !term.endsWith("us") && !term.endsWith("ss")) {
+            return term.substring(0, term.length() - 1);
+        }
+        return term;
+    }
+
+    static String fold(CharSequence token) {
+        String decomposed = Normalizer.normalize(token, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                folded.append(c);
+            }
+        }
+        return folded.toString();
+    }
+
+    private static Map<String, Integer> frequenciesOf(String text) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        addTokens(frequencies, text, 1);
+        return frequencies;
+    }
+
+    // Adds the field's tokens with the field weight; returns the weighted token count
+    private static int addTokens(Map<String, Integer> frequencies, String text, int weight) {
+        List<String> tokens = analyze(text);
+        for (String token : tokens) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    private static double bm25(int frequency, double norm) {
+        return frequency * (K1 + 1) / (frequency + norm);
+    }
+
+    // Index of the first posting at or after "from" whose ordinal is >= target (galloping search)
+    private static int advance(Postings postings, int from, int target) {
+        int[] values = postings.ordinals;
+        int size = postings.size;
+        if (from >= size || values[from] >= target) return from;
+        int step = 1;
+        int low = from;
+        int high = from + 1;
+        while (high < size && values[high] < target) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        high = Math.min(high, size);
+        // values[low] < target and (high == size or values[high] >= target)
+        int index = Arrays.binarySearch(values, low + 1, high, target);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private void removeLocked(Long productId) {
+        Integer ordinal = ordinals.remove(productId);
+        if (ordinal == null) return;
+        deleted.set(ordinal);
+        deletedCount++;
+        totalLength -= lengths[ordinal];
+        if (deletedCount >= MIN_DELETED_FOR_COMPACTION && deletedCount * 4L >= nextOrdinal) {
+            compact();
+        }
+    }
+
+    // Drops deleted ordinals from every posting list and renumbers the live ones, keeping their order
+    private void compact() {
+        int[] remap = new int[nextOrdinal];
+        int live = 0;
+        for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+            if (deleted.get(ordinal)) {
+                remap[ordinal] = -1;
+            } else {
+                remap[ordinal] = live;
+                productIds[live] = productIds[ordinal];
+                lengths[live] = lengths[ordinal];
+                live++;
+            }
+        }
+        terms.values().removeIf(postings -> {
+            int kept = 0;
+            for (int i = 0; i < postings.size; i++) {
+                int ordinal = remap[postings.ordinals[i]];
+                if (ordinal >= 0) {
+                    postings.ordinals[kept] = ordinal;
+                    postings.frequencies[kept] = postings.frequencies[i];
+                    kept++;
+                }
+            }
+            postings.size = kept;
+            return kept == 0;
+        });
+        ordinals.replaceAll((productId, ordinal) -> remap[ordinal]);
+        deleted.clear();
+        deletedCount = 0;
+        nextOrdinal = live;
+    }
+}
@@ -1,28 +1,227 @@
 package ecommerce.interprog_finals.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ecommerce.interprog_finals.dto.ProductSummaryDTO;
+import ecommerce.interprog_finals.entity.Money;
 import ecommerce.interprog_finals.entity.Product;
 import ecommerce.interprog_finals.repository.ProductRepository;
+import ecommerce.interprog_finals.repository.ProductSpecifications;
+import jakarta.annotation.PostConstruct;
+import java.sql.Date;
+import java.time.LocalDate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class ProductService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductService.class);
+
+    private static final int INDEX_BATCH_SIZE = 1000;
     
     @Autowired
     private ProductRepository productRepository;
-      public List<Product> getAllProducts() {
-        List<Product> products = productRepository.findAll();
-        System.out.println("Number of products found in database: " + products.size());
-        return products;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${catalog.cache.max-entries:10000}")
+    private int cacheMaxEntries;
+
+    @Value("${catalog.cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    // Sales window that weights the autocomplete suggestions
+    @Value("${catalog.suggest.sales-days:90}")
+    private int suggestSalesDays;
+
+    private ProductCache cache;
+
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+
+    private final ProductSuggester suggester = new ProductSuggester();
+
+    private final ProductFacets facets = new ProductFacets();
+
+    @PostConstruct
+    void initCache() {
+        cache = new ProductCache(cacheMaxEntries, cacheTtlSeconds * 1000);
+    }
+
+    // Builds the full-text index, the suggestions and the facets from the catalog, one id-ordered
+    // batch at a time
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildSearchIndex() {
+        long started = System.currentTimeMillis();
+        searchIndex.clear();
+        suggester.clear();
+        facets.clear();
+        long after = 0;
+        int count = 0;
+        while (true) {
+            List<Product> batch = productRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, INDEX_BATCH_SIZE));
+            for (Product product : batch) {
+                searchIndex.index(product);
+                suggester.put(product);
+                facets.put(product);
+            }
+            count += batch.size();
+            if (batch.size() < INDEX_BATCH_SIZE) break;
+            after = batch.get(batch.size() - 1).getId();
+        }
+        refreshSuggestionWeights();
+        suggester.rebuild();
+        logger.info("Indexed {} products for search in {} ms", count, System.currentTimeMillis() - started);
+    }
+
+    // Loads units sold per product over the last catalog.suggest.sales-days days from the sales rollups
+    @Scheduled(initialDelayString = "${catalog.suggest.weights-refresh-ms:600000}",
+            fixedDelayString = "${catalog.suggest.weights-refresh-ms:600000}")
+    public void refreshSuggestionWeights() {
+        try {
+            Map<Long, Long> weights = new HashMap<>();
+            jdbcTemplate.query("SELECT product_id, SUM(units_sold) AS units FROM product_sales_daily "
+                            + "WHERE sales_date >= ? GROUP BY product_id",
+                    rs -> {
+                        weights.put(rs.getLong("product_id"), rs.getLong("units"));
+                    },
+                    Date.valueOf(LocalDate.now().minusDays(suggestSalesDays - 1L)));
+            suggester.setWeights(weights);
+        } catch (DataAccessException e) {
+            logger.warn("Failed to load suggestion weights: {}", e.getMessage());
+        }
+    }
+
+    // Rebuilds the suggestion snapshot if products or weights changed since the last run
+    @Scheduled(fixedDelayString = "${catalog.suggest.refresh-interval-ms:2000}")
+    public void refreshSuggestions() {
+        if (suggester.isStale()) {
+            suggester.rebuild();
+        }
+    }
+
+    // Type-ahead suggestions for a prefix: product names, brands and categories, best sellers first
+    public List<ProductSuggester.Suggestion> suggest(String prefix, int limit) {
+        return suggester.suggest(prefix, limit);
+    }
+
+    // The product listing: summaries read straight from the products table, without the long
+    // text columns only the details page shows
+    public List<ProductSummaryDTO> getProductSummaries() {
+        List<ProductSummaryDTO> summaries = cache.getSummaries();
+        if (summaries != null) {
+            return summaries;
+        }
+        long generation = cache.generation();
+        summaries = productRepository.findAllSummaries();
+        logger.debug("Loaded {} product summaries from the database", summaries.size());
+        cache.putSummaries(summaries, generation);
+        return summaries;
     }
     
 
+    // Filtering, sorting and paging all happen in the database; page is zero-based. Rows are
+    // returned as listing summaries
+    public Page<ProductSummaryDTO> searchProducts(List<String> categories, List<String> brands, Money minPrice, Money maxPrice,
+                                        String status, Boolean inStock, String sortBy, int page, int size) {
+        Specification<Product> spec = Specification.allOf(
+                ProductSpecifications.categoryIn(categories),
+                ProductSpecifications.brandIn(brands),
+                ProductSpecifications.priceBetween(minPrice, maxPrice),
+                ProductSpecifications.statusEquals(status),
+                ProductSpecifications.inStock(inStock));
+        return productRepository.findAll(spec, PageRequest.of(page, size, toSort(sortBy))).map(ProductSummaryDTO::new);
+    }
+
+    // Full-text search over name, brand, category, description, features and specifications,
+    // best match first; page is zero-based. Matches are returned as listing summaries
+    public Page<ProductSummaryDTO> searchText(String query, int page, int size) {
+        int offset = (int) Math.min((long) page * size, ProductSearchIndex.MAX_WINDOW);
+        ProductSearchIndex.Result result = searchIndex.search(query, offset, size);
+        Map<Long, Product> products = getProductsByIds(result.productIds());
+        List<ProductSummaryDTO> content = new ArrayList<>(result.productIds().size());
+        for (Long id : result.productIds()) {
+            Product product = products.get(id);
+            if (product != null) {
+                content.add(new ProductSummaryDTO(product));
+            }
+        }
+        return new PageImpl<>(content, PageRequest.of(page, size), result.total());
+    }
+
+    /**
+     * Facet counts (category, brand, status, price bucket, availability) under the same filters
+     * as {@link #searchProducts}; each facet's counts ignore that facet's own filter.
+     */
+    public Map<String, Object> getFacetCounts(List<String> categories, List<String> brands, Money minPrice, Money maxPrice,
+                                              String status, Boolean inStock) {
+        Map<String, Collection<String>> selected = new HashMap<>();
+        if (categories != null) selected.put(ProductFacets.CATEGORY, categories);
+        if (brands != null) selected.put(ProductFacets.BRAND, brands);
+        if (status != null && !status.isBlank()) selected.put(ProductFacets.STATUS, List.of(status));
+        if (Boolean.TRUE.equals(inStock)) selected.put(ProductFacets.AVAILABILITY, List.of(ProductFacets.IN_STOCK));
+        return facets.count(selected, minPrice, maxPrice);
+    }
+
+    private Sort toSort(String sortBy) {
+        if (sortBy == null) return Sort.by(Sort.Direction.ASC, "id");
+        switch (sortBy) {
+            case "price-low":
+                return Sort.by(Sort.Direction.ASC, "price").and(Sort.by(Sort.Direction.ASC, "id"));
+            case "price-high":
+                return Sort.by(Sort.Direction.DESC, "price").and(Sort.by(Sort.Direction.ASC, "id"));
+            case "newest":
+                return Sort.by(Sort.Direction.DESC, "id");
+            default:
+                return Sort.by(Sort.Direction.ASC, "id");
+        }
+    }
+
     public Product saveProduct(Product product) {
-        return productRepository.save(product);
+        if (product.getId() != null) {
+            cache.evict(product.getId());
+        }
+        product.setImage(normalizeImage(product.getImage()));
+        Product saved = productRepository.save(product);
+        cache.put(saved);
+        searchIndex.index(saved);
+        suggester.put(saved);
+        facets.put(saved);
+        return saved;
+    }
+
+    // Bare file names are placeholder images; they are stored as their /uploads/placeholders/ URL
+    // so readers never have to rewrite them
+    static String normalizeImage(String image) {
+        if (image == null || image.isEmpty() || image.startsWith("/uploads/")) {
+            return image;
+        }
+        return "/uploads/placeholders/" + image.replaceAll("^/+", "");
     }
 
     public Product updateProduct(Long id, Product updatedProduct) {
+        // Drop the cached copy first so a failed save never leaves a half-edited entity behind
+        cache.evict(id);
         Product product = getProductById(id);
         if (product == null) throw new RuntimeException("Product not found");
         product.setName(updatedProduct.getName());
@@ -40,10 +239,133 @@ public class ProductService {
     }
 
     public Product getProductById(Long id) {
-        return productRepository.findById(id).orElse(null);
+        Product product = cache.get(id);
+        if (product != null) {
+            return product;
+        }
+        long generation = cache.generation();
+        product = productRepository.findById(id).orElse(null);
+        cache.put(product, generation);
+        return product;
     }
-    
+
+    // Resolves many products at once: cache hits first, then a single findAllById for the rest
+    public Map<Long, Product> getProductsByIds(Collection<Long> ids) {
+        Map<Long, Product> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            if (id == null || found.containsKey(id)) continue;
+            Product cached = cache.get(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long generation = cache.generation();
+            for (Product product : productRepository.findAllById(missing)) {
+                cache.put(product, generation);
+                found.put(product.getId(), product);
+            }
+        }
+        return found;
+    }
+
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        cache.evict(id);
+        searchIndex.remove(id);
+        suggester.remove(id);
+        facets.remove(id);
+    }
+
+    /**
+     * Atomically takes stock for every line or for none of them. Each line is a conditional
+     * UPDATE, so concurrent checkouts on the same product can never oversell, and all lines are
+     * sent as one JDBC batch. The first line that cannot be fulfilled rolls the whole decrement back.
+     */
+    @Transactional
+    public void decrementStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) return;
+        List<Object[]> batchArgs = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            int quantity = line.getValue();
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive for product " + line.getKey());
+            }
+            batchArgs.add(new Object[] { quantity, line.getKey(), quantity });
+        }
+        int[] updated = jdbcTemplate.batchUpdate(
+                "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?", batchArgs);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                Object[] args = batchArgs.get(i);
+                throw new InsufficientStockException((Long) args[1], (Integer) args[0]);
+            }
+        }
+        afterStockChange(quantities);
+    }
+
+    /**
+     * Applies stock changes that were already admitted elsewhere (flash-sale write-behind), as one
+     * JDBC batch. Positive values take stock, negative values return it. The units were already
+     * sold, so the batch does not fail on low stock; it stops at zero instead of going negative.
+     */
+    @Transactional
+    public void applyStockDeltas(Map<Long, Integer> deltas) {
+        if (deltas.isEmpty()) return;
+        List<Object[]> batchArgs = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+            batchArgs.add(new Object[] { delta.getValue(), delta.getKey() });
+        }
+        jdbcTemplate.batchUpdate("UPDATE products SET stock = GREATEST(stock - ?, 0) WHERE id = ?", batchArgs);
+        afterStockChange(deltas);
+    }
+
+    // Hands the committed stock change to the cache and the in-stock/out-of-stock facet once the
+    // transaction has finished (applying it earlier would let a concurrent read re-cache the old
+    // stock). "taken" is the units taken per product
+    private void afterStockChange(Map<Long, Integer> taken) {
+        Map<Long, Integer> deltas = new HashMap<>(taken);
+        List<Long> ids = new ArrayList<>(deltas.keySet());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean begun;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    cache.beginStockChange(ids);
+                    begun = true;
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    cache.endStockChange(deltas, status == STATUS_COMMITTED, begun);
+                    if (status == STATUS_COMMITTED) {
+                        facets.takeStock(deltas);
+                    }
+                }
+            });
+        } else {
+            cache.endStockChange(deltas, true, false);
+            facets.takeStock(deltas);
+        }
+    }
+
+    public Map<String, Object> getCacheStats() {
+        return cache.stats();
+    }
+
+    public Map<String, Object> getSearchIndexStats() {
+        return searchIndex.stats();
+    }
+
+    public Map<String, Object> getSuggestionStats() {
+        return suggester.stats();
+    }
+
+    public Map<String, Object> getFacetStats() {
+        return facets.stats();
     }
 }
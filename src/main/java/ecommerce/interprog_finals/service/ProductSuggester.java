@@ -0,0 +1,312 @@
+package ecommerce.interprog_finals.service;
+
+import ecommerce.interprog_finals.entity.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Type-ahead suggestions for the search box: product names, brands and categories, best sellers
+ * first.
+ *
+ * <p>Suggestions are served from an immutable snapshot. Its keys are (suggestion, offset) pairs
+ * into the normalized suggestion texts, packed into one sorted {@code long[]}, so a prefix turns
+ * into a range with two binary searches and no key strings are materialized. A max-tree over the
+ * key weights then returns the k heaviest keys in that range without scanning it. A product name
+ * gets one key per word (up to {@link #MAX_WORD_KEYS}), so "sho" also finds "Running Shoes".
+ *
+ * <p>Product changes and new sales weights only update the source maps and mark the snapshot as
+ * stale. {@link ProductService} rebuilds it on a schedule, so changes show up within the refresh
+ * interval and a burst of edits costs one rebuild.
+ */
+public class ProductSuggester {
+
+    public static final String PRODUCT = "product";
+    public static final String BRAND = "brand";
+    public static final String CATEGORY = "category";
+
+    private static final int MAX_WORD_KEYS = 4;
+
+    public record Suggestion(String text, String type, Long productId) {
+    }
+
+    private record Source(String name, String brand, String category) {
+    }
+
+    private static final class Snapshot {
+        final Suggestion[] suggestions;
+        final String[] texts;
+        final long[] weights;
+        // Sorted keys: suggestion index in the high 32 bits, offset into its text in the low 32
+        final long[] keys;
+        // tree[i] is the index of the heaviest key under node i; leaves start at "leaves"
+        final int[] tree;
+        final int leaves;
+
+        Snapshot(Suggestion[] suggestions, String[] texts, long[] weights, long[] keys) {
+            this.suggestions = suggestions;
+            this.texts = texts;
+            this.weights = weights;
+            this.keys = keys;
+            int size = 1;
+            while (size < Math.max(keys.length, 1)) size <<= 1;
+            this.leaves = size;
+            this.tree = new int[2 * size];
+            Arrays.fill(tree, -1);
+            for (int i = 0; i < keys.length; i++) {
+                tree[size + i] = i;
+            }
+            for (int node = size - 1; node > 0; node--) {
+                tree[node] = heavier(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+
+        int suggestionOf(int key) {
+            return (int) (keys[key] >>> 32);
+        }
+
+        long weightOf(int key) {
+            return weights[suggestionOf(key)];
+        }
+
+        // Heavier of two key indexes; ties go to the earlier (shorter, alphabetically first) key
+        int heavier(int a, int b) {
+            if (a < 0) return b;
+            if (b < 0) return a;
+            return weightOf(b) > weightOf(a) ? b : a;
+        }
+
+        // Index of the heaviest key in [from, to), or -1 if the range is empty
+        int maxIn(int from, int to) {
+            int best = -1;
+            for (int low = from + leaves, high = to + leaves; low < high; low >>= 1, high >>= 1) {
+                if ((low & 1) == 1) best = heavier(best, tree[low++]);
+                if ((high & 1) == 1) best = heavier(best, tree[--high]);
+            }
+            return best;
+        }
+
+        // Compares the key's first prefix.length() characters with the prefix
+        int comparePrefix(int key, String prefix) {
+            String text = texts[suggestionOf(key)];
+            int offset = (int) keys[key];
+            for (int i = 0; i < prefix.length(); i++) {
+                if (offset + i == text.length()) return -1;
+                int diff = text.charAt(offset + i) - prefix.charAt(i);
+                if (diff != 0) return diff;
+            }
+            return 0;
+        }
+
+        // First key whose prefix compares above "limit" (-1: at or above, 0: above the prefix)
+        int bound(String prefix, int limit) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (comparePrefix(middle, prefix) <= limit) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final Snapshot EMPTY = new Snapshot(new Suggestion[0], new String[0], new long[0], new long[0]);
+
+    private final Map<Long, Source> products = new ConcurrentHashMap<>();
+    private volatile Map<Long, Long> productWeights = Map.of();
+    private volatile Snapshot snapshot = EMPTY;
+    private volatile boolean stale;
+
+    public void put(Product product) {
+        if (product == null || product.getId() == null) return;
+        products.put(product.getId(), new Source(product.getName(), product.getBrand(), product.getCategory()));
+        stale = true;
+    }
+
+    public void remove(Long productId) {
+        if (products.remove(productId) != null) {
+            stale = true;
+        }
+    }
+
+    public void clear() {
+        products.clear();
+        stale = true;
+    }
+
+    // Units sold per product id; brands and categories weigh the sum of their products
+    public void setWeights(Map<Long, Long> weights) {
+        productWeights = Map.copyOf(weights);
+        stale = true;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    // Rebuilds the snapshot from the current products and weights
+    public synchronized void rebuild() {
+        stale = false;
+        Map<Long, Long> weights = productWeights;
+        List<Suggestion> suggestions = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        List<Long> suggestionWeights = new ArrayList<>();
+        List<Long> keys = new ArrayList<>();
+        Map<String, Integer> brands = new HashMap<>();
+        Map<String, Integer> categories = new HashMap<>();
+
+        for (Map.Entry<Long, Source> entry : products.entrySet()) {
+            Source source = entry.getValue();
+            long weight = weights.getOrDefault(entry.getKey(), 0L);
+            String name = normalize(source.name());
+            if (!name.isEmpty()) {
+                long target = suggestions.size();
+                suggestions.add(new Suggestion(source.name().trim(), PRODUCT, entry.getKey()));
+                texts.add(name);
+                suggestionWeights.add(weight);
+                // One key per word start
+                int start = 0;
+                for (int word = 0; word < MAX_WORD_KEYS && start >= 0; word++) {
+                    keys.add(target << 32 | start);
+                    int space = name.indexOf(' ', start);
+                    start = space >= 0 ? space + 1 : -1;
+                }
+            }
+            addGroup(source.brand(), BRAND, weight, brands, suggestions, texts, suggestionWeights, keys);
+            addGroup(source.category(), CATEGORY, weight, categories, suggestions, texts, suggestionWeights, keys);
+        }
+
+        String[] textArray = texts.toArray(new String[0]);
+        long[] weightArray = new long[suggestionWeights.size()];
+        for (int i = 0; i < weightArray.length; i++) {
+            weightArray[i] = suggestionWeights.get(i);
+        }
+        keys.sort((a, b) -> compareKeys(textArray, a, b));
+        long[] keyArray = new long[keys.size()];
+        for (int i = 0; i < keyArray.length; i++) {
+            keyArray[i] = keys.get(i);
+        }
+        snapshot = new Snapshot(suggestions.toArray(new Suggestion[0]), textArray, weightArray, keyArray);
+    }
+
+    /**
+     * Up to {@code limit} suggestions whose name, brand or category (or a later word of the
+     * name) starts with the prefix, heaviest first.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        List<Suggestion> found = new ArrayList<>();
+        if (normalized.isEmpty() || limit <= 0) return found;
+        Snapshot current = snapshot;
+        int from = current.bound(normalized, -1);
+        int to = current.bound(normalized, 0);
+
+        // Best-first walk: each queued range is represented by its heaviest key
+        PriorityQueue<int[]> ranges = new PriorityQueue<>(
+                Comparator.<int[]>comparingLong(range -> -current.weightOf(range[2])).thenComparingInt(range -> range[2]));
+        int top = current.maxIn(from, to);
+        if (top >= 0) ranges.add(new int[] { from, to, top });
+        Set<Integer> seen = new HashSet<>();
+        while (!ranges.isEmpty() && found.size() < limit) {
+            int[] range = ranges.poll();
+            int best = range[2];
+            int suggestion = current.suggestionOf(best);
+            if (seen.add(suggestion)) {
+                found.add(current.suggestions[suggestion]);
+            }
+            int left = current.maxIn(range[0], best);
+            if (left >= 0) ranges.add(new int[] { range[0], best, left });
+            int right = current.maxIn(best + 1, range[1]);
+            if (right >= 0) ranges.add(new int[] { best + 1, range[1], right });
+        }
+        return found;
+    }
+
+    // Approximate heap usage of the current snapshot
+    public Map<String, Object> stats() {
+        Snapshot current = snapshot;
+        long textBytes = 0;
+        for (int i = 0; i < current.suggestions.length; i++) {
+            Suggestion suggestion = current.suggestions[i];
+            // Suggestion record and its product id, plus the normalized text (the display text is
+            // shared with the source map)
+            textBytes += 32 + (suggestion.productId() != null ? 16 : 0) + 40 + current.texts[i].length();
+        }
+        long arrayBytes = 4L * current.suggestions.length + 4L * current.texts.length + 8L * current.weights.length
+                + 8L * current.keys.length + 4L * current.tree.length;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("products", products.size());
+        stats.put("suggestions", current.suggestions.length);
+        stats.put("keys", current.keys.length);
+        stats.put("stale", stale);
+        stats.put("approxBytes", textBytes + arrayBytes);
+        return stats;
+    }
+
+    // Lower-cased, accent-free words separated by single spaces
+    static String normalize(String text) {
+        if (text == null) return "";
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (space && !normalized.isEmpty()) normalized.append(' ');
+                space = false;
+                normalized.append(Character.toLowerCase(c));
+            } else {
+                space = true;
+            }
+        }
+        for (int i = 0; i < normalized.length(); i++) {
+            if (normalized.charAt(i) >= 128) {
+                return ProductSearchIndex.fold(normalized);
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static void addGroup(String value, String type, long weight, Map<String, Integer> groups, List<Suggestion> suggestions,
+                                 List<String> texts, List<Long> suggestionWeights, List<Long> keys) {
+        String text = normalize(value);
+        if (text.isEmpty()) return;
+        Integer target = groups.get(text);
+        if (target == null) {
+            target = suggestions.size();
+            groups.put(text, target);
+            suggestions.add(new Suggestion(value.trim(), type, null));
+            texts.add(text);
+            suggestionWeights.add(0L);
+            keys.add((long) target << 32);
+        }
+        suggestionWeights.set(target, suggestionWeights.get(target) + weight);
+    }
+
+    // Orders keys by their text from the offset on, then by suggestion index
+    private static int compareKeys(String[] texts, long a, long b) {
+        String textA = texts[(int) (a >>> 32)];
+        String textB = texts[(int) (b >>> 32)];
+        int offsetA = (int) a;
+        int offsetB = (int) b;
+        int length = Math.min(textA.length() - offsetA, textB.length() - offsetB);
+        for (int i = 0; i < length; i++) {
+            int diff = textA.charAt(offsetA + i) - textB.charAt(offsetB + i);
+            if (diff != 0) return diff;
+        }
+        int diff = (textA.length() - offsetA) - (textB.length() - offsetB);
+        return diff != 0 ? diff : Long.compare(a >>> 32, b >>> 32);
+    }
+}
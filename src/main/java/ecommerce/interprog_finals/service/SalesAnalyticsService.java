@@ -0,0 +1,461 @@
+package ecommerce.interprog_finals.service;
+
+import ecommerce.interprog_finals.entity.Money;
+import ecommerce.interprog_finals.entity.Order;
+import ecommerce.interprog_finals.entity.OrderItem;
+import ecommerce.interprog_finals.entity.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Sales rollups for the admin dashboard: revenue, orders and units sold per hour and per day,
+ * and per product and category per day.
+ *
+ * <p>The rollups are maintained incrementally. A placed order adds its amounts once its
+ * transaction commits. A status change that moves an order into or out of the counted statuses
+ * (Processing, Shipping, Delivered) adds or subtracts it. Changes are accumulated in memory and
+ * written by the scheduled flush, one batched UPDATE plus one batched INSERT for missing rows per
+ * table, so checkouts never wait on the shared daily rows. Orders are bucketed by their
+ * order_date, so the rollups always agree with a recomputation from the orders.
+ *
+ * <p>A crash loses the changes since the last flush. {@link #rebuild} recomputes a date range
+ * from orders and order_items and replaces those rollup rows. It runs on startup when the rollups
+ * are empty, and admins can run it for any range.
+ */
+@Service
+public class SalesAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesAnalyticsService.class);
+
+    private static final Set<String> COUNTED_STATUSES =
+            Set.of(OrderService.STATUS_PROCESSING, OrderStatusService.STATUS_SHIPPING, OrderStatusService.STATUS_DELIVERED);
+
+    private static final String UNCATEGORIZED = "Uncategorized";
+    private static final int CHUNK_SIZE = 1000;
+
+    // One sold line as the rollups need it
+    public record Line(Long productId, String category, int quantity, long revenueMinor) {
+    }
+
+    private static final class Totals {
+        long orders;
+        long units;
+        long revenueMinor;
+
+        void add(long orders, long units, long revenueMinor) {
+            this.orders += orders;
+            this.units += units;
+            this.revenueMinor += revenueMinor;
+        }
+
+        boolean isZero() {
+            return orders == 0 && units == 0 && revenueMinor == 0;
+        }
+    }
+
+    private record ProductDay(LocalDate day, Long productId) {
+    }
+
+    private record CategoryDay(LocalDate day, String category) {
+    }
+
+    // Amounts per rollup row: deltas waiting to be flushed, or the full totals of a rebuild
+    private static final class Rollups {
+        final Map<LocalDateTime, Totals> hourly = new HashMap<>();
+        final Map<LocalDate, Totals> daily = new HashMap<>();
+        final Map<ProductDay, Totals> products = new HashMap<>();
+        final Map<CategoryDay, Totals> categories = new HashMap<>();
+
+        void add(LocalDateTime orderDate, long totalMinor, List<Line> lines, int sign) {
+            LocalDate day = orderDate.toLocalDate();
+            long units = 0;
+            Map<Long, Totals> perProduct = new HashMap<>();
+            Map<String, Totals> perCategory = new HashMap<>();
+            for (Line line : lines) {
+                units += line.quantity();
+                if (line.productId() != null) {
+                    perProduct.computeIfAbsent(line.productId(), id -> new Totals()).add(0, line.quantity(), line.revenueMinor());
+                }
+                String category = line.category() != null && !line.category().isBlank() ? line.category() : UNCATEGORIZED;
+                perCategory.computeIfAbsent(category, c -> new Totals()).add(0, line.quantity(), line.revenueMinor());
+            }
+            hourly.computeIfAbsent(orderDate.truncatedTo(ChronoUnit.HOURS), h -> new Totals())
+                    .add(sign, sign * units, sign * totalMinor);
+            daily.computeIfAbsent(day, d -> new Totals()).add(sign, sign * units, sign * totalMinor);
+            // An order counts once per product and category it contains
+            perProduct.forEach((productId, t) -> products.computeIfAbsent(new ProductDay(day, productId), k -> new Totals())
+                    .add(sign, sign * t.units, sign * t.revenueMinor));
+            perCategory.forEach((category, t) -> categories.computeIfAbsent(new CategoryDay(day, category), k -> new Totals())
+                    .add(sign, sign * t.units, sign * t.revenueMinor));
+        }
+
+        void addAll(Rollups other) {
+            other.hourly.forEach((k, t) -> hourly.computeIfAbsent(k, x -> new Totals()).add(t.orders, t.units, t.revenueMinor));
+            other.daily.forEach((k, t) -> daily.computeIfAbsent(k, x -> new Totals()).add(t.orders, t.units, t.revenueMinor));
+            other.products.forEach((k, t) -> products.computeIfAbsent(k, x -> new Totals()).add(t.orders, t.units, t.revenueMinor));
+            other.categories.forEach((k, t) -> categories.computeIfAbsent(k, x -> new Totals()).add(t.orders, t.units, t.revenueMinor));
+        }
+
+        boolean isEmpty() {
+            return hourly.isEmpty() && daily.isEmpty() && products.isEmpty() && categories.isEmpty();
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductService productService;
+
+    @Value("${analytics.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    private final Object pendingLock = new Object();
+    private Rollups pending = new Rollups();
+
+    public static boolean isCounted(String status) {
+        return status != null && COUNTED_STATUSES.contains(status);
+    }
+
+    // Called after a checkout commits; items carry the catalog prices applied at checkout
+    public void recordPlaced(Order order, List<OrderItem> items) {
+        if (!isCounted(order.getStatus()) || order.getOrderDate() == null) return;
+        List<Long> productIds = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            productIds.add(item.getProductId());
+        }
+        Map<Long, Product> products = productService.getProductsByIds(productIds);
+        List<Line> lines = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            Product product = products.get(item.getProductId());
+            lines.add(new Line(item.getProductId(), product != null ? product.getCategory() : null,
+                    item.getQuantity(), item.getPrice().times(item.getQuantity()).minor()));
+        }
+        record(toLocalDateTime(order.getOrderDate()), order.getTotal().minor(), lines, 1);
+    }
+
+    // Called after orders moved from one status to another; only matters when that changes
+    // whether they are counted
+    public void recordStatusChange(Collection<Long> orderRowIds, String from, String to) {
+        boolean wasCounted = isCounted(from);
+        if (wasCounted == isCounted(to) || orderRowIds.isEmpty()) return;
+        int sign = wasCounted ? -1 : 1;
+        List<Long> ids = new ArrayList<>(orderRowIds);
+        for (int i = 0; i < ids.size(); i += CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(i, Math.min(i + CHUNK_SIZE, ids.size()));
+            // Their status has already changed, so they are loaded regardless of it
+            Rollups rollups = load("o.id IN (:ids)", new MapSqlParameterSource("ids", chunk), null);
+            if (sign < 0) {
+                negate(rollups);
+            }
+            synchronized (pendingLock) {
+                pending.addAll(rollups);
+            }
+        }
+    }
+
+    private void record(LocalDateTime orderDate, long totalMinor, List<Line> lines, int sign) {
+        synchronized (pendingLock) {
+            pending.add(orderDate, totalMinor, lines, sign);
+        }
+    }
+
+    // Writes the accumulated changes; on failure they are kept for the next flush
+    @Scheduled(fixedDelayString = "${analytics.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        Rollups deltas;
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) return;
+            deltas = pending;
+            pending = new Rollups();
+        }
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                upsert("sales_hourly", "bucket_start = ?", deltas.hourly, k -> new Object[] { Timestamp.valueOf(k) });
+                upsert("sales_daily", "sales_date = ?", deltas.daily, k -> new Object[] { Date.valueOf(k) });
+                upsert("product_sales_daily", "sales_date = ? and product_id = ?", deltas.products,
+                        k -> new Object[] { Date.valueOf(k.day()), k.productId() });
+                upsert("category_sales_daily", "sales_date = ? and category = ?", deltas.categories,
+                        k -> new Object[] { Date.valueOf(k.day()), k.category() });
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Failed to flush sales rollups: {}", e.getMessage());
+            synchronized (pendingLock) {
+                deltas.addAll(pending);
+                pending = deltas;
+            }
+        }
+    }
+
+    /**
+     * Recomputes the rollups for orders placed from {@code from} through {@code to} (inclusive)
+     * and replaces their rows. Changes recorded while it runs are flushed on top; an order
+     * committed during the rebuild may then be counted twice, so rebuild ranges that include
+     * today at a quiet time.
+     */
+    public synchronized Map<String, Object> rebuild(LocalDate from, LocalDate to) {
+        flush();
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        MapSqlParameterSource range = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end));
+        long[] orderCount = new long[1];
+        range.addValue("statuses", COUNTED_STATUSES);
+        Rollups totals = load("o.order_date >= :start AND o.order_date < :end AND o.status IN (:statuses)", range, orderCount);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM sales_hourly WHERE bucket_start >= ? AND bucket_start < ?",
+                    Timestamp.valueOf(start), Timestamp.valueOf(end));
+            for (String table : List.of("sales_daily", "product_sales_daily", "category_sales_daily")) {
+                jdbcTemplate.update("DELETE FROM " + table + " WHERE sales_date >= ? AND sales_date <= ?",
+                        Date.valueOf(from), Date.valueOf(to));
+            }
+            insert("sales_hourly", "bucket_start", totals.hourly, k -> new Object[] { Timestamp.valueOf(k) });
+            insert("sales_daily", "sales_date", totals.daily, k -> new Object[] { Date.valueOf(k) });
+            insert("product_sales_daily", "sales_date, product_id", totals.products,
+                    k -> new Object[] { Date.valueOf(k.day()), k.productId() });
+            insert("category_sales_daily", "sales_date, category", totals.categories,
+                    k -> new Object[] { Date.valueOf(k.day()), k.category() });
+        });
+        logger.info("Rebuilt sales rollups from {} to {} from {} orders", from, to, orderCount[0]);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", from.toString());
+        result.put("to", to.toString());
+        result.put("orders", orderCount[0]);
+        result.put("days", totals.daily.size());
+        return result;
+    }
+
+    // Rebuilds all history if the rollups are empty but orders exist, e.g. right after V12
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!backfillOnStartup) return;
+        Integer rollupRows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sales_daily", Integer.class);
+        if (rollupRows == null || rollupRows > 0) return;
+        java.util.Date first = jdbcTemplate.queryForObject("SELECT MIN(order_date) FROM orders", java.util.Date.class);
+        if (first == null) return;
+        LocalDate from = toLocalDateTime(first).toLocalDate();
+        Thread.ofVirtual().name("sales-rollup-backfill").start(() -> {
+            try {
+                rebuild(from, LocalDate.now());
+            } catch (RuntimeException e) {
+                logger.error("Sales rollup backfill failed", e);
+            }
+        });
+    }
+
+    // Revenue, orders and units for the last {@code days} days including today, and for today
+    public Map<String, Object> getSummary(int days) {
+        LocalDate today = LocalDate.now();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("days", days);
+        summary.put("period", sumDaily(today.minusDays(days - 1L), today));
+        summary.put("today", sumDaily(today, today));
+        return summary;
+    }
+
+    public List<Map<String, Object>> getDailySeries(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("SELECT sales_date, order_count, units_sold, revenue_minor FROM sales_daily "
+                        + "WHERE sales_date >= ? AND sales_date <= ? ORDER BY sales_date",
+                (rs, i) -> point(rs.getDate("sales_date").toLocalDate().toString(), rs.getLong("order_count"),
+                        rs.getLong("units_sold"), rs.getLong("revenue_minor")),
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    public List<Map<String, Object>> getHourlySeries(LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query("SELECT bucket_start, order_count, units_sold, revenue_minor FROM sales_hourly "
+                        + "WHERE bucket_start >= ? AND bucket_start < ? ORDER BY bucket_start",
+                (rs, i) -> point(rs.getTimestamp("bucket_start").toLocalDateTime().toString(), rs.getLong("order_count"),
+                        rs.getLong("units_sold"), rs.getLong("revenue_minor")),
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    public List<Map<String, Object>> getTopProducts(LocalDate from, LocalDate to, int limit) {
+        return jdbcTemplate.query("SELECT s.product_id, p.name, SUM(s.order_count) AS order_count, "
+                        + "SUM(s.units_sold) AS units_sold, SUM(s.revenue_minor) AS revenue_minor "
+                        + "FROM product_sales_daily s LEFT JOIN products p ON p.id = s.product_id "
+                        + "WHERE s.sales_date >= ? AND s.sales_date <= ? "
+                        + "GROUP BY s.product_id, p.name ORDER BY revenue_minor DESC LIMIT ?",
+                (rs, i) -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("productId", rs.getLong("product_id"));
+                    row.put("name", rs.getString("name"));
+                    row.putAll(totals(rs.getLong("order_count"), rs.getLong("units_sold"), rs.getLong("revenue_minor")));
+                    return row;
+                },
+                Date.valueOf(from), Date.valueOf(to), limit);
+    }
+
+    public List<Map<String, Object>> getTopCategories(LocalDate from, LocalDate to, int limit) {
+        return jdbcTemplate.query("SELECT category, SUM(order_count) AS order_count, SUM(units_sold) AS units_sold, "
+                        + "SUM(revenue_minor) AS revenue_minor FROM category_sales_daily "
+                        + "WHERE sales_date >= ? AND sales_date <= ? "
+                        + "GROUP BY category ORDER BY revenue_minor DESC LIMIT ?",
+                (rs, i) -> {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("category", rs.getString("category"));
+                    row.putAll(totals(rs.getLong("order_count"), rs.getLong("units_sold"), rs.getLong("revenue_minor")));
+                    return row;
+                },
+                Date.valueOf(from), Date.valueOf(to), limit);
+    }
+
+    private Map<String, Object> sumDaily(LocalDate from, LocalDate to) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(order_count), 0) AS order_count, "
+                        + "COALESCE(SUM(units_sold), 0) AS units_sold, COALESCE(SUM(revenue_minor), 0) AS revenue_minor "
+                        + "FROM sales_daily WHERE sales_date >= ? AND sales_date <= ?",
+                (rs, i) -> {
+                    long orders = rs.getLong("order_count");
+                    long revenueMinor = rs.getLong("revenue_minor");
+                    Map<String, Object> totals = totals(orders, rs.getLong("units_sold"), revenueMinor);
+                    totals.put("averageOrderValue", Money.ofMinor(orders > 0 ? Math.round((double) revenueMinor / orders) : 0));
+                    return totals;
+                },
+                Date.valueOf(from), Date.valueOf(to));
+    }
+
+    private static Map<String, Object> point(String period, long orders, long units, long revenueMinor) {
+        Map<String, Object> point = new LinkedHashMap<>();
+        point.put("period", period);
+        point.putAll(totals(orders, units, revenueMinor));
+        return point;
+    }
+
+    private static Map<String, Object> totals(long orders, long units, long revenueMinor) {
+        Map<String, Object> totals = new LinkedHashMap<>();
+        totals.put("orders", orders);
+        totals.put("units", units);
+        totals.put("revenue", Money.ofMinor(revenueMinor));
+        return totals;
+    }
+
+    // Rollup amounts of the orders matching the condition on orders o
+    private Rollups load(String condition, MapSqlParameterSource params, long[] orderCount) {
+        Map<Long, LocalDateTime> orderDates = new HashMap<>();
+        Map<Long, Long> orderTotals = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT o.id, o.order_date, o.total_minor FROM orders o WHERE "
+                + condition + " AND o.order_date IS NOT NULL", params, rs -> {
+            orderDates.put(rs.getLong("id"), rs.getTimestamp("order_date").toLocalDateTime());
+            orderTotals.put(rs.getLong("id"), rs.getLong("total_minor"));
+        });
+        Map<Long, List<Line>> lines = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT i.order_id, i.product_id, i.quantity, i.price_minor, p.category "
+                + "FROM order_items i JOIN orders o ON o.id = i.order_id LEFT JOIN products p ON p.id = i.product_id "
+                + "WHERE " + condition + " AND o.order_date IS NOT NULL", params, rs -> {
+            long productId = rs.getLong("product_id");
+            Long product = rs.wasNull() ? null : productId;
+            int quantity = rs.getInt("quantity");
+            lines.computeIfAbsent(rs.getLong("order_id"), id -> new ArrayList<>())
+                    .add(new Line(product, rs.getString("category"), quantity, rs.getLong("price_minor") * quantity));
+        });
+        Rollups rollups = new Rollups();
+        orderDates.forEach((id, date) -> rollups.add(date, orderTotals.get(id), lines.getOrDefault(id, List.of()), 1));
+        if (orderCount != null) {
+            orderCount[0] = orderDates.size();
+        }
+        return rollups;
+    }
+
+    private static void negate(Rollups rollups) {
+        for (Map<?, Totals> table : List.of(rollups.hourly, rollups.daily, rollups.products, rollups.categories)) {
+            for (Totals t : table.values()) {
+                t.orders = -t.orders;
+                t.units = -t.units;
+                t.revenueMinor = -t.revenueMinor;
+            }
+        }
+    }
+
+    // Adds the deltas to existing rows with one batched UPDATE, then inserts the rows that were missing
+    private <K> void upsert(String table, String keyCondition, Map<K, Totals> deltas, Function<K, Object[]> keyValues) {
+        List<K> keys = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (Map.Entry<K, Totals> entry : deltas.entrySet()) {
+            Totals t = entry.getValue();
+            if (t.isZero()) continue;
+            keys.add(entry.getKey());
+            Object[] key = keyValues.apply(entry.getKey());
+            Object[] args = new Object[3 + key.length];
+            args[0] = t.orders;
+            args[1] = t.units;
+            args[2] = t.revenueMinor;
+            System.arraycopy(key, 0, args, 3, key.length);
+            updates.add(args);
+        }
+        if (updates.isEmpty()) return;
+        int[] updated = jdbcTemplate.batchUpdate("UPDATE " + table + " SET order_count = order_count + ?, "
+                + "units_sold = units_sold + ?, revenue_minor = revenue_minor + ? WHERE " + keyCondition, updates);
+        Map<K, Totals> missing = new LinkedHashMap<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missing.put(keys.get(i), deltas.get(keys.get(i)));
+            }
+        }
+        String keyColumns = keyCondition.replace(" = ?", "").replace(" and ", ", ");
+        insert(table, keyColumns, missing, keyValues);
+    }
+
+    private static <K> List<Object[]> rows(Map<K, Totals> totals, Function<K, Object[]> keyValues) {
+        List<Object[]> rows = new ArrayList<>(totals.size());
+        for (Map.Entry<K, Totals> entry : totals.entrySet()) {
+            Object[] key = keyValues.apply(entry.getKey());
+            Totals t = entry.getValue();
+            Object[] row = new Object[key.length + 3];
+            System.arraycopy(key, 0, row, 0, key.length);
+            row[key.length] = t.orders;
+            row[key.length + 1] = t.units;
+            row[key.length + 2] = t.revenueMinor;
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private <K> void insert(String table, String keyColumns, Map<K, Totals> totals, Function<K, Object[]> keyValues) {
+        if (totals.isEmpty()) return;
+        List<Object[]> rows = rows(totals, keyValues);
+        String placeholders = "?, ".repeat(keyColumns.split(",").length + 3);
+        jdbcTemplate.batchUpdate("INSERT INTO " + table + " (" + keyColumns + ", order_count, units_sold, revenue_minor) "
+                + "VALUES (" + placeholders.substring(0, placeholders.length() - 2) + ")", rows);
+    }
+
+    private static LocalDateTime toLocalDateTime(java.util.Date date) {
+        if (date instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,9 @@
+package ecommerce.interprog_finals.service;
+
+// Thrown by flash-sale admission when a product has no units left; no database work was done
+public class SoldOutException extends InsufficientStockException {
+
+    public SoldOutException(Long productId, int requestedQuantity) {
+        super("Product " + productId + " is sold out", productId, requestedQuantity);
+    }
+}
@@ -0,0 +1,16 @@
+package ecommerce.interprog_finals.service;
+
+// Thrown when a checkout line names a product that is not in the catalog; no database work is kept
+public class UnknownProductException extends RuntimeException {
+
+    private final Long productId;
+
+    public UnknownProductException(Long productId) {
+        super("Product " + productId + " is not available");
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+}
@@ -0,0 +1,28 @@
+-- The order row becomes the single order header: checkout_information duplicated the shipping
+-- details and held the payment and contact details, joined back on order_id for every read
+alter table orders add column shipping_address varchar(255);
+alter table orders add column payment_method varchar(255);
+alter table orders add column terms_accepted bit;
+alter table orders add column first_name varchar(255);
+alter table orders add column last_name varchar(255);
+alter table orders add column email varchar(255);
+alter table orders add column phone varchar(255);
+
+update orders set
+    shipping_address = (select c.shipping_address from checkout_information c where c.order_id = orders.order_id),
+    payment_method = (select c.payment_method from checkout_information c where c.order_id = orders.order_id),
+    terms_accepted = (select c.terms_accepted from checkout_information c where c.order_id = orders.order_id),
+    first_name = (select c.first_name from checkout_information c where c.order_id = orders.order_id),
+    last_name = (select c.last_name from checkout_information c where c.order_id = orders.order_id),
+    email = (select c.email from checkout_information c where c.order_id = orders.order_id),
+    phone = (select c.phone from checkout_information c where c.order_id = orders.order_id),
+    shipping_city = coalesce(shipping_city, (select c.city from checkout_information c where c.order_id = orders.order_id)),
+    shipping_province = coalesce(shipping_province, (select c.state from checkout_information c where c.order_id = orders.order_id)),
+    shipping_zip_code = coalesce(shipping_zip_code, (select c.zip from checkout_information c where c.order_id = orders.order_id)),
+    shipping_country = coalesce(shipping_country, (select c.country from checkout_information c where c.order_id = orders.order_id)),
+    shipping_method = coalesce(shipping_method, (select c.shipping_method from checkout_information c where c.order_id = orders.order_id))
+where exists (select 1 from checkout_information c where c.order_id = orders.order_id);
+
+update orders set terms_accepted = 0 where terms_accepted is null;
+
+drop table checkout_information;
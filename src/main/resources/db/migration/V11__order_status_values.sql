@@ -0,0 +1,8 @@
+-- Statuses set from the admin console were stored as sent ("shipping"); bulk status changes
+-- compare them exactly, so they are stored in one spelling from now on
+update orders set status = 'Processing' where lower(status) = 'processing';
+update orders set status = 'Shipping' where lower(status) = 'shipping';
+update orders set status = 'Delivered' where lower(status) = 'delivered';
+
+-- AdminController bulk status change by filter: status = ? and order_date < ?
+create index idx_orders_status_order_date on orders (status, order_date);
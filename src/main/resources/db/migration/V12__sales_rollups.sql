@@ -0,0 +1,36 @@
+-- Sales rollups for the admin dashboard, maintained by SalesAnalyticsService. Counted orders are
+-- those in Processing, Shipping or Delivered, bucketed by order_date; revenue is in centavos
+-- (order totals for the overall rollups, item subtotals per product and category)
+create table sales_hourly (
+    bucket_start datetime(6) not null,
+    order_count bigint not null,
+    units_sold bigint not null,
+    revenue_minor bigint not null,
+    primary key (bucket_start)
+);
+
+create table sales_daily (
+    sales_date date not null,
+    order_count bigint not null,
+    units_sold bigint not null,
+    revenue_minor bigint not null,
+    primary key (sales_date)
+);
+
+create table product_sales_daily (
+    sales_date date not null,
+    product_id bigint not null,
+    order_count bigint not null,
+    units_sold bigint not null,
+    revenue_minor bigint not null,
+    primary key (sales_date, product_id)
+);
+
+create table category_sales_daily (
+    sales_date date not null,
+    category varchar(255) not null,
+    order_count bigint not null,
+    units_sold bigint not null,
+    revenue_minor bigint not null,
+    primary key (sales_date, category)
+);
@@ -0,0 +1,5 @@
+-- Product images were stored either as /uploads/... URLs or as bare placeholder file names that
+-- every listing request rewrote; ProductService now stores the URL, so existing rows get it too
+update products
+set image = concat('/uploads/placeholders/', trim(leading '/' from image))
+where image is not null and image <> '' and image not like '/uploads/%';
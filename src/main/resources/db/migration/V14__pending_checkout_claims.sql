@@ -0,0 +1,7 @@
+-- Which worker instance claimed a checkout and when, so a restarting instance only takes back its
+-- own claims and claims whose lease has gone stale, never rows another live instance is processing
+alter table pending_checkouts add column claimed_by varchar(64);
+alter table pending_checkouts add column claimed_at datetime(6);
+
+-- OrderProcessingWorker stale-lease sweep: status = 'PROCESSING' and claimed_at < ?
+create index idx_pending_checkouts_claim on pending_checkouts (status, claimed_at);
@@ -0,0 +1,98 @@
+-- Schema as generated by Hibernate (ddl-auto=update) before migrations were introduced.
+-- Existing databases are baselined at version 1 and skip this script.
+
+create table admin_users (
+    id bigint not null auto_increment,
+    created_at datetime(6),
+    password varchar(255) not null,
+    role varchar(255) not null,
+    username varchar(255) not null,
+    primary key (id),
+    constraint uk_admin_users_username unique (username)
+);
+
+create table customers (
+    id bigint not null auto_increment,
+    blocked bit not null,
+    email varchar(255),
+    first_name varchar(255),
+    last_name varchar(255),
+    password varchar(255),
+    phone varchar(255),
+    primary key (id)
+);
+
+create table orders (
+    id bigint not null auto_increment,
+    total float(53) not null,
+    customer_id bigint,
+    order_date datetime(6),
+    order_id varchar(255),
+    shipping_city varchar(255),
+    shipping_country varchar(255),
+    shipping_method varchar(255),
+    shipping_province varchar(255),
+    shipping_street varchar(255),
+    shipping_zip_code varchar(255),
+    status varchar(255),
+    primary key (id),
+    constraint fk_orders_customer foreign key (customer_id) references customers (id)
+);
+
+create table checkout_information (
+    id bigint not null auto_increment,
+    terms_accepted bit,
+    customer_id bigint,
+    city varchar(255),
+    country varchar(255),
+    email varchar(255),
+    first_name varchar(255),
+    last_name varchar(255),
+    order_id varchar(255),
+    payment_method varchar(255),
+    phone varchar(255),
+    shipping_address varchar(255),
+    shipping_method varchar(255),
+    state varchar(255),
+    zip varchar(255),
+    primary key (id)
+);
+
+create table order_items (
+    id bigint not null,
+    price float(53) not null,
+    quantity integer not null,
+    order_id bigint,
+    product_id bigint,
+    image varchar(255),
+    name varchar(255),
+    primary key (id),
+    constraint fk_order_items_order foreign key (order_id) references orders (id)
+);
+
+create table order_items_seq (
+    next_val bigint
+);
+
+insert into order_items_seq values (1);
+
+create table products (
+    id bigint not null auto_increment,
+    price float(53),
+    stock integer,
+    brand varchar(255),
+    category varchar(255),
+    description varchar(255),
+    features varchar(255),
+    image varchar(255),
+    name varchar(255),
+    sku varchar(255),
+    specifications varchar(255),
+    status varchar(255),
+    primary key (id)
+);
+
+create index idx_products_category_price on products (category, price);
+create index idx_products_brand_price on products (brand, price);
+create index idx_products_status on products (status);
+create index idx_products_price on products (price);
@@ -0,0 +1,16 @@
+-- CustomerRepository.findByEmail runs on every authenticated request
+create unique index uk_customers_email on customers (email);
+
+-- OrderRepository.findByOrderId / CheckoutInformationRepository.findByOrderId, and the
+-- order history join between the two tables
+create unique index uk_orders_order_id on orders (order_id);
+create unique index uk_checkout_information_order_id on checkout_information (order_id);
+
+-- OrderRepository.findByCustomerId and the newest-first order history cursor
+create index idx_orders_customer_id on orders (customer_id, id);
+
+-- OrderItemRepository.findByOrder and the batched item lookup for a page of orders
+create index idx_order_items_order_id on order_items (order_id, id);
+
+-- CheckoutInformationRepository.findTopByCustomerIdOrderByIdDesc
+create index idx_checkout_information_customer_id on checkout_information (customer_id, id);
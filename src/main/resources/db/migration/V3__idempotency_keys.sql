@@ -0,0 +1,17 @@
+-- Checkout responses keyed by the client's Idempotency-Key, so retries replay the first result
+create table idempotency_keys (
+    id bigint not null auto_increment,
+    customer_id bigint not null,
+    idempotency_key varchar(255) not null,
+    request_hash varchar(64) not null,
+    status_code integer not null,
+    response_body varchar(4000),
+    created_at datetime(6) not null,
+    primary key (id)
+);
+
+-- Keys are scoped to the customer that sent them
+create unique index uk_idempotency_keys_customer_key on idempotency_keys (customer_id, idempotency_key);
+
+-- Expired keys are purged by creation time
+create index idx_idempotency_keys_created_at on idempotency_keys (created_at);
@@ -0,0 +1,10 @@
+-- Checkpoint of the in-memory inventory holds, one row per reserved product line.
+-- Rewritten by InventoryReservationService and read back on startup.
+create table inventory_reservations (
+    reservation_id varchar(36) not null,
+    product_id bigint not null,
+    customer_id bigint not null,
+    quantity integer not null,
+    expires_at datetime(6) not null,
+    primary key (reservation_id, product_id)
+);
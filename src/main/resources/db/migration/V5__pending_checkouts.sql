@@ -0,0 +1,19 @@
+-- Durable queue of accepted checkouts waiting for the order-processing worker
+create table pending_checkouts (
+    id bigint not null auto_increment,
+    order_id varchar(255) not null,
+    customer_id bigint not null,
+    reservation_id varchar(36),
+    payload text not null,
+    status varchar(20) not null,
+    attempts integer not null default 0,
+    error varchar(500),
+    created_at datetime(6) not null,
+    processed_at datetime(6),
+    primary key (id)
+);
+
+create unique index uk_pending_checkouts_order_id on pending_checkouts (order_id);
+
+-- The worker picks up queued rows in arrival order
+create index idx_pending_checkouts_status on pending_checkouts (status, id);
@@ -0,0 +1,2 @@
+-- Units a queued checkout already took from a flash sale, as JSON (product id to quantity)
+alter table pending_checkouts add column flash_lines varchar(1000);
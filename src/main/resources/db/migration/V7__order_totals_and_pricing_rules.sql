@@ -0,0 +1,25 @@
+-- Checkout pricing: amounts in centavos (minor units) computed by the server and stored on the order
+create table pricing_rules (
+    code varchar(50) not null,
+    rule_value bigint not null,
+    description varchar(255),
+    updated_at datetime(6) not null,
+    primary key (code)
+);
+
+insert into pricing_rules (code, rule_value, description, updated_at) values
+    ('SHIPPING_STANDARD', 15000, 'Standard delivery fee in centavos', current_timestamp),
+    ('SHIPPING_EXPRESS', 30000, 'Express delivery fee in centavos', current_timestamp),
+    ('TAX_RATE_BPS', 1200, 'VAT rate in basis points (1200 = 12%)', current_timestamp);
+
+alter table orders add column subtotal_minor bigint not null default 0;
+alter table orders add column shipping_minor bigint not null default 0;
+alter table orders add column tax_minor bigint not null default 0;
+alter table orders add column total_minor bigint not null default 0;
+
+-- Existing orders get the totals their pages used to compute on every read: items, flat 150.00
+-- shipping and 12% VAT
+update orders set subtotal_minor = coalesce(
+    (select round(sum(i.price * i.quantity) * 100) from order_items i where i.order_id = orders.id), 0);
+update orders set shipping_minor = 15000, tax_minor = round(subtotal_minor * 0.12);
+update orders set total_minor = subtotal_minor + shipping_minor + tax_minor, total = (subtotal_minor + shipping_minor + tax_minor) / 100.0;
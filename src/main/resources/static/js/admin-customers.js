@@ -20,45 +20,56 @@ function checkAdminAuth() {
 
 let currentPage = 1;
 const rowsPerPage = 5;
-let paginatedUsers = [];
+let currentSearch = "";
+let pageUsers = [];
 
-async function loadCustomers() {
+// Customers are paged and searched server-side; rows carry summary columns only
+async function loadCustomers(page = currentPage) {
+  const params = new URLSearchParams({ page: page - 1, size: rowsPerPage });
+  if (currentSearch) params.set("q", currentSearch);
   try {
-    const res = await fetch('/api/customers', { credentials: 'include' });
+    const res = await fetch(`/api/customers?${params.toString()}`, { credentials: 'include' });
     if (!res.ok) {
       showNotification('Error loading customers', 'error');
       return;
     }
-    const users = await res.json();
-    // Save users to localStorage for modal access
-    localStorage.setItem("users", JSON.stringify(users));
-    displayCustomers(users, 1); // Always start at page 1
+    const result = await res.json();
+    // A delete can leave us past the last page
+    if (result.content.length === 0 && page > 1) {
+      loadCustomers(page - 1);
+      return;
+    }
+    currentPage = page;
+    pageUsers = result.content;
+    displayCustomers(result.content, page);
+    renderPagination(result.totalPages, page);
   } catch (err) {
     showNotification('Error loading customers', 'error');
   }
 }
 
+function initCustomerFilters() {
+  const searchInput = document.getElementById("customer-search");
+  if (!searchInput) return;
+  let debounce;
+  searchInput.addEventListener("input", () => {
+    clearTimeout(debounce);
+    debounce = setTimeout(() => {
+      currentSearch = searchInput.value.trim();
+      loadCustomers(1);
+    }, 300);
+  });
+}
+
 function displayCustomers(users, page = 1) {
   const customerTableBody = document.getElementById("customer-table-body");
   if (!customerTableBody) return;
   customerTableBody.innerHTML = "";
 
-  // Pagination logic
-  paginatedUsers = users;
   const start = (page - 1) * rowsPerPage;
-  const end = start + rowsPerPage;
-  const usersToShow = users.slice(start, end);
-
-  usersToShow.forEach((user, index) => {
+  users.forEach((user, index) => {
     const row = document.createElement("tr");
-    // Use user.fullName or user.firstName + user.lastName if available, fallback to user.name
-    let displayName = user.fullName || ((user.firstName && user.lastName) ? `${user.firstName} ${user.lastName}` : user.name || "N/A");
-    // Calculate total orders: count only completed orders if available, else all orders
-    let totalOrders = 0;
-    if (user.orders && Array.isArray(user.orders)) {
-      totalOrders = user.orders.filter(order => order.status === 'completed' || order.status === 'COMPLETED' || !order.status).length;
-    }
-    const totalSpent = user.orders ? user.orders.reduce((total, order) => total + (order.total || 0), 0) : 0;
+    let displayName = (user.firstName && user.lastName) ? `${user.firstName} ${user.lastName}` : user.firstName || "N/A";
     // Use user.blocked boolean for status
     let status = user.blocked ? "Blocked" : "Active";
     row.innerHTML = `
@@ -66,8 +77,8 @@ function displayCustomers(users, page = 1) {
       <td>${displayName}</td>
       <td>${user.email}</td>
       <td>${user.phone || "N/A"}</td>
-      <td>${totalOrders}</td>
-      <td>₱${totalSpent.toFixed(2)}</td>
+      <td>${user.orderCount}</td>
+      <td>₱${user.totalSpent.toFixed(2)}</td>
       <td><span class="status ${status.toLowerCase()}">${status}</span></td>
       <td>
         <button class="btn btn-small" onclick="viewCustomer(${user.id})">View</button>
@@ -79,14 +90,12 @@ function displayCustomers(users, page = 1) {
     `;
     customerTableBody.appendChild(row);
   });
-  renderPagination(users.length, page);
 }
 
-function renderPagination(totalRows, currentPage) {
+function renderPagination(totalPages, currentPage) {
   const paginationContainer = document.getElementById("pagination-container");
   if (!paginationContainer) return;
   paginationContainer.innerHTML = "";
-  const totalPages = Math.ceil(totalRows / rowsPerPage);
   if (totalPages <= 1) return;
 
   // Prev button
@@ -95,7 +104,7 @@ function renderPagination(totalRows, currentPage) {
   prevBtn.textContent = "Prev";
   prevBtn.disabled = currentPage === 1;
   prevBtn.onclick = () => {
-    if (currentPage > 1) displayCustomers(paginatedUsers, currentPage - 1);
+    if (currentPage > 1) loadCustomers(currentPage - 1);
   };
   paginationContainer.appendChild(prevBtn);
 
@@ -105,7 +114,7 @@ function renderPagination(totalRows, currentPage) {
     btn.className = `pagination-btn${i === currentPage ? " active" : ""}`;
     btn.textContent = i;
     btn.onclick = () => {
-      displayCustomers(paginatedUsers, i);
+      loadCustomers(i);
     };
     paginationContainer.appendChild(btn);
   }
@@ -116,7 +125,7 @@ function renderPagination(totalRows, currentPage) {
   nextBtn.textContent = "Next";
   nextBtn.disabled = currentPage === totalPages;
   nextBtn.onclick = () => {
-    if (currentPage < totalPages) displayCustomers(paginatedUsers, currentPage + 1);
+    if (currentPage < totalPages) loadCustomers(currentPage + 1);
   };
   paginationContainer.appendChild(nextBtn);
 }
@@ -134,12 +143,20 @@ function capitalizeFirstLetter(string) {
 }
 
 // Global functions for customer management
-window.viewCustomer = (userId) => {
-  const users = JSON.parse(localStorage.getItem("users")) || [];
-  const user = users.find((u) => u.id === userId);
-
-  if (user) {
-    openCustomerModal(user);
+// Orders are only fetched when a customer is opened
+window.viewCustomer = async (userId) => {
+  const user = pageUsers.find((u) => u.id === userId);
+  if (!user) return;
+  try {
+    const res = await fetch(`/api/customers/${userId}/orders?limit=50`, { credentials: 'include' });
+    if (!res.ok) {
+      showNotification('Error loading customer orders', 'error');
+      return;
+    }
+    const orders = await res.json();
+    openCustomerModal(user, orders);
+  } catch (err) {
+    showNotification('Error loading customer orders', 'error');
   }
 }
 
@@ -202,18 +219,15 @@ window.deleteCustomer = async (userId) => {
   }
 };
 
-function openCustomerModal(user) {
+function openCustomerModal(user, orders) {
   const modal = document.getElementById("customer-modal");
   if (!modal) return;
 
   // Update modal content
-  const displayName = user.fullName || ((user.firstName && user.lastName) ? `${user.firstName} ${user.lastName}` : user.name || "N/A");
+  const displayName = (user.firstName && user.lastName) ? `${user.firstName} ${user.lastName}` : user.firstName || "N/A";
   document.getElementById("customer-name").textContent = displayName;
   document.getElementById("customer-email").textContent = user.email;
   document.getElementById("customer-phone").textContent = user.phone || "N/A";
-  // Only update registration and status if present in modal
-  const regElem = document.getElementById("customer-registration");
-  if (regElem) regElem.textContent = formatDate(user.registrationDate);
   const statusElem = document.getElementById("customer-status");
   if (statusElem) statusElem.textContent = user.blocked ? "Blocked" : "Active";
 
@@ -221,67 +235,51 @@ function openCustomerModal(user) {
   const ordersList = document.getElementById("customer-orders-list");
   if (ordersList) {
     ordersList.innerHTML = "";
-    if (user.orders && user.orders.length > 0) {
-      user.orders.forEach((order, idx) => {
+    if (orders && orders.length > 0) {
+      const money = (value) => (value || 0).toLocaleString(undefined, {minimumFractionDigits:2, maximumFractionDigits:2});
+      ordersList.appendChild(createBulkStatusBar(orders));
+      orders.forEach((order) => {
         const orderDiv = document.createElement("div");
         orderDiv.className = "order-item";
         let itemsHtml = "";
         if (order.items && order.items.length > 0) {
-          itemsHtml = order.items.map(item => {
-            const subtotal = (item.price || 0) * (item.quantity || 1);
-            const tax = subtotal * 0.12;
-            // Use order.shippingMethod or fallback to 'standard'
-            const shipping = (order.shippingMethod === 'express') ? 300 : 150;
-            const total = subtotal + tax + shipping;
-            return `
+          itemsHtml = order.items.map(item => `
               <div class="order-product">
-                <strong>${item.name || item.title || "Item"}</strong><br>
+                <strong>${item.name || "Item"}</strong><br>
                 Quantity: ${item.quantity || 1}<br>
-                Subtotal: ₱${subtotal.toLocaleString(undefined, {minimumFractionDigits:2, maximumFractionDigits:2})}<br>
-                VAT (12%): ₱${tax.toLocaleString(undefined, {minimumFractionDigits:2, maximumFractionDigits:2})}<br>
-                Shipping: ₱${shipping.toLocaleString(undefined, {minimumFractionDigits:2, maximumFractionDigits:2})}<br>
-                <strong>Total: ₱${total.toLocaleString(undefined, {minimumFractionDigits:2, maximumFractionDigits:2})}</strong>
+                Price: ₱${money((item.price || 0) * (item.quantity || 1))}
               </div>
-            `;
-          }).join("");
+            `).join("");
         } else {
           itemsHtml = "<div>No items found.</div>";
         }
-        let shippingHtml = '';
-        // Prefer structured shipping fields if present
-        if (order.shippingStreet || order.shippingCity || order.shippingProvince || order.shippingZipCode || order.shippingCountry || order.shippingMethod) {
-          shippingHtml = `
+        const shippingHtml = `
             <div class="order-shipping">
               <strong>Shipping Information</strong><br>
-              Street: ${order.shippingStreet || "N/A"}<br>
-              City: ${order.shippingCity || "N/A"}<br>
-              Province: ${order.shippingProvince || "N/A"}<br>
-              Zip Code: ${order.shippingZipCode || "N/A"}<br>
-              Country: ${order.shippingCountry || "N/A"}<br>
+              Address: ${order.address || "N/A"}<br>
+              City: ${order.city || "N/A"}<br>
+              Province: ${order.state || "N/A"}<br>
+              Zip Code: ${order.zip || "N/A"}<br>
+              Country: ${order.country || "N/A"}<br>
               Method: ${order.shippingMethod || "N/A"}
             </div>
           `;
-        } else if (order.shipping) {
-          // Fallback for legacy shipping object
-          shippingHtml = `
-            <div class="order-shipping">
-              <strong>Shipping Information</strong><br>
-              Address: ${order.shipping.address || "N/A"}<br>
-              City: ${order.shipping.city || "N/A"}<br>
-              Province: ${order.shipping.province || "N/A"}<br>
-              Shipping Method: ${order.shipping.method || "N/A"}
-            </div>
-          `;
-        }
+        const status = (order.status || "").toLowerCase();
         orderDiv.innerHTML = `
-          <div><strong>Order #${order.id || idx + 1}</strong>${order.date ? ` - ${formatDate(order.date)}` : ""}</div>
+          <div><strong>Order #${order.orderId}</strong>${order.orderDate ? ` - ${formatDate(order.orderDate)}` : ""}</div>
           ${itemsHtml}
+          <div class="order-totals">
+            Subtotal: ₱${money(order.subtotal)}<br>
+            VAT (12%): ₱${money(order.tax)}<br>
+            Shipping: ₱${money(order.shipping)}<br>
+            <strong>Total: ₱${money(order.total)}</strong>
+          </div>
           ${shippingHtml}
           <div>Status: 
             <select class="order-status-select" data-order-id="${order.orderId}">
-              <option value="processing" ${order.status === "processing" ? "selected" : ""}>Processing</option>
-              <option value="shipping" ${order.status === "shipping" ? "selected" : ""}>Shipping</option>
-              <option value="delivered" ${order.status === "delivered" ? "selected" : ""}>Delivered</option>
+              <option value="processing" ${status === "processing" ? "selected" : ""}>Processing</option>
+              <option value="shipping" ${status === "shipping" ? "selected" : ""}>Shipping</option>
+              <option value="delivered" ${status === "delivered" ? "selected" : ""}>Delivered</option>
             </select>
           </div>
           <hr>
@@ -290,6 +288,7 @@ function openCustomerModal(user) {
       });
       // Add event listeners for status change
       ordersList.querySelectorAll('.order-status-select').forEach(select => {
+        let currentStatus = select.value;
         select.addEventListener('change', async function() {
           const orderId = this.getAttribute('data-order-id');
           const newStatus = this.value;
@@ -302,12 +301,16 @@ function openCustomerModal(user) {
               credentials: 'include' // Ensure cookies/session are sent
             });
             if (!response.ok) {
-              showNotification('Failed to update order status', 'error');
+              // 409: the change is not allowed from the order's status, or someone else changed it first
+              const message = await response.text();
+              this.value = currentStatus;
+              showNotification(message || 'Failed to update order status', 'error');
               return;
             }
+            currentStatus = newStatus;
             showNotification('Order status updated!', 'success');
-            loadCustomers(); // Refresh table
           } catch (err) {
+            this.value = currentStatus;
             showNotification('Failed to update order status', 'error');
           }
         });
@@ -319,6 +322,47 @@ function openCustomerModal(user) {
   modal.classList.remove("hidden");
 }
 
+// Moves every order in the modal to one status with a single request
+function createBulkStatusBar(orders) {
+  const bar = document.createElement("div");
+  bar.className = "bulk-status";
+  bar.innerHTML = `
+    Set all orders to:
+    <select class="bulk-status-select">
+      <option value="Shipping">Shipping</option>
+      <option value="Delivered">Delivered</option>
+    </select>
+    <button type="button" class="btn bulk-status-apply">Apply</button>
+    <hr>
+  `;
+  bar.querySelector(".bulk-status-apply").addEventListener("click", async () => {
+    const status = bar.querySelector(".bulk-status-select").value;
+    try {
+      const response = await fetch("/api/admin/orders/status", {
+        method: "PATCH",
+        headers: { "Content-Type": "application/json" },
+        body: JSON.stringify({ status: status, orderIds: orders.map(order => order.orderId) }),
+        credentials: "include"
+      });
+      if (!response.ok) {
+        showNotification("Failed to update order statuses", "error");
+        return;
+      }
+      const body = await response.json();
+      body.results.forEach(result => {
+        if (result.result !== "UPDATED") return;
+        const select = document.querySelector(`.order-status-select[data-order-id="${result.orderId}"]`);
+        if (select) select.value = status.toLowerCase();
+      });
+      const counts = Object.entries(body.counts).map(([result, count]) => `${result}: ${count}`).join(", ");
+      showNotification(`Order statuses updated (${counts})`, "success");
+    } catch (err) {
+      showNotification("Failed to update order statuses", "error");
+    }
+  });
+  return bar;
+}
+
 window.closeCustomerModal = () => {
   const modal = document.getElementById("customer-modal");
   if (modal) {
@@ -0,0 +1,78 @@
+// Admin sales dashboard, served from the sales rollups (/api/admin/analytics)
+
+document.addEventListener("DOMContentLoaded", () => {
+  if (localStorage.getItem("adminLoggedIn") !== "true") {
+    window.location.href = "index.html";
+    return;
+  }
+  const logoutBtn = document.getElementById("admin-logout");
+  if (logoutBtn) {
+    logoutBtn.addEventListener("click", (e) => {
+      e.preventDefault();
+      localStorage.removeItem("adminLoggedIn");
+      localStorage.removeItem("adminUser");
+      fetch("/api/admin/logout", { method: "POST", credentials: "include" }).finally(() => {
+        window.location.href = "index.html";
+      });
+    });
+  }
+  const daysSelect = document.getElementById("dashboard-days");
+  daysSelect.addEventListener("change", () => loadDashboard(daysSelect.value));
+  loadDashboard(daysSelect.value);
+});
+
+const money = (value) => "₱" + Number(value || 0).toLocaleString(undefined, { minimumFractionDigits: 2, maximumFractionDigits: 2 });
+
+async function fetchAnalytics(path) {
+  const res = await fetch(`/api/admin/analytics/${path}`, { credentials: "include" });
+  if (res.status === 401) {
+    window.location.href = "index.html";
+    return null;
+  }
+  if (!res.ok) throw new Error(`Failed to load ${path}`);
+  return res.json();
+}
+
+async function loadDashboard(days) {
+  const from = new Date();
+  from.setDate(from.getDate() - (days - 1));
+  try {
+    const [summary, products, categories, daily] = await Promise.all([
+      fetchAnalytics(`summary?days=${days}`),
+      fetchAnalytics(`top-products?days=${days}&limit=10`),
+      fetchAnalytics(`top-categories?days=${days}&limit=10`),
+      fetchAnalytics(`revenue?granularity=day&from=${from.toISOString().slice(0, 10)}`)
+    ]);
+    if (!summary) return;
+    document.getElementById("stat-revenue").textContent = money(summary.period.revenue);
+    document.getElementById("stat-revenue-today").textContent = `Today: ${money(summary.today.revenue)}`;
+    document.getElementById("stat-orders").textContent = summary.period.orders;
+    document.getElementById("stat-orders-today").textContent = `Today: ${summary.today.orders}`;
+    document.getElementById("stat-units").textContent = summary.period.units;
+    document.getElementById("stat-aov").textContent = money(summary.period.averageOrderValue);
+    fillTable("top-products", products, row => row.name || `Product #${row.productId}`);
+    fillTable("top-categories", categories, row => row.category);
+    fillTable("daily-revenue", daily.slice().reverse(), row => row.period);
+  } catch (err) {
+    console.error("Error loading dashboard:", err);
+    alert("Failed to load sales figures");
+  }
+}
+
+function fillTable(id, rows, label) {
+  const body = document.getElementById(id);
+  body.innerHTML = "";
+  if (!rows || rows.length === 0) {
+    body.innerHTML = `<tr><td colspan="4">No sales in this period.</td></tr>`;
+    return;
+  }
+  rows.forEach(row => {
+    const tr = document.createElement("tr");
+    [label(row), row.orders, row.units, money(row.revenue)].forEach(value => {
+      const td = document.createElement("td");
+      td.textContent = value;
+      tr.appendChild(td);
+    });
+    body.appendChild(tr);
+  });
+}
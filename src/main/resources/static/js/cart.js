@@ -8,25 +8,31 @@ document.addEventListener("DOMContentLoaded", () => {
   initShippingForm()
 })
 
-async function fetchProductById(id) {
+// Resolves every cart line's product with one request; returns a map of id -> product
+async function fetchProductsByIds(ids) {
+  const products = new Map()
+  if (ids.length === 0) return products
   try {
-    const response = await fetch(`/api/products/${id}`)
-    if (!response.ok) throw new Error('Failed to fetch product')
-    return await response.json()
+    const response = await fetch(`/api/products?ids=${ids.join(',')}`)
+    if (!response.ok) throw new Error('Failed to fetch products')
+    for (const product of await response.json()) {
+      products.set(product.id, product)
+    }
   } catch (err) {
-    console.error('Error loading product:', err)
-    return null
+    console.error('Error loading products:', err)
   }
+  return products
 }
 
 // Update displayCartItems to use backend product info
 async function displayCartItems(cart) {
   const cartItemsContainer = document.querySelector('.cart-items')
+  const products = await fetchProductsByIds(cart.map(item => item.id))
   cartItemsContainer.innerHTML = ''
 
   for (let i = 0; i < cart.length; i++) {
     const item = cart[i]
-    const product = await fetchProductById(item.id)
+    const product = products.get(item.id)
     if (!product) continue
     const cartItem = document.createElement('div')
     cartItem.className = 'cart-item'
@@ -7,8 +7,37 @@ document.addEventListener("DOMContentLoaded", () => {
     initShippingMethods();
     initCheckoutForm(isBuyNow);
     loadUserInfo();
+    reserveCheckoutStock(isBuyNow);
 });
 
+// Hold the cart's stock while the customer fills in the checkout form
+async function reserveCheckoutStock(isBuyNow = false) {
+    const currentUser = JSON.parse(localStorage.getItem("currentUser"));
+    const cart = isBuyNow
+        ? JSON.parse(sessionStorage.getItem("buyNowItem")) || []
+        : JSON.parse(localStorage.getItem("cart")) || [];
+    if (!currentUser || cart.length === 0) return;
+    try {
+        const response = await fetch('/api/reservations', {
+            method: 'POST',
+            headers: { 'Content-Type': 'application/json' },
+            credentials: 'include',
+            body: JSON.stringify({ items: cart.map(item => ({ id: item.id, quantity: item.quantity })) })
+        });
+        if (response.status === 409) {
+            const error = await response.json();
+            showNotification(error.message || 'Some items are no longer available', 'error');
+            return;
+        }
+        if (response.ok) {
+            const reservation = await response.json();
+            sessionStorage.setItem("checkoutReservation", reservation.reservationId);
+        }
+    } catch (error) {
+        console.error('Error reserving stock:', error);
+    }
+}
+
 function loadUserInfo() {
     const currentUser = JSON.parse(localStorage.getItem('currentUser'));
     if (currentUser) {
@@ -19,7 +48,7 @@ function loadUserInfo() {
     }
 }
 
-function loadOrderSummary(isBuyNow = false) {
+async function loadOrderSummary(isBuyNow = false) {
     let cart;
     if (isBuyNow) {
         cart = JSON.parse(sessionStorage.getItem("buyNowItem")) || [];
@@ -32,6 +61,38 @@ function loadOrderSummary(isBuyNow = false) {
     }
     displayOrderItems(cart);
     updateOrderTotals(cart);
+
+    // Show the current names, prices and images; the cart may have been filled days ago
+    if (await refreshCartProducts(cart)) {
+        restoreCart(cart, isBuyNow);
+        displayOrderItems(cart);
+        updateOrderTotals(cart);
+    }
+}
+
+// Updates the cart lines from one batch product lookup; returns whether anything changed
+async function refreshCartProducts(cart) {
+    try {
+        const ids = cart.map(item => item.id).join(',');
+        const response = await fetch(`/api/products?ids=${ids}`);
+        if (!response.ok) return false;
+        const products = new Map((await response.json()).map(product => [product.id, product]));
+        let changed = false;
+        cart.forEach((item) => {
+            const product = products.get(item.id);
+            if (!product) return;
+            if (item.name !== product.name || item.price !== product.price || item.image !== product.image) {
+                item.name = product.name;
+                item.price = product.price;
+                item.image = product.image;
+                changed = true;
+            }
+        });
+        return changed;
+    } catch (error) {
+        console.error('Error refreshing cart products:', error);
+        return false;
+    }
 }
 
 function displayOrderItems(cart) {
@@ -89,10 +150,18 @@ function initShippingMethods() {
 
 function initCheckoutForm(isBuyNow = false) {
     const checkoutForm = document.getElementById("checkout-form");
+    let orderInFlight = false;
     checkoutForm.addEventListener("submit", async (e) => {
         e.preventDefault();
+        // Ignore extra clicks while an order request is still running
+        if (orderInFlight) return;
         if (validateCheckoutForm()) {
-            await processOrder(isBuyNow);
+            orderInFlight = true;
+            try {
+                await processOrder(isBuyNow);
+            } finally {
+                orderInFlight = false;
+            }
         }
     });
 }
@@ -177,8 +246,8 @@ async function processOrder(isBuyNow = false) {
             shippingZipCode = zipField || null;
             shippingCountry = 'Philippines';
         }
+        const pending = getPendingCheckout();
         const orderData = {
-            orderId: generateOrderId(),
             customerId: currentUser.id,
             orderDate: new Date().toISOString(),
             status: "PENDING",
@@ -210,33 +279,55 @@ async function processOrder(isBuyNow = false) {
             shippingZipCode: shippingZipCode,
             shippingCountry: shippingCountry
         };
-        const orders = JSON.parse(localStorage.getItem('orders') || '[]');
-        orders.push(orderData);
-        localStorage.setItem('orders', JSON.stringify(orders));
         // Clear only the relevant storage
         if (isBuyNow) {
             sessionStorage.removeItem("buyNowItem");
         } else {
             localStorage.setItem("cart", JSON.stringify([]));
         }
-        const response = await fetch('/api/orders', {
-            method: 'POST',
-            headers: {
-                'Content-Type': 'application/json'
-            },
-            credentials: 'include',
-            body: JSON.stringify(orderData)
-        });
+        let response;
+        try {
+            response = await fetch('/api/orders', {
+                method: 'POST',
+                headers: {
+                    'Content-Type': 'application/json',
+                    'Idempotency-Key': pending.key,
+                    'Reservation-Id': sessionStorage.getItem("checkoutReservation") || ''
+                },
+                credentials: 'include',
+                body: JSON.stringify(orderData)
+            });
+        } catch (networkError) {
+            // The order may or may not have been placed; keep the key so a retry is deduplicated
+            restoreCart(cart, isBuyNow);
+            throw new Error('Network error while placing the order. Please try again.');
+        }
+        if (response.status < 500) {
+            // The server gave a final answer for this key; the next attempt needs a new one
+            clearPendingCheckout();
+        }
         if (!response.ok) {
             // Restore cart or buyNowItem if server fails
-            if (isBuyNow) {
-                sessionStorage.setItem("buyNowItem", JSON.stringify(cart));
-            } else {
-                localStorage.setItem("cart", JSON.stringify(cart));
-            }
+            restoreCart(cart, isBuyNow);
             const errorData = await response.text();
             throw new Error(errorData || 'Failed to create order');
         }
+        sessionStorage.removeItem("checkoutReservation");
+        // The server assigns the order id: "Order created successfully with orderId: <id>"
+        const responseText = await response.text();
+        const idMatch = responseText.match(/orderId:\s*(\S+)/);
+        orderData.orderId = idMatch ? idMatch[1] : null;
+        const orders = JSON.parse(localStorage.getItem('orders') || '[]');
+        orders.push(orderData);
+        localStorage.setItem('orders', JSON.stringify(orders));
+        if (response.status === 202) {
+            // Accepted for background processing; wait until the order is placed or rejected
+            const result = await waitForOrder(orderData.orderId);
+            if (result && result.status === 'Rejected') {
+                restoreCart(cart, isBuyNow);
+                throw new Error(result.message || 'Your order could not be placed');
+            }
+        }
         showNotification('Order placed successfully!');
         window.location.href = `order-confirmation.html?orderId=${orderData.orderId}`;
     } catch (error) {
@@ -245,8 +336,44 @@ async function processOrder(isBuyNow = false) {
     }
 }
 
-function generateOrderId() {
-    return 'ORD' + Date.now().toString().slice(-6) + Math.random().toString(36).substr(2, 4).toUpperCase();
+// Polls an accepted order until it leaves Pending; gives up quietly after about a minute
+async function waitForOrder(orderId) {
+    for (let attempt = 0; attempt < 60; attempt++) {
+        await new Promise(resolve => setTimeout(resolve, 1000));
+        try {
+            const response = await fetch(`/api/orders/${encodeURIComponent(orderId)}/status`, { credentials: 'include' });
+            if (response.ok) {
+                const result = await response.json();
+                if (result.status !== 'Pending') return result;
+            }
+        } catch (error) {
+            console.error('Error checking order status:', error);
+        }
+    }
+    return null;
+}
+
+function restoreCart(cart, isBuyNow) {
+    if (isBuyNow) {
+        sessionStorage.setItem("buyNowItem", JSON.stringify(cart));
+    } else {
+        localStorage.setItem("cart", JSON.stringify(cart));
+    }
+}
+
+// One Idempotency-Key per checkout attempt, reused by double clicks and retries until the
+// server answers, so the order is only placed once
+function getPendingCheckout() {
+    let pending = JSON.parse(sessionStorage.getItem("pendingCheckout"));
+    if (!pending) {
+        pending = { key: crypto.randomUUID() };
+        sessionStorage.setItem("pendingCheckout", JSON.stringify(pending));
+    }
+    return pending;
+}
+
+function clearPendingCheckout() {
+    sessionStorage.removeItem("pendingCheckout");
 }
 
 // Notification and CSS animation code remains unchanged
@@ -29,6 +29,34 @@ function loadOrderConfirmation() {
     }
 
     updateOrderDetails(order);
+    watchOrderStatus(currentUser.id, orderId);
+}
+
+// Shows the current status, then follows changes pushed by the server
+async function watchOrderStatus(customerId, orderId) {
+    const statusElement = document.getElementById('order-status');
+    if (!statusElement) return;
+    const refresh = async () => {
+        try {
+            const res = await fetch(`/api/orders/${encodeURIComponent(orderId)}/status`, { credentials: 'include' });
+            if (res.ok) {
+                const body = await res.json();
+                statusElement.textContent = body.message ? `${body.status} (${body.message})` : body.status;
+            }
+        } catch (e) {
+            console.error('Error loading order status:', e);
+        }
+    };
+    await refresh();
+    if (!window.EventSource) return;
+    const events = new EventSource(`/api/orders/customer/${customerId}/events`, { withCredentials: true });
+    events.addEventListener('order-status', (event) => {
+        const change = JSON.parse(event.data);
+        if (change.orderId === orderId) {
+            statusElement.textContent = change.message ? `${change.status} (${change.message})` : change.status;
+        }
+    });
+    events.addEventListener('resync', refresh);
 }
 
 function updateOrderDetails(order) {
@@ -18,6 +18,7 @@ document.addEventListener('DOMContentLoaded', () => {
         initFilters();
     }
     loadOrders();
+    subscribeToOrderEvents(currentUser.id);
 });
 
 function initFilters() {
@@ -31,6 +32,10 @@ function initFilters() {
     if (dateFilter) dateFilter.addEventListener('change', applyFilters);
 }
 
+// Cursor for the next page of order history (null when there are no more orders)
+let nextOrdersCursor = null;
+let loadedOrders = [];
+
 async function loadOrders() {    
     const currentUser = JSON.parse(localStorage.getItem('currentUser'));
     if (!currentUser) {
@@ -38,23 +43,63 @@ async function loadOrders() {
         return;
     }
 
-    // Fetch orders from backend for this user (use detailed DTO endpoint)
+    // Fetch the first page of orders from backend for this user (use detailed DTO endpoint)
     let userOrders = [];
     try {
-        const res = await fetch(`/api/orders/customer/${currentUser.id}`, { credentials: 'include' });
-        if (res.ok) {
-            userOrders = await res.json();
-        }
+        userOrders = await fetchOrdersPage(currentUser.id, null);
     } catch (e) {
         // fallback to localStorage if backend fails
         const orders = JSON.parse(localStorage.getItem('orders')) || [];
         userOrders = orders.filter(order => order.customerId === currentUser.id);
+        nextOrdersCursor = null;
     }
     if (!userOrders || userOrders.length === 0) {
         showNoOrders();
         return;
     }
-    displayOrders(userOrders);
+    loadedOrders = userOrders;
+    displayOrders(loadedOrders);
+}
+
+async function fetchOrdersPage(customerId, cursor) {
+    const query = cursor ? `?before=${encodeURIComponent(cursor)}` : '';
+    const res = await fetch(`/api/orders/customer/${customerId}${query}`, { credentials: 'include' });
+    if (!res.ok) {
+        nextOrdersCursor = null;
+        return [];
+    }
+    nextOrdersCursor = res.headers.get('X-Next-Cursor');
+    return await res.json();
+}
+
+async function loadMoreOrders() {
+    const currentUser = JSON.parse(localStorage.getItem('currentUser'));
+    if (!currentUser || !nextOrdersCursor) return;
+    try {
+        const moreOrders = await fetchOrdersPage(currentUser.id, nextOrdersCursor);
+        loadedOrders = loadedOrders.concat(moreOrders);
+        displayOrders(loadedOrders);
+    } catch (e) {
+        console.error('Error loading more orders:', e);
+    }
+}
+
+// Live status changes pushed by the server; replaces refreshing the page to see updates
+function subscribeToOrderEvents(customerId) {
+    if (!window.EventSource) return;
+    const events = new EventSource(`/api/orders/customer/${customerId}/events`, { withCredentials: true });
+    events.addEventListener('order-status', (event) => {
+        const change = JSON.parse(event.data);
+        const order = loadedOrders.find(o => o.orderId === change.orderId);
+        if (order) {
+            order.status = change.status;
+            displayOrders(loadedOrders);
+        } else {
+            loadOrders();
+        }
+    });
+    // Some events were dropped while this page was not keeping up
+    events.addEventListener('resync', () => loadOrders());
 }
 
 function displayOrders(orders) {
@@ -75,6 +120,14 @@ function displayOrders(orders) {
         const orderElement = createOrderElement(order);
         ordersList.appendChild(orderElement);
     });
+
+    if (nextOrdersCursor) {
+        const loadMoreBtn = document.createElement('button');
+        loadMoreBtn.className = 'btn load-more-orders';
+        loadMoreBtn.textContent = 'Load more orders';
+        loadMoreBtn.addEventListener('click', loadMoreOrders);
+        ordersList.appendChild(loadMoreBtn);
+    }
 }
 
 function createOrderElement(order) {
@@ -17,16 +17,22 @@ document.addEventListener("DOMContentLoaded", () => {
   initBuyNow(productId)
 })
 
-// Fetch product details from backend
-async function fetchProductFromBackend(productId) {
-  try {
-    const response = await fetch(`/api/products/${productId}`)
-    if (!response.ok) throw new Error("Failed to fetch product")
-    return await response.json()
-  } catch (err) {
-    console.error("Error loading product:", err)
-    return null
+// Fetch product details from backend; the page, add to cart and buy now share one request
+let productRequest = null
+
+function fetchProductFromBackend(productId) {
+  if (!productRequest) {
+    productRequest = fetch(`/api/products/${productId}`)
+      .then((response) => {
+        if (!response.ok) throw new Error("Failed to fetch product")
+        return response.json()
+      })
+      .catch((err) => {
+        console.error("Error loading product:", err)
+        return null
+      })
   }
+  return productRequest
 }
 
 // Update loadProductDetails to use backend
@@ -115,8 +121,7 @@ function initAddToCart(productId) {
   const addToCartBtn = document.getElementById("add-to-cart-btn")
 
   addToCartBtn.addEventListener("click", () => {
-    fetch(`/api/products/${productId}`)
-      .then(res => res.json())
+    fetchProductFromBackend(productId)
       .then(product => {
         if (!product) return;
         if (product.stock === 0) {
@@ -5,8 +5,8 @@ if (!localStorage.getItem("currentUser")) {
 
 // Products page functionality
 
-let products = [];
 let currentPage = 1;
+let currentSort = "popularity";
 const PRODUCTS_PER_PAGE = 4;
 
 // Fetch and display products
@@ -19,35 +19,107 @@ document.addEventListener("DOMContentLoaded", () => {
   initSorting()
 
   // Fetch and display products
-  fetchProductsFromBackend().then(fetchedProducts => {
-    products = fetchedProducts;
-    renderPage(1, products);
-  })
+  renderPage(1)
 })
 
-// Fetch products from backend instead of using hardcoded data
-async function fetchProductsFromBackend() {
+// Filtering, sorting and pagination are done server-side by /api/products/search;
+// a search term switches to the relevance-ranked /api/products/search/text
+async function fetchProductsFromBackend(page) {
+  const params = new URLSearchParams()
+  const query = getSearchQuery()
+  if (query) {
+    params.set("q", query)
+    params.set("page", page - 1)
+    params.set("size", PRODUCTS_PER_PAGE)
+    return fetchProducts(`/api/products/search/text?${params.toString()}`)
+  }
+
+  getSelectedCategories().forEach((category) => params.append("category", category))
+  selectedBrands.forEach((brand) => params.append("brand", brand))
+  if (document.getElementById("in-stock-only")?.checked) params.set("inStock", "true")
+
+  const minPrice = Number.parseFloat(document.getElementById("min-price").value)
+  const maxPrice = Number.parseFloat(document.getElementById("max-price").value)
+  if (!Number.isNaN(minPrice)) params.set("minPrice", minPrice)
+  if (!Number.isNaN(maxPrice)) params.set("maxPrice", maxPrice)
+
+  params.set("sort", currentSort)
+  params.set("page", page - 1)
+  params.set("size", PRODUCTS_PER_PAGE)
+  return fetchProducts(`/api/products/search?${params.toString()}`)
+}
+
+async function fetchProducts(url) {
   try {
-    const response = await fetch('/api/products')
+    const response = await fetch(url)
     if (!response.ok) throw new Error('Failed to fetch products')
     return await response.json()
   } catch (err) {
     console.error('Error loading products:', err)
-    return []
+    return { content: [], totalElements: 0, totalPages: 0 }
   }
 }
 
-function renderPage(page, productsToShow) {
+async function renderPage(page) {
   currentPage = page;
-  const totalPages = Math.ceil(productsToShow.length / PRODUCTS_PER_PAGE);
-  const startIdx = (page - 1) * PRODUCTS_PER_PAGE;
-  const endIdx = startIdx + PRODUCTS_PER_PAGE;
-  const paginatedProducts = productsToShow.slice(startIdx, endIdx);
-  displayProducts(paginatedProducts);
-  renderPagination(totalPages, page, productsToShow);
+  const result = await fetchProductsFromBackend(page);
+  displayProducts(result.content);
+  renderPagination(result.totalPages, page);
+  if (result.facets) displayFacets(result.facets);
 }
 
-function renderPagination(totalPages, current, productsToShow) {
+// Brands ticked in the sidebar; kept across re-renders of the brand list
+const selectedBrands = new Set()
+
+// Shows the facet counts returned with the search results next to the filters
+function displayFacets(facets) {
+  document.querySelectorAll('input[id^="category-"]').forEach((input) => {
+    const category = input.id.replace("category-", "")
+    const label = document.querySelector(`label[for="${input.id}"]`)
+    if (!label) return
+    let count = label.parentElement.querySelector(".facet-count")
+    if (!count) {
+      count = document.createElement("span")
+      count.className = "facet-count"
+      label.after(" ", count)
+    }
+    count.textContent = `(${facets.category?.[category] ?? 0})`
+  })
+
+  const inStockCount = document.querySelector('.facet-count[data-availability="in-stock"]')
+  if (inStockCount) inStockCount.textContent = `(${facets.availability?.["in-stock"] ?? 0})`
+
+  const brandList = document.querySelector("#brand-filters ul")
+  if (!brandList) return
+  brandList.innerHTML = ""
+  const brands = Object.entries(facets.brand || {})
+  // Keep ticked brands visible even when the other filters leave them with no products
+  selectedBrands.forEach((brand) => {
+    if (!(brand in (facets.brand || {}))) brands.push([brand, 0])
+  })
+  brands.forEach(([brand, count], index) => {
+    const item = document.createElement("li")
+    const checkbox = document.createElement("input")
+    checkbox.type = "checkbox"
+    checkbox.id = `brand-option-${index}`
+    checkbox.checked = selectedBrands.has(brand)
+    checkbox.addEventListener("change", () => {
+      if (checkbox.checked) selectedBrands.add(brand)
+      else selectedBrands.delete(brand)
+      applyFilters()
+    })
+    const label = document.createElement("label")
+    label.htmlFor = checkbox.id
+    label.textContent = brand
+    const countSpan = document.createElement("span")
+    countSpan.className = "facet-count"
+    countSpan.textContent = `(${count})`
+    item.append(checkbox, " ", label, " ", countSpan)
+    brandList.appendChild(item)
+  })
+}
+
+function renderPagination(totalPages, current) {
   const paginationDiv = document.querySelector('.pagination');
   if (!paginationDiv) return;
   paginationDiv.innerHTML = '';
@@ -57,7 +129,7 @@ function renderPagination(totalPages, current, productsToShow) {
     const btn = document.createElement('button');
     btn.className = 'pagination-btn' + (i === current ? ' active' : '');
     btn.textContent = i;
-    btn.addEventListener('click', () => renderPage(i, productsToShow));
+    btn.addEventListener('click', () => renderPage(i));
     paginationDiv.appendChild(btn);
   }
   // Next button
@@ -65,7 +137,7 @@ function renderPagination(totalPages, current, productsToShow) {
     const nextBtn = document.createElement('button');
     nextBtn.className = 'pagination-btn';
     nextBtn.textContent = 'Next';
-    nextBtn.addEventListener('click', () => renderPage(current + 1, productsToShow));
+    nextBtn.addEventListener('click', () => renderPage(current + 1));
     paginationDiv.appendChild(nextBtn);
   }
 }
@@ -76,6 +148,17 @@ function initFilters() {
   const minPrice = document.getElementById("min-price")
   const maxPrice = document.getElementById("max-price")
   const applyFiltersBtn = document.querySelector(".filters .btn")
+  const searchInput = document.getElementById("search-query")
+
+  // Search box: suggestions on every keystroke, results after a pause in typing
+  if (searchInput) {
+    let searchTimer
+    searchInput.addEventListener("input", () => {
+      loadSuggestions(searchInput.value.trim())
+      clearTimeout(searchTimer)
+      searchTimer = setTimeout(applyFilters, 250)
+    })
+  }
 
   // Category filters
   categoryFilters.forEach((filter) => {
@@ -100,48 +183,55 @@ function initSorting() {
 
   if (sortSelect) {
     sortSelect.addEventListener("change", function () {
-      const sortedProducts = sortProducts(products, this.value)
-      renderPage(1, sortedProducts)
+      currentSort = this.value
+      renderPage(1)
     })
   }
 }
 
-function applyFilters() {
-  let filteredProducts = [...products]
+// Fills the search box's datalist from /api/products/suggest; stale responses are ignored
+let latestSuggestQuery = ""
+async function loadSuggestions(query) {
+  const datalist = document.getElementById("search-suggestions")
+  if (!datalist) return
+  latestSuggestQuery = query
+  if (!query) {
+    datalist.innerHTML = ""
+    return
+  }
+  try {
+    const response = await fetch(`/api/products/suggest?q=${encodeURIComponent(query)}&limit=8`)
+    if (!response.ok) return
+    const suggestions = await response.json()
+    if (query !== latestSuggestQuery) return
+    datalist.innerHTML = ""
+    suggestions.forEach((suggestion) => {
+      const option = document.createElement("option")
+      option.value = suggestion.text
+      if (suggestion.type !== "product") option.label = `${suggestion.text} (${suggestion.type})`
+      datalist.appendChild(option)
+    })
+  } catch (err) {
+    console.error("Error loading suggestions:", err)
+  }
+}
 
-  // Category filters
+function getSearchQuery() {
+  const searchInput = document.getElementById("search-query")
+  return searchInput ? searchInput.value.trim() : ""
+}
+
+function getSelectedCategories() {
   const selectedCategories = []
   const categoryFilters = document.querySelectorAll('input[id^="category-"]:checked')
   categoryFilters.forEach((filter) => {
     selectedCategories.push(filter.id.replace("category-", ""))
   })
-
-  if (selectedCategories.length > 0) {
-    filteredProducts = filteredProducts.filter((product) => selectedCategories.includes(product.category))
-  }
-
-  // Price filter
-  const minPrice = Number.parseFloat(document.getElementById("min-price").value) || 0
-  const maxPrice = Number.parseFloat(document.getElementById("max-price").value) || 5000
-
-  filteredProducts = filteredProducts.filter((product) => product.price >= minPrice && product.price <= maxPrice)
-
-  renderPage(1, filteredProducts)
+  return selectedCategories
 }
 
-function sortProducts(products, sortBy) {
-  const sorted = [...products]
-
-  switch (sortBy) {
-    case "price-low":
-      return sorted.sort((a, b) => a.price - b.price)
-    case "price-high":
-      return sorted.sort((a, b) => b.price - a.price)
-    case "newest":
-      return sorted.sort((a, b) => b.id - a.id)
-    default:
-      return sorted
-  }
+function applyFilters() {
+  renderPage(1)
 }
 
 function displayProducts(productsToShow) {
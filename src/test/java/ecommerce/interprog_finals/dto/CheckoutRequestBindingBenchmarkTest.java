@@ -0,0 +1,185 @@
+package ecommerce.interprog_finals.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ecommerce.interprog_finals.entity.Money;
+import ecommerce.interprog_finals.entity.Order;
+import ecommerce.interprog_finals.entity.OrderItem;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+
+/**
+ * Compares the checkout body binding that POST /api/orders used before CheckoutRequest (a
+ * {@code Map<String, Object>} tree plus per-field null checks, toString() and instanceof parsing)
+ * with binding into the CheckoutRequest record, with and without bean validation. Both paths
+ * end with an Order and its OrderItems. Reports time and heap allocated per request.
+ *
+ * <p>Opt-in: {@code mvn test -Dtest=CheckoutRequestBindingBenchmarkTest -Dbenchmarks=true}
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class CheckoutRequestBindingBenchmarkTest {
+
+    private static final int WARMUP = 50_000;
+    private static final int RUNS = 200_000;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+    // A five-line cart as checkout.js sends it
+    private static final String PAYLOAD = payload(5);
+
+    private static String payload(int lines) {
+        StringBuilder items = new StringBuilder();
+        for (int i = 1; i <= lines; i++) {
+            if (i > 1) items.append(',');
+            items.append("{\"id\":").append(i).append(",\"quantity\":").append(i % 3 + 1)
+                    .append(",\"price\":").append(1499.5 + i).append(",\"name\":\"Training Ball ").append(i)
+                    .append("\",\"image\":\"/uploads/placeholders/ball").append(i).append(".jpg\"}");
+        }
+        return "{\"customerId\":42,\"orderDate\":\"2026-10-18T08:30:00.000Z\",\"status\":\"PENDING\",\"total\":9126.4,"
+                + "\"subtotal\":7998.5,\"vat\":959.82,\"shippingCost\":150,\"items\":[" + items + "],"
+                + "\"firstName\":\"Juan\",\"lastName\":\"Dela Cruz\",\"email\":\"juan@example.com\",\"phone\":\"09171234567\","
+                + "\"shippingAddress\":\"12 Mabini St, Quezon City, Metro Manila, 1100\",\"city\":\"Quezon City\","
+                + "\"state\":\"Metro Manila\",\"zip\":\"1100\",\"country\":\"Philippines\",\"shippingMethod\":\"standard\","
+                + "\"paymentMethod\":\"COD\",\"shippingStreet\":\"12 Mabini St\",\"shippingCity\":\"Quezon City\","
+                + "\"shippingProvince\":\"Metro Manila\",\"shippingZipCode\":\"1100\",\"shippingCountry\":\"Philippines\"}";
+    }
+
+    // The field extraction processCheckout did on the map before CheckoutRequest (amounts now
+    // end up in Money instead of double); returns the number of order items
+    private static int bindMap(String json) throws JsonProcessingException {
+        Map<String, Object> orderData = MAPPER.readValue(json, new TypeReference<Map<String, Object>>() {});
+        Long.parseLong(orderData.get("customerId").toString());
+        String shippingAddress = orderData.get("shippingAddress") != null
+                ? orderData.get("shippingAddress").toString()
+                : (orderData.get("address") != null ? orderData.get("address").toString() : null);
+
+        Order order = new Order();
+        order.setShippingAddress(shippingAddress);
+        order.setShippingCity(orderData.get("city") != null ? orderData.get("city").toString() : null);
+        order.setShippingProvince(orderData.get("state") != null ? orderData.get("state").toString() : null);
+        order.setShippingZipCode(orderData.get("zip") != null ? orderData.get("zip").toString() : null);
+        order.setShippingCountry(orderData.get("country") != null ? orderData.get("country").toString() : null);
+        order.setShippingMethod(orderData.get("shippingMethod") != null ? orderData.get("shippingMethod").toString() : null);
+        order.setPaymentMethod(orderData.get("paymentMethod") != null ? orderData.get("paymentMethod").toString() : null);
+        order.setFirstName(orderData.get("firstName") != null ? orderData.get("firstName").toString() : null);
+        order.setLastName(orderData.get("lastName") != null ? orderData.get("lastName").toString() : null);
+        order.setEmail(orderData.get("email") != null ? orderData.get("email").toString() : null);
+        order.setPhone(orderData.get("phone") != null ? orderData.get("phone").toString() : null);
+        Object totalValue = orderData.get("total");
+        if (totalValue instanceof Double || totalValue instanceof Integer || totalValue instanceof String) {
+            order.setTotal(Money.of(totalValue.toString()));
+        } else {
+            throw new IllegalArgumentException("Unexpected total type");
+        }
+        order.setShippingStreet(orderData.get("shippingStreet") != null ? orderData.get("shippingStreet").toString() : null);
+        order.setShippingCity(orderData.get("shippingCity") != null ? orderData.get("shippingCity").toString() : null);
+        order.setShippingProvince(orderData.get("shippingProvince") != null ? orderData.get("shippingProvince").toString() : null);
+        order.setShippingZipCode(orderData.get("shippingZipCode") != null ? orderData.get("shippingZipCode").toString() : null);
+        order.setShippingCountry(orderData.get("shippingCountry") != null ? orderData.get("shippingCountry").toString() : null);
+        order.setStatus("Processing");
+        order.setOrderDate(new java.util.Date());
+
+        List<Map<String, Object>> items = null;
+        Object itemsObj = orderData.get("items");
+        if (itemsObj instanceof List<?> itemsList && !itemsList.isEmpty() && itemsList.get(0) instanceof Map) {
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> checkedItems = (List<Map<String, Object>>) itemsList;
+            items = checkedItems;
+        }
+        List<OrderItem> orderItems = new ArrayList<>();
+        if (items != null) {
+            for (Map<String, Object> item : items) {
+                OrderItem orderItem = new OrderItem();
+                if (item.get("id") != null) {
+                    orderItem.setProductId(Long.parseLong(item.get("id").toString()));
+                }
+                orderItem.setName(item.get("name") != null ? item.get("name").toString() : null);
+                orderItem.setImage(item.get("image") != null ? item.get("image").toString() : null);
+                if (item.get("price") != null) {
+                    orderItem.setPrice(Money.of(item.get("price").toString()));
+                }
+                int quantity = 1;
+                if (item.get("quantity") != null) {
+                    if (item.get("quantity") instanceof Number) {
+                        quantity = ((Number) item.get("quantity")).intValue();
+                    } else {
+                        quantity = Integer.parseInt(item.get("quantity").toString());
+                    }
+                }
+                orderItem.setQuantity(quantity);
+                orderItems.add(orderItem);
+            }
+        }
+        return orderItems.size();
+    }
+
+    private static int bindRecord(String json, boolean validate) throws JsonProcessingException {
+        CheckoutRequest request = MAPPER.readValue(json, CheckoutRequest.class);
+        if (validate) {
+            Set<ConstraintViolation<CheckoutRequest>> violations = VALIDATOR.validate(request);
+            if (!violations.isEmpty()) throw new IllegalArgumentException(violations.toString());
+        }
+        request.toOrder("Processing");
+        return request.toOrderItems().size();
+    }
+
+    private interface Binding {
+        int bind(String json) throws Exception;
+    }
+
+    @Test
+    void bindingCostPerRequest() throws Exception {
+        Binding map = CheckoutRequestBindingBenchmarkTest::bindMap;
+        Binding record = json -> bindRecord(json, false);
+        Binding validated = json -> bindRecord(json, true);
+        assertEquals(5, map.bind(PAYLOAD));
+        assertEquals(5, validated.bind(PAYLOAD));
+
+        for (int round = 0; round < 2; round++) {
+            measure("Map<String, Object> + field extraction", map);
+            measure("CheckoutRequest", record);
+            measure("CheckoutRequest + bean validation", validated);
+        }
+    }
+
+    private static void measure(String label, Binding binding) throws Exception {
+        ToIntFunction<String> run = json -> {
+            try {
+                return binding.bind(json);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        int sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += run.applyAsInt(PAYLOAD);
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            sink += run.applyAsInt(PAYLOAD);
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        System.out.printf("%-42s %7.2f us/request %8d bytes/request%n", label, nanos / 1000.0 / RUNS, allocated / RUNS);
+        assertEquals(5L * (WARMUP + RUNS), sink);
+    }
+}
@@ -0,0 +1,76 @@
+package ecommerce.interprog_finals.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import ecommerce.interprog_finals.dto.CustomerSummaryDTO;
+import ecommerce.interprog_finals.entity.Customer;
+import ecommerce.interprog_finals.entity.Money;
+import ecommerce.interprog_finals.entity.Order;
+import ecommerce.interprog_finals.entity.OrderIds;
+
+/**
+ * The admin customer listing counts only placed orders: a checkout that was rejected, or is still
+ * pending in the async queue, adds nothing to a customer's order count, spend or last order date.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class CustomerSummariesTest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Customer customer(String email) {
+        Customer customer = new Customer();
+        customer.setFirstName("Juan");
+        customer.setLastName("Dela Cruz");
+        customer.setEmail(email);
+        return entityManager.persist(customer);
+    }
+
+    private void order(Customer customer, String status, long totalMinor, Date orderDate) {
+        Order order = new Order();
+        order.setOrderId(OrderIds.encode(1, System.nanoTime()));
+        order.setCustomer(customer);
+        order.setStatus(status);
+        order.setTotal(Money.ofMinor(totalMinor));
+        order.setOrderDate(orderDate);
+        entityManager.persist(order);
+    }
+
+    @Test
+    void rejectedAndPendingOrdersAreNotCounted() {
+        Customer buyer = customer("buyer@example.com");
+        order(buyer, "Delivered", 150_00, new Date(1_000_000));
+        order(buyer, "Rejected", 900_00, new Date(2_000_000));
+        order(buyer, "Pending", 400_00, new Date(3_000_000));
+        Customer rejectedOnly = customer("rejected@example.com");
+        order(rejectedOnly, "Rejected", 250_00, new Date(1_000_000));
+        entityManager.flush();
+
+        List<CustomerSummaryDTO> rows = customerRepository.findCustomerSummaries(null, PageRequest.of(0, 20)).getContent();
+        assertEquals(2, rows.size());
+
+        CustomerSummaryDTO buyerRow = rows.get(0).getId().equals(buyer.getId()) ? rows.get(0) : rows.get(1);
+        assertEquals(1, buyerRow.getOrderCount());
+        assertEquals(Money.ofMinor(150_00), buyerRow.getTotalSpent());
+        assertEquals(new Date(1_000_000).getTime(), buyerRow.getLastOrderDate().getTime());
+
+        // Still listed, with nothing to its name
+        CustomerSummaryDTO rejectedRow = rows.get(0).getId().equals(rejectedOnly.getId()) ? rows.get(0) : rows.get(1);
+        assertEquals(0, rejectedRow.getOrderCount());
+        assertEquals(Money.ZERO, rejectedRow.getTotalSpent());
+        assertNull(rejectedRow.getLastOrderDate());
+    }
+}
@@ -0,0 +1,105 @@
+package ecommerce.interprog_finals.repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import ecommerce.interprog_finals.entity.OrderIds;
+import ecommerce.interprog_finals.service.OrderIdGenerator;
+
+/**
+ * Compares the old order id scheme (UUID.randomUUID() text in a unique VARCHAR(36)) with
+ * OrderIdGenerator ids in a unique BINARY(16): id generation from several threads, and batched
+ * inserts into an indexed table. Runs against in-memory H2, so the insert numbers show the
+ * relative cost of random versus appending keys rather than MySQL throughput.
+ *
+ * <p>Opt-in: {@code mvn test -Dtest=OrderIdInsertBenchmarkTest -Dbenchmarks=true}
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class OrderIdInsertBenchmarkTest {
+
+    private static final int ROWS = 500_000;
+    private static final int BATCH_SIZE = 1_000;
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 1_000_000;
+
+    @Test
+    void generationThroughput() throws Exception {
+        OrderIdGenerator generator = new OrderIdGenerator();
+        generator.init();
+        for (int round = 0; round < 2; round++) {
+            report("UUID.randomUUID().toString()", generate(() -> UUID.randomUUID().toString()), THREADS * IDS_PER_THREAD);
+            report("OrderIdGenerator.next()", generate(generator::next), THREADS * IDS_PER_THREAD);
+        }
+    }
+
+    @Test
+    void insertThroughput() throws Exception {
+        OrderIdGenerator generator = new OrderIdGenerator();
+        generator.init();
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:order_id_benchmark;MODE=MySQL", "sa", "")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table uuid_orders (id bigint auto_increment primary key, order_id varchar(36) not null)");
+                statement.execute("create unique index uk_uuid_orders on uuid_orders (order_id)");
+                statement.execute("create table binary_orders (id bigint auto_increment primary key, order_id binary(16) not null)");
+                statement.execute("create unique index uk_binary_orders on binary_orders (order_id)");
+            }
+            long uuidNanos = insert(connection, "insert into uuid_orders (order_id) values (?)",
+                    () -> UUID.randomUUID().toString());
+            long binaryNanos = insert(connection, "insert into binary_orders (order_id) values (?)",
+                    () -> OrderIds.toBytes(generator.next()));
+            report("random UUID VARCHAR(36) insert", uuidNanos, ROWS);
+            report("time-ordered BINARY(16) insert", binaryNanos, ROWS);
+        }
+    }
+
+    private static long generate(Supplier<String> ids) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < THREADS; t++) {
+            pool.submit(() -> {
+                start.await();
+                int sink = 0;
+                for (int i = 0; i < IDS_PER_THREAD; i++) {
+                    sink += ids.get().length();
+                }
+                return sink;
+            });
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.MINUTES);
+        return System.nanoTime() - started;
+    }
+
+    private static long insert(Connection connection, String sql, Supplier<Object> ids) throws Exception {
+        long started = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement(sql)) {
+            for (int i = 1; i <= ROWS; i++) {
+                insert.setObject(1, ids.get());
+                insert.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+        }
+        return System.nanoTime() - started;
+    }
+
+    private static void report(String name, long nanos, int operations) {
+        System.out.printf("%-32s %,12.0f ops/s (%,d ops in %,d ms)%n",
+                name, operations / (nanos / 1e9), operations, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+}
@@ -0,0 +1,91 @@
+package ecommerce.interprog_finals.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import ecommerce.interprog_finals.entity.OrderIds;
+import ecommerce.interprog_finals.entity.PendingCheckout;
+
+/**
+ * The worker's claim fence: a checkout can only be finished by the worker whose claim is still on
+ * the row, so a claim that was taken back and handed to another instance cannot place the order
+ * a second time.
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:pending_claims;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.hibernate.ddl-auto=none",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class PendingCheckoutClaimTest {
+
+    @Autowired
+    private PendingCheckoutRepository pendingCheckoutRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private PendingCheckout claimed(String claimedBy, LocalDateTime claimedAt) {
+        PendingCheckout pending = new PendingCheckout();
+        pending.setOrderId(OrderIds.encode(1, System.nanoTime()));
+        pending.setCustomerId(1L);
+        pending.setPayload("{}");
+        pending.setStatus(PendingCheckout.PROCESSING);
+        pending.setAttempts(1);
+        pending.setCreatedAt(claimedAt);
+        pending.setClaimedBy(claimedBy);
+        pending.setClaimedAt(claimedAt);
+        return entityManager.persistFlushFind(pending);
+    }
+
+    @Test
+    void onlyTheCurrentClaimCanFinishACheckout() {
+        LocalDateTime firstClaim = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS).minusMinutes(10);
+        LocalDateTime secondClaim = firstClaim.plusMinutes(6);
+        // Taken back from node-a after a stale lease and claimed again by node-b
+        PendingCheckout pending = claimed("node-b", secondClaim);
+
+        assertEquals(0, pendingCheckoutRepository.finishClaim(pending.getId(), "node-a", firstClaim,
+                PendingCheckout.DONE, null, LocalDateTime.now()));
+        assertEquals(0, pendingCheckoutRepository.finishClaim(pending.getId(), "node-b", firstClaim,
+                PendingCheckout.DONE, null, LocalDateTime.now()));
+        assertEquals(1, pendingCheckoutRepository.finishClaim(pending.getId(), "node-b", secondClaim,
+                PendingCheckout.DONE, null, LocalDateTime.now()));
+        // Once finished, nobody can finish it again
+        assertEquals(0, pendingCheckoutRepository.finishClaim(pending.getId(), "node-b", secondClaim,
+                PendingCheckout.DONE, null, LocalDateTime.now()));
+
+        entityManager.clear();
+        PendingCheckout done = pendingCheckoutRepository.findById(pending.getId()).orElseThrow();
+        assertEquals(PendingCheckout.DONE, done.getStatus());
+        assertEquals("node-b", done.getClaimedBy());
+    }
+
+    @Test
+    void requeueClearsTheClaim() {
+        LocalDateTime claimedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        PendingCheckout pending = claimed("node-a", claimedAt);
+
+        assertEquals(1, pendingCheckoutRepository.finishClaim(pending.getId(), "node-a", claimedAt,
+                PendingCheckout.QUEUED, "timeout", null));
+
+        entityManager.clear();
+        PendingCheckout queued = pendingCheckoutRepository.findById(pending.getId()).orElseThrow();
+        assertEquals(PendingCheckout.QUEUED, queued.getStatus());
+        assertEquals("timeout", queued.getError());
+        assertNull(queued.getClaimedBy());
+        assertNull(queued.getClaimedAt());
+    }
+}
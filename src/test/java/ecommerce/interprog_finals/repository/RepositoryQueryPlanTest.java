@@ -0,0 +1,198 @@
+package ecommerce.interprog_finals.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.sql.DataSource;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import ecommerce.interprog_finals.entity.Order;
+import ecommerce.interprog_finals.entity.PendingCheckout;
+import ecommerce.interprog_finals.service.OrderProcessingWorker;
+
+/**
+ * Applies the Flyway migrations to an in-memory H2 database in MySQL mode, calls every query
+ * method declared on the repositories (and the ProductService search specification), and EXPLAINs
+ * the SQL Hibernate issued for each, together with OrderProcessingWorker's own pending_checkouts
+ * statements. Fails if any of them is planned as a full table scan, unless it is listed in
+ * {@link #WHOLE_TABLE_READS}. A new repository query must be added to {@link #queries} as well.
+ * Hibernate validates the entities against the migrated schema, as in the application.
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:query_plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.hibernate.ddl-auto=validate",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "ecommerce.interprog_finals.repository.RepositoryQueryPlanTest$RecordingStatementInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RepositoryQueryPlanTest {
+
+    public static class RecordingStatementInspector implements StatementInspector {
+        static final Queue<String> STATEMENTS = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    // Queries that read the whole table on purpose, with the reason
+    private static final Map<String, String> WHOLE_TABLE_READS = Map.of(
+            "CustomerRepository.findCustomerSummaries",
+            "admin listing pages through every customer; the search is a substring LIKE no index can serve",
+            "AdminUserRepository.findByUsernameIgnoreCase",
+            "case-insensitive match on admin_users, a handful of rows read at login and startup");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private AdminUserRepository adminUserRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private PendingCheckoutRepository pendingCheckoutRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void clearRecordedStatements() {
+        RecordingStatementInspector.STATEMENTS.clear();
+    }
+
+    private Map<String, Runnable> queries() {
+        Order order = new Order();
+        order.setId(1L);
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("AdminUserRepository.findByUsernameIgnoreCase", () -> adminUserRepository.findByUsernameIgnoreCase("admin"));
+        queries.put("CustomerRepository.findByEmail", () -> customerRepository.findByEmail("someone@example.com"));
+        queries.put("CustomerRepository.findCustomerSummaries",
+                () -> customerRepository.findCustomerSummaries("%x%", PageRequest.of(0, 20)));
+        queries.put("IdempotencyRecordRepository.findByCustomerIdAndIdempotencyKey",
+                () -> idempotencyRecordRepository.findByCustomerIdAndIdempotencyKey(1L, "key"));
+        queries.put("IdempotencyRecordRepository.deleteCreatedBefore", () -> idempotencyRecordRepository.deleteCreatedBefore(now));
+        queries.put("OrderRepository.findByCustomerId", () -> orderRepository.findByCustomerId(1L));
+        queries.put("OrderRepository.findByOrderId", () -> orderRepository.findByOrderId("ORD-1"));
+        queries.put("OrderRepository.findOrderHistory",
+                () -> orderRepository.findOrderHistory(1L, Long.MAX_VALUE, PageRequest.of(0, 20)));
+        queries.put("OrderRepository.findLatestWithAddress", () -> orderRepository.findLatestWithAddress(1L, PageRequest.of(0, 1)));
+        queries.put("OrderRepository.findStatusRowsByOrderIds", () -> orderRepository.findStatusRowsByOrderIds(List.of("ORD-1", "ORD-2")));
+        queries.put("OrderRepository.findStatusRowsByIds", () -> orderRepository.findStatusRowsByIds(List.of(1L, 2L)));
+        queries.put("OrderRepository.findStatusRowsByStatusBefore",
+                () -> orderRepository.findStatusRowsByStatusBefore("Pending", new Date(), PageRequest.of(0, 100)));
+        queries.put("OrderRepository.updateStatus", () -> orderRepository.updateStatus(List.of(1L, 2L), "Pending", "Shipped"));
+        queries.put("OrderItemRepository.findByOrder", () -> orderItemRepository.findByOrder(order));
+        queries.put("OrderItemRepository.findByOrderId", () -> orderItemRepository.findByOrderId(1L));
+        queries.put("OrderItemRepository.findItemsByOrderRowIds", () -> orderItemRepository.findItemsByOrderRowIds(List.of(1L, 2L, 3L)));
+        queries.put("PendingCheckoutRepository.findByOrderId", () -> pendingCheckoutRepository.findByOrderId("ORD-1"));
+        queries.put("PendingCheckoutRepository.findIdsByStatus",
+                () -> pendingCheckoutRepository.findIdsByStatus(PendingCheckout.QUEUED, PageRequest.of(0, 500)));
+        queries.put("PendingCheckoutRepository.finishClaim",
+                () -> pendingCheckoutRepository.finishClaim(1L, "node", now, PendingCheckout.DONE, null, now));
+        queries.put("ProductRepository.findByIdGreaterThanOrderByIdAsc",
+                () -> productRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 500)));
+        queries.put("ProductRepository.findAllSummaries", () -> productRepository.findAllSummaries());
+        queries.put("ProductRepository.findAll(categoryIn)", () -> productRepository.findAll(
+                ProductSpecifications.categoryIn(List.of("Balls")), PageRequest.of(0, 20, Sort.by("price"))));
+        return queries;
+    }
+
+    @Test
+    void repositoryQueriesUseIndexes() throws Exception {
+        Map<String, List<String>> statements = new LinkedHashMap<>();
+        for (Map.Entry<String, Runnable> query : queries().entrySet()) {
+            RecordingStatementInspector.STATEMENTS.clear();
+            query.getValue().run();
+            List<String> recorded = new ArrayList<>(RecordingStatementInspector.STATEMENTS);
+            assertFalse(recorded.isEmpty(), "no SQL was recorded for " + query.getKey());
+            statements.put(query.getKey(), recorded);
+        }
+        statements.put("OrderProcessingWorker.RECLAIM_OWN_SQL", List.of(OrderProcessingWorker.RECLAIM_OWN_SQL));
+        statements.put("OrderProcessingWorker.RECLAIM_STALE_SQL", List.of(OrderProcessingWorker.RECLAIM_STALE_SQL));
+        statements.put("OrderProcessingWorker.CLAIM_SQL", List.of(OrderProcessingWorker.CLAIM_SQL));
+
+        List<String> fullScans = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (Map.Entry<String, List<String>> query : statements.entrySet()) {
+                if (WHOLE_TABLE_READS.containsKey(query.getKey())) continue;
+                for (String sql : query.getValue()) {
+                    String plan = explain(connection, sql);
+                    if (plan.toLowerCase().contains("tablescan")) {
+                        fullScans.add(query.getKey() + ": " + sql + "\n    plan: " + plan);
+                    }
+                }
+            }
+        }
+        assertTrue(fullScans.isEmpty(), "full table scans:\n" + String.join("\n", fullScans));
+    }
+
+    private static String explain(Connection connection, String sql) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            ParameterMetaData parameters = statement.getParameterMetaData();
+            for (int i = 1; i <= parameters.getParameterCount(); i++) {
+                statement.setObject(i, sampleValue(parameters.getParameterType(i)));
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1));
+                }
+            }
+            return plan.toString();
+        }
+    }
+
+    private static Object sampleValue(int sqlType) {
+        switch (sqlType) {
+            case Types.VARCHAR:
+            case Types.CHAR:
+            case Types.LONGVARCHAR:
+                return "x";
+            case Types.TIMESTAMP:
+                return new java.sql.Timestamp(0);
+            default:
+                return 1;
+        }
+    }
+}
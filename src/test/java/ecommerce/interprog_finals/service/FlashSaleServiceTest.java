@@ -0,0 +1,66 @@
+package ecommerce.interprog_finals.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import ecommerce.interprog_finals.entity.Product;
+import ecommerce.interprog_finals.repository.ProductRepository;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(FlashSaleService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FlashSaleServiceTest {
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    // Receives the write-behind; stubbed to fail like an unreachable database
+    @MockitoBean
+    private ProductService productService;
+
+    @Test
+    void failedFinalFlushKeepsTheSaleClosedUntilItIsWritten() {
+        Product product = new Product();
+        product.setName("Limited Jersey");
+        product.setStock(10);
+        Long productId = productRepository.save(product).getId();
+
+        flashSaleService.start(productId);
+        assertEquals(Map.of(productId, 4), flashSaleService.admit(Map.of(productId, 4)));
+
+        doThrow(new DataAccessResourceFailureException("database down")).when(productService).applyStockDeltas(anyMap());
+        assertThrows(DataAccessResourceFailureException.class, () -> flashSaleService.stop(productId));
+
+        // The row does not show the sold units yet, so the product cannot be sold normally either
+        assertTrue(flashSaleService.isActive(productId));
+        assertThrows(SoldOutException.class, () -> flashSaleService.admit(Map.of(productId, 1)));
+
+        doNothing().when(productService).applyStockDeltas(anyMap());
+        flashSaleService.flushAll();
+
+        assertFalse(flashSaleService.isActive(productId));
+        verify(productService, times(2)).applyStockDeltas(Map.of(productId, 4));
+        assertEquals(Map.of(), flashSaleService.admit(Map.of(productId, 1)));
+    }
+}
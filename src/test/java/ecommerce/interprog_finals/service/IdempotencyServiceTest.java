@@ -0,0 +1,140 @@
+package ecommerce.interprog_finals.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(IdempotencyService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int storedKeys(String key) {
+        return jdbcTemplate.queryForObject("select count(*) from idempotency_keys where idempotency_key = ?",
+                Integer.class, key);
+    }
+
+    @Test
+    void keyIsOnlyTakenWhenTheOrderCommits() {
+        AtomicInteger runs = new AtomicInteger();
+        // The order transaction stores the key, then fails before it commits
+        ResponseEntity<String> failed = idempotencyService.execute(1L, "k-rollback", "hash", claim -> {
+            runs.incrementAndGet();
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    idempotencyService.storeWithOrder(claim, HttpStatus.OK, "placed");
+                    throw new IllegalStateException("insert failed");
+                });
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+            }
+            return ResponseEntity.ok("placed");
+        });
+        assertEquals(500, failed.getStatusCode().value());
+        assertEquals(0, storedKeys("k-rollback"));
+
+        // The retry runs again and its key commits with it
+        ResponseEntity<String> retried = idempotencyService.execute(1L, "k-rollback", "hash", claim -> {
+            runs.incrementAndGet();
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    idempotencyService.storeWithOrder(claim, HttpStatus.OK, "placed"));
+            return ResponseEntity.ok("placed");
+        });
+        assertEquals("placed", retried.getBody());
+        assertEquals(2, runs.get());
+        assertEquals(1, storedKeys("k-rollback"));
+    }
+
+    @Test
+    void keyStoredByAnotherInstanceRollsBackTheOrderAndReplaysItsResponse() {
+        ResponseEntity<String> response = idempotencyService.execute(2L, "k-race", "hash", claim -> {
+            // Another instance commits the same key while this request is placing its order
+            TransactionTemplate other = new TransactionTemplate(transactionManager);
+            other.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            other.executeWithoutResult(status -> jdbcTemplate.update(
+                    "insert into idempotency_keys (customer_id, idempotency_key, request_hash, status_code, response_body, created_at) "
+                            + "values (2, 'k-race', 'hash', 200, 'placed elsewhere', current_timestamp)"));
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    idempotencyService.storeWithOrder(claim, HttpStatus.OK, "placed here"));
+            return ResponseEntity.ok("placed here");
+        });
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("placed elsewhere", response.getBody());
+        assertEquals(1, storedKeys("k-race"));
+    }
+
+    @Test
+    void waitingRequestFailsWithTheFirstRequestsException() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> idempotencyService.execute(3L, "k-fail", "hash", claim -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalArgumentException("bad request");
+            }));
+            started.await();
+
+            AtomicReference<Thread> waiter = new AtomicReference<>();
+            Future<?> second = executor.submit(() -> {
+                waiter.set(Thread.currentThread());
+                return idempotencyService.execute(3L, "k-fail", "hash", claim -> ResponseEntity.ok("ran again"));
+            });
+            // Let the second request block on the first one's result before it fails
+            while (waiter.get() == null || waiter.get().getState() != Thread.State.WAITING) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            Throwable firstError = assertThrowsCause(first);
+            Throwable secondError = assertThrowsCause(second);
+            assertInstanceOf(IllegalArgumentException.class, firstError);
+            assertInstanceOf(IllegalArgumentException.class, secondError);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Throwable assertThrowsCause(Future<?> future) throws InterruptedException {
+        try {
+            future.get();
+        } catch (java.util.concurrent.ExecutionException e) {
+            return e.getCause();
+        }
+        throw new AssertionError("Expected the request to fail");
+    }
+}
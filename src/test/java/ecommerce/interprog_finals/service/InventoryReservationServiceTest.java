@@ -0,0 +1,99 @@
+package ecommerce.interprog_finals.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ecommerce.interprog_finals.entity.Product;
+import ecommerce.interprog_finals.repository.ProductRepository;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({ InventoryReservationService.class, ProductService.class, FlashSaleService.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryReservationServiceTest {
+
+    @Autowired
+    private InventoryReservationService inventoryReservationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long product(int stock) {
+        Product product = new Product();
+        product.setName("Resistance Band");
+        product.setStock(stock);
+        return productRepository.save(product).getId();
+    }
+
+    // Holds for a checkout inside a transaction that then fails, like an order whose stock
+    // decrement or insert throws
+    private void failedCheckout(Long customerId, String reservationId, Map<Long, Integer> lines) {
+        assertThrows(IllegalStateException.class, () -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            inventoryReservationService.holdForCheckout(customerId, reservationId, lines);
+            throw new IllegalStateException("checkout failed");
+        }));
+    }
+
+    @Test
+    void rolledBackCheckoutReleasesTheReservationItCreated() {
+        Long productId = product(5);
+        failedCheckout(1L, null, Map.of(productId, 3));
+
+        assertEquals(0, inventoryReservationService.heldUnits(productId));
+        assertEquals(5, inventoryReservationService.getAvailability(List.of(productId)).get(productId));
+    }
+
+    @Test
+    void rolledBackCheckoutKeepsOnlyWhatWasHeldBefore() {
+        Long productId = product(5);
+        String reservationId = inventoryReservationService.reserve(2L, Map.of(productId, 1)).getId();
+        failedCheckout(2L, reservationId, Map.of(productId, 4));
+
+        // The customer's own hold stays; the 3 units the checkout added are free again
+        assertEquals(1, inventoryReservationService.heldUnits(productId));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                inventoryReservationService.holdForCheckout(2L, reservationId, Map.of(productId, 4)));
+        assertEquals(4, inventoryReservationService.heldUnits(productId));
+    }
+
+    @Test
+    void checkpointRewritesOnlyChangedReservations() {
+        Long productId = product(10);
+        String kept = inventoryReservationService.reserve(3L, Map.of(productId, 2)).getId();
+        String released = inventoryReservationService.reserve(4L, Map.of(productId, 1)).getId();
+        inventoryReservationService.sweep();
+        assertEquals(2, rows(kept) + rows(released));
+
+        // A row the service no longer changes is left alone by later checkpoints
+        jdbcTemplate.update("UPDATE inventory_reservations SET quantity = 7 WHERE reservation_id = ?", kept);
+        inventoryReservationService.release(released, 4L);
+        inventoryReservationService.sweep();
+        assertEquals(0, rows(released));
+        assertEquals(7, jdbcTemplate.queryForObject(
+                "SELECT quantity FROM inventory_reservations WHERE reservation_id = ?", Integer.class, kept));
+    }
+
+    private int rows(String reservationId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory_reservations WHERE reservation_id = ?",
+                Integer.class, reservationId);
+    }
+}
@@ -0,0 +1,79 @@
+package ecommerce.interprog_finals.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import ecommerce.interprog_finals.entity.OrderIds;
+
+class OrderIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 20_000;
+
+    @Test
+    void idsFromOneThreadStrictlyIncrease() {
+        OrderIdGenerator generator = new OrderIdGenerator();
+        generator.init();
+        String previous = generator.next();
+        for (int i = 0; i < 100_000; i++) {
+            String next = generator.next();
+            assertTrue(next.compareTo(previous) > 0, next + " does not sort after " + previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void concurrentCallersNeverGetTheSameId() throws Exception {
+        OrderIdGenerator generator = new OrderIdGenerator();
+        generator.init();
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            pool.submit(() -> {
+                start.await();
+                List<String> mine = new ArrayList<>(IDS_PER_THREAD);
+                for (int i = 0; i < IDS_PER_THREAD; i++) {
+                    mine.add(generator.next());
+                }
+                ids.addAll(mine);
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+    }
+
+    @Test
+    void textAndBytesRoundTrip() {
+        OrderIdGenerator generator = new OrderIdGenerator();
+        generator.init();
+        String ulid = generator.next();
+        assertEquals(OrderIds.ULID_LENGTH, ulid.length());
+        assertEquals(ulid, OrderIds.fromBytes(OrderIds.toBytes(ulid)));
+        assertArrayEquals(OrderIds.toBytes(ulid), OrderIds.toBytes(ulid.toLowerCase()));
+
+        // Order numbers made by the old checkout page keep their text
+        assertEquals("ORD123456ABCD", OrderIds.fromBytes(OrderIds.toBytes("ORD123456ABCD")));
+        String uuid = "0b6f2b4e-7d4f-4a0e-9c39-6a3f4f9d2e11";
+        assertArrayEquals(OrderIds.toBytes(uuid), OrderIds.toBytes(OrderIds.fromBytes(OrderIds.toBytes(uuid))));
+
+        assertFalse(OrderIds.isValid("not an order id at all"));
+        assertFalse(OrderIds.isValid("8ZZZZZZZZZZZZZZZZZZZZZZZZZ"));
+    }
+}
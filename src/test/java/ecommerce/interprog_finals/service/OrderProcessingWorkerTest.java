@@ -0,0 +1,44 @@
+package ecommerce.interprog_finals.service;
+
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import ecommerce.interprog_finals.repository.PendingCheckoutRepository;
+
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "checkout.async.enabled=false"
+})
+@Import(OrderProcessingWorker.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderProcessingWorkerTest {
+
+    @Autowired
+    private OrderProcessingWorker orderProcessingWorker;
+
+    @MockitoBean
+    private OrderService orderService;
+
+    @MockitoBean
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private PendingCheckoutRepository pendingCheckoutRepository;
+
+    @Test
+    void disabledWorkerRunsNoQueueQueries() {
+        orderProcessingWorker.start();
+        orderProcessingWorker.pollQueued();
+        orderProcessingWorker.signal(1L);
+
+        verifyNoInteractions(jdbcTemplate, pendingCheckoutRepository, orderService);
+    }
+}
@@ -0,0 +1,98 @@
+package ecommerce.interprog_finals.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import ecommerce.interprog_finals.entity.Customer;
+import ecommerce.interprog_finals.entity.Money;
+import ecommerce.interprog_finals.entity.Order;
+import ecommerce.interprog_finals.entity.OrderItem;
+import ecommerce.interprog_finals.entity.Product;
+import ecommerce.interprog_finals.repository.CustomerRepository;
+import ecommerce.interprog_finals.repository.OrderRepository;
+import ecommerce.interprog_finals.repository.ProductRepository;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import({ OrderService.class, ProductService.class, InventoryReservationService.class, FlashSaleService.class,
+        PricingService.class, OrderIdGenerator.class, OrderStatusEvents.class, SalesAnalyticsService.class,
+        IdempotencyService.class })
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderServiceTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private Product product(long priceMinor, int stock) {
+        Product product = new Product();
+        product.setName("Yoga Mat");
+        product.setPrice(Money.ofMinor(priceMinor));
+        product.setStock(stock);
+        return productRepository.save(product);
+    }
+
+    private Customer customer(String email) {
+        return customerRepository.save(new Customer("Ana", "Reyes", email, "secret", "09170000000"));
+    }
+
+    private static OrderItem item(Long productId, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    @Test
+    void itemsArePricedFromTheCatalog() {
+        Product mat = product(129_900, 10);
+        OrderItem line = item(mat.getId(), 2);
+        // A price left on the item by the client is overwritten
+        line.setPrice(Money.ofMinor(-500_000));
+
+        String orderId = orderService.placeOrder(customer("priced@example.com"), new Order(),
+                new ArrayList<>(List.of(line)), null, Map.of(), null);
+
+        Order order = orderRepository.findByOrderId(orderId);
+        assertEquals(Money.ofMinor(259_800), order.getSubtotal());
+        assertEquals(order.getSubtotal().plus(order.getShipping()).plus(order.getTax()), order.getTotal());
+        assertEquals(8, productRepository.findById(mat.getId()).orElseThrow().getStock());
+    }
+
+    @Test
+    void lineWithUnknownOrMissingProductIsRejected() {
+        Product mat = product(129_900, 10);
+        Customer customer = customer("unknown@example.com");
+        long orders = orderRepository.count();
+
+        for (Long productId : new Long[] { Long.MAX_VALUE, null }) {
+            List<OrderItem> items = new ArrayList<>(List.of(item(mat.getId(), 1), item(productId, 1)));
+            assertThrows(UnknownProductException.class,
+                    () -> orderService.placeOrder(customer, new Order(), items, null, Map.of(), null));
+        }
+
+        assertEquals(orders, orderRepository.count());
+        assertEquals(10, productRepository.findById(mat.getId()).orElseThrow().getStock());
+    }
+}
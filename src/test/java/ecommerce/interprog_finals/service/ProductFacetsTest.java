@@ -0,0 +1,132 @@
+package ecommerce.interprog_finals.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import ecommerce.interprog_finals.entity.Money;
+import ecommerce.interprog_finals.entity.Product;
+
+class ProductFacetsTest {
+
+    private static Product product(long id, String category, String brand, String price, int stock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setCategory(category);
+        product.setBrand(brand);
+        product.setStatus("active");
+        product.setPrice(Money.of(price));
+        product.setStock(stock);
+        return product;
+    }
+
+    private static ProductFacets catalog() {
+        ProductFacets facets = new ProductFacets();
+        facets.put(product(1, "balls", "Hoop", "450", 5));
+        facets.put(product(2, "balls", "Kick", "1200", 0));
+        facets.put(product(3, "apparel", "Kick", "800", 3));
+        facets.put(product(4, "apparel", "Swift", "3000", 1));
+        facets.put(product(5, "weights", "Iron", "6000", 2));
+        return facets;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Long> values(Map<String, Object> counts, String facet) {
+        return (Map<String, Long>) counts.get(facet);
+    }
+
+    @Test
+    void countsWithoutFilters() {
+        Map<String, Object> counts = catalog().count(Map.of(), null, null);
+        assertEquals(5L, counts.get("total"));
+        assertEquals(Map.of("balls", 2L, "apparel", 2L, "weights", 1L), values(counts, ProductFacets.CATEGORY));
+        assertEquals(List.of("Kick", "Hoop", "Iron", "Swift"), List.copyOf(values(counts, ProductFacets.BRAND).keySet()));
+        assertEquals(Map.of("0-500", 1L, "500-1000", 1L, "1000-2500", 1L, "2500-5000", 1L, "5000+", 1L),
+                values(counts, ProductFacets.PRICE));
+        assertEquals(Map.of("in-stock", 4L, "out-of-stock", 1L), values(counts, ProductFacets.AVAILABILITY));
+    }
+
+    @Test
+    void facetCountsIgnoreTheirOwnFilter() {
+        Map<String, Collection<String>> selected = Map.of(ProductFacets.CATEGORY, List.of("balls"));
+        Map<String, Object> counts = catalog().count(selected, null, null);
+        assertEquals(2L, counts.get("total"));
+        // Other categories still show what they would add
+        assertEquals(Map.of("balls", 2L, "apparel", 2L, "weights", 1L), values(counts, ProductFacets.CATEGORY));
+        assertEquals(Map.of("Hoop", 1L, "Kick", 1L), values(counts, ProductFacets.BRAND));
+
+        selected = Map.of(ProductFacets.CATEGORY, List.of("balls", "apparel"), ProductFacets.BRAND, List.of("Kick"));
+        counts = catalog().count(selected, Money.of("500"), null);
+        assertEquals(2L, counts.get("total"));
+        assertEquals(Map.of("balls", 1L, "apparel", 1L), values(counts, ProductFacets.CATEGORY));
+        assertEquals(Map.of("Kick", 2L, "Swift", 1L), values(counts, ProductFacets.BRAND));
+        // Price counts ignore the price filter: Kick's balls and apparel cost 1200 and 800
+        assertEquals(1L, values(counts, ProductFacets.PRICE).get("500-1000"));
+        assertEquals(1L, values(counts, ProductFacets.PRICE).get("1000-2500"));
+        assertEquals(0L, values(counts, ProductFacets.PRICE).get("0-500"));
+    }
+
+    @Test
+    void followsUpdatesStockChangesAndDeletes() {
+        ProductFacets facets = catalog();
+        facets.put(product(3, "weights", "Iron", "800", 3));
+        // Sells out product 1, restocks product 2, sells part of product 3's new stock
+        facets.takeStock(Map.of(1L, 5, 2L, -7, 3L, 2));
+        facets.remove(5L);
+        facets.put(product(6, "balls", "Hoop", "100", 1));
+
+        Map<String, Object> counts = facets.count(Map.of(ProductFacets.AVAILABILITY, List.of(ProductFacets.IN_STOCK)), null, null);
+        assertEquals(4L, counts.get("total"));
+        assertEquals(Map.of("balls", 2L, "apparel", 1L, "weights", 1L), values(counts, ProductFacets.CATEGORY));
+        assertEquals(Map.of("in-stock", 4L, "out-of-stock", 1L), values(counts, ProductFacets.AVAILABILITY));
+        assertEquals(5, facets.stats().get("products"));
+        // The deleted product's ordinal was reused
+        assertEquals(5, facets.stats().get("ordinals"));
+    }
+
+    /**
+     * Count latency over 500k synthetic products with 2000 brands. The minimum price changes on
+     * every call so the results do not come from the cache.
+     *
+     * <p>Opt-in: {@code mvn test -Dtest=ProductFacetsTest -Dbenchmarks=true}
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void countLatencyOnLargeCatalog() {
+        Random random = new Random(42);
+        ProductFacets facets = new ProductFacets();
+        for (long id = 1; id <= 500_000; id++) {
+            facets.put(product(id, "category" + random.nextInt(20), "brand" + random.nextInt(2000),
+                    String.valueOf(random.nextInt(8000)), random.nextInt(10)));
+        }
+        System.out.println(facets.stats());
+
+        List<Map<String, Collection<String>>> filters = List.of(
+                Map.of(),
+                Map.of(ProductFacets.CATEGORY, List.of("category3")),
+                Map.of(ProductFacets.CATEGORY, List.of("category3", "category4"), ProductFacets.BRAND, List.of("brand7")),
+                Map.of(ProductFacets.AVAILABILITY, List.of(ProductFacets.IN_STOCK)));
+        for (int i = 0; i < 200; i++) {
+            for (Map<String, Collection<String>> filter : filters) {
+                facets.count(filter, Money.ofMinor(100_000 + i), null);
+            }
+        }
+        for (Map<String, Collection<String>> filter : filters) {
+            int runs = 200;
+            long start = System.nanoTime();
+            Object total = null;
+            for (int i = 0; i < runs; i++) {
+                total = facets.count(filter, Money.ofMinor(200_000 + i), null).get("total");
+            }
+            System.out.printf("%-70s %7s matches %8.1f us/count%n", filter, total, (System.nanoTime() - start) / 1000.0 / runs);
+            assertTrue(((Long) total) >= 0);
+        }
+    }
+}
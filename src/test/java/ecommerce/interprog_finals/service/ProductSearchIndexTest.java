@@ -0,0 +1,133 @@
+package ecommerce.interprog_finals.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import ecommerce.interprog_finals.entity.Product;
+
+class ProductSearchIndexTest {
+
+    private static Product product(long id, String name, String brand, String category, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setBrand(brand);
+        product.setCategory(category);
+        product.setDescription(description);
+        return product;
+    }
+
+    @Test
+    void analysisFoldsCaseAccentsAndPlurals() {
+        assertEquals(List.of("running", "shoe", "pelota", "5kg", "dumbbell"),
+                ProductSearchIndex.analyze("Running SHOES for the Pelóta, 5kg dumbbells"));
+        assertEquals(List.of("battery", "glass", "bus"), ProductSearchIndex.analyze("batteries glass bus"));
+        assertEquals(List.of(), ProductSearchIndex.analyze("a, the & of"));
+    }
+
+    @Test
+    void requiresEveryTermAndRanksNameMatchesFirst() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.index(product(1, "Yoga Mat", "Zen", "accessories", "Non-slip mat for running stretches"));
+        index.index(product(2, "Running Shoes", "Swift", "apparel", "Light shoes"));
+        index.index(product(3, "Trail Running Shoe", "Swift", "apparel", "Grippy sole"));
+        index.index(product(4, "Basketball", "Hoop", "balls", "Indoor ball"));
+
+        assertEquals(List.of(2L, 3L), index.search("running shoe", 0, 10).productIds());
+        assertEquals(List.of(2L, 3L, 1L), index.search("RUNNING", 0, 10).productIds());
+        assertEquals(0, index.search("running basketball", 0, 10).total());
+        assertEquals(0, index.search("unknown", 0, 10).total());
+
+        ProductSearchIndex.Result page = index.search("running", 1, 1);
+        assertEquals(List.of(3L), page.productIds());
+        assertEquals(3, page.total());
+    }
+
+    @Test
+    void updatesReplaceAndDeletesRemove() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.index(product(1, "Red Jersey", "Kit", "apparel", null));
+        index.index(product(1, "Blue Jersey", "Kit", "apparel", null));
+        assertEquals(0, index.search("red", 0, 10).total());
+        assertEquals(List.of(1L), index.search("blue jersey", 0, 10).productIds());
+
+        index.remove(1L);
+        assertEquals(0, index.search("jersey", 0, 10).total());
+    }
+
+    @Test
+    void compactionKeepsResults() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        for (long id = 1; id <= 3000; id++) {
+            index.index(product(id, "Ball " + id, "Brand" + (id % 10), "balls", null));
+        }
+        // Enough rewrites to trigger compaction more than once
+        for (long id = 1; id <= 3000; id++) {
+            index.index(product(id, (id % 2 == 0 ? "Even" : "Odd") + " Ball " + id, "Brand" + (id % 10), "balls", null));
+        }
+        for (long id = 1; id <= 1000; id++) {
+            index.remove(id);
+        }
+        assertEquals(2000, index.search("ball", 0, 10).total());
+        assertEquals(1000, index.search("even ball", 0, 10).total());
+        assertEquals(List.of(2999L), index.search("odd 2999", 0, 10).productIds());
+        assertEquals(2000, ((Number) index.stats().get("products")).intValue());
+    }
+
+    /**
+     * Query latency over a synthetic 500k product catalog. Description words are drawn from a
+     * 5000 word vocabulary with Zipf-like frequencies, so "w0" is in most products and "w400"
+     * in few.
+     *
+     * <p>Opt-in: {@code mvn test -Dtest=ProductSearchIndexTest -Dbenchmarks=true}
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void queryLatencyOnLargeCatalog() {
+        int vocabulary = 5000;
+        double[] cumulative = new double[vocabulary];
+        double sum = 0;
+        for (int i = 0; i < vocabulary; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        Random random = new Random(42);
+        ProductSearchIndex index = new ProductSearchIndex();
+        long started = System.nanoTime();
+        for (long id = 1; id <= 500_000; id++) {
+            StringBuilder description = new StringBuilder();
+            for (int i = 0; i < 30; i++) {
+                int word = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                description.append('w').append(word >= 0 ? word : -word - 1).append(' ');
+            }
+            index.index(product(id, "Product " + id, "brand" + random.nextInt(200), "category" + random.nextInt(20),
+                    description.toString()));
+        }
+        System.out.printf("indexed 500000 products in %d ms: %s%n", (System.nanoTime() - started) / 1_000_000, index.stats());
+
+        String[] queries = { "w400", "w40", "brand7", "w40 w400", "brand3 w10", "category4 w25", "w3 w7", "w0" };
+        // The first pass only warms up the JIT
+        for (String query : queries) {
+            for (int i = 0; i < 2000; i++) {
+                index.search(query, 0, 12);
+            }
+        }
+        for (String query : queries) {
+            int runs = 1000;
+            long start = System.nanoTime();
+            int total = 0;
+            for (int i = 0; i < runs; i++) {
+                total = index.search(query, 0, 12).total();
+            }
+            System.out.printf("%-16s %7d hits %8.1f us/query%n", query, total, (System.nanoTime() - start) / 1000.0 / runs);
+            assertTrue(total > 0);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package ecommerce.interprog_finals.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ecommerce.interprog_finals.dto.ProductSummaryDTO;
+import ecommerce.interprog_finals.entity.Money;
+import ecommerce.interprog_finals.entity.Product;
+import ecommerce.interprog_finals.repository.ProductRepository;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Import(ProductService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductStockConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 50;
+    private static final int INITIAL_STOCK = 300;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentCheckoutsNeverOversellOneSku() throws Exception {
+        Product product = new Product();
+        product.setName("Flash Sale Dumbbell");
+        product.setPrice(Money.ofMinor(99900));
+        product.setStock(INITIAL_STOCK);
+        Long productId = productRepository.save(product).getId();
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    try {
+                        productService.decrementStock(Map.of(productId, 1));
+                        sold.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+
+        assertEquals(INITIAL_STOCK, sold.get());
+        assertEquals(THREADS * ATTEMPTS_PER_THREAD - INITIAL_STOCK, rejected.get());
+        assertEquals(0, productRepository.findById(productId).orElseThrow().getStock());
+    }
+
+    @Test
+    void unfulfillableLineRollsBackTheWholeDecrement() {
+        Product plenty = new Product();
+        plenty.setName("Yoga Mat");
+        plenty.setStock(10);
+        Long plentyId = productRepository.save(plenty).getId();
+
+        Product scarce = new Product();
+        scarce.setName("Jump Rope");
+        scarce.setStock(1);
+        Long scarceId = productRepository.save(scarce).getId();
+
+        Map<Long, Integer> lines = new LinkedHashMap<>();
+        lines.put(plentyId, 3);
+        lines.put(scarceId, 2);
+        InsufficientStockException rejected = assertThrows(InsufficientStockException.class,
+                () -> productService.decrementStock(lines));
+        assertEquals(scarceId, rejected.getProductId());
+
+        assertEquals(10, productRepository.findById(plentyId).orElseThrow().getStock());
+        assertEquals(1, productRepository.findById(scarceId).orElseThrow().getStock());
+    }
+
+    @Test
+    void readDuringUncommittedDecrementDoesNotCacheTheOldStock() throws Exception {
+        Product product = new Product();
+        product.setName("Kettlebell");
+        product.setStock(5);
+        Long productId = productRepository.save(product).getId();
+        assertEquals(5, productService.getProductById(productId).getStock());
+
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                productService.decrementStock(Map.of(productId, 2));
+                // Another request reads the product before the decrement commits
+                Future<Product> read = reader.submit(() -> productService.getProductById(productId));
+                try {
+                    assertEquals(5, read.get(10, TimeUnit.SECONDS).getStock());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertEquals(3, productService.getProductById(productId).getStock());
+            assertEquals(3, reader.submit(() -> productService.getProductById(productId)).get(10, TimeUnit.SECONDS).getStock());
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    @Test
+    void stockDeltasStopAtZero() {
+        Product product = new Product();
+        product.setName("Flash Sale Kettlebell");
+        product.setStock(2);
+        Long productId = productRepository.save(product).getId();
+
+        // Write-behind of units already sold after the stock was lowered
+        productService.applyStockDeltas(Map.of(productId, 5));
+
+        assertEquals(0, productRepository.findById(productId).orElseThrow().getStock());
+    }
+
+    @Test
+    void committedDecrementUpdatesTheCachedListingInPlace() {
+        Product product = new Product();
+        product.setName("Foam Roller");
+        product.setStock(9);
+        Long productId = productRepository.save(product).getId();
+        productService.getProductById(productId);
+        productService.getProductSummaries();
+        List<ProductSummaryDTO> listing = productService.getProductSummaries();
+
+        productService.decrementStock(Map.of(productId, 4));
+
+        // Same snapshot, not reloaded; only the changed row was swapped
+        List<ProductSummaryDTO> after = productService.getProductSummaries();
+        assertSame(listing, after);
+        assertEquals(5, after.stream().filter(row -> row.getId().equals(productId)).findFirst().orElseThrow().getStock());
+        assertEquals(5, productService.getProductById(productId).getStock());
+    }
+
+    @Test
+    void committedDecrementMovesTheProductOutOfStockInTheFacets() {
+        Product product = new Product();
+        product.setName("Grip Tape");
+        product.setCategory("facet-stock-test");
+        product.setStock(3);
+        productService.saveProduct(product);
+        List<String> category = List.of("facet-stock-test");
+
+        productService.decrementStock(Map.of(product.getId(), 2));
+        Map<String, Object> counts = productService.getFacetCounts(category, null, null, null, null, null);
+        assertEquals(Map.of("in-stock", 1L, "out-of-stock", 0L), counts.get(ProductFacets.AVAILABILITY));
+
+        productService.decrementStock(Map.of(product.getId(), 1));
+        counts = productService.getFacetCounts(category, null, null, null, null, null);
+        assertEquals(Map.of("in-stock", 0L, "out-of-stock", 1L), counts.get(ProductFacets.AVAILABILITY));
+    }
+
+    @Test
+    void cachedProductsCannotBeChangedByCallers() {
+        Product product = new Product();
+        product.setName("Jump Rope");
+        product.setStock(7);
+        Long productId = productRepository.save(product).getId();
+
+        productService.getProductById(productId).setStock(0);
+
+        assertEquals(7, productService.getProductById(productId).getStock());
+    }
+}
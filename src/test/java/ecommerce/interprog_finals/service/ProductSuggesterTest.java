@@ -0,0 +1,126 @@
+package ecommerce.interprog_finals.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import ecommerce.interprog_finals.entity.Product;
+import ecommerce.interprog_finals.service.ProductSuggester.Suggestion;
+
+class ProductSuggesterTest {
+
+    private static Product product(long id, String name, String brand, String category) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setBrand(brand);
+        product.setCategory(category);
+        return product;
+    }
+
+    private static List<String> texts(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::text).toList();
+    }
+
+    @Test
+    void bestSellersComeFirst() {
+        ProductSuggester suggester = new ProductSuggester();
+        suggester.put(product(1, "Running Shoes", "Swift", "apparel"));
+        suggester.put(product(2, "Rugby Ball", "Hoop", "balls"));
+        suggester.put(product(3, "Rowing Machine", "Swift", "weights"));
+        suggester.setWeights(Map.of(1L, 5L, 2L, 40L, 3L, 1L));
+        suggester.rebuild();
+
+        assertEquals(List.of("Rugby Ball", "Running Shoes"), texts(suggester.suggest("RU", 10)));
+        assertEquals(List.of("Rugby Ball", "Running Shoes", "Rowing Machine"), texts(suggester.suggest("r", 10)));
+        assertEquals(List.of("Rugby Ball"), texts(suggester.suggest("r", 1)));
+        assertEquals(List.of(), suggester.suggest("x", 10));
+        assertEquals(List.of(), suggester.suggest("  ", 10));
+    }
+
+    @Test
+    void matchesLaterWordsBrandsAndCategories() {
+        ProductSuggester suggester = new ProductSuggester();
+        suggester.put(product(1, "Running Shoes", "Swift", "apparel"));
+        suggester.put(product(2, "Trail Shoes", "Swift", "apparel"));
+        suggester.put(product(3, "Shoe Bag", "Carry", "accessories"));
+        suggester.setWeights(Map.of(1L, 5L, 2L, 3L, 3L, 1L));
+        suggester.rebuild();
+
+        assertEquals(List.of("Running Shoes", "Trail Shoes", "Shoe Bag"), texts(suggester.suggest("sho", 10)));
+
+        // The brand weighs the sales of both its products
+        List<Suggestion> brand = suggester.suggest("sw", 10);
+        assertEquals(List.of("Swift"), texts(brand));
+        assertEquals(ProductSuggester.BRAND, brand.get(0).type());
+
+        List<Suggestion> a = suggester.suggest("a", 10);
+        assertEquals(List.of("apparel", "accessories"), texts(a));
+        assertEquals(ProductSuggester.CATEGORY, a.get(0).type());
+    }
+
+    @Test
+    void changesShowAfterRebuild() {
+        ProductSuggester suggester = new ProductSuggester();
+        suggester.put(product(1, "Yoga Mat", "Zen", "accessories"));
+        suggester.rebuild();
+        assertEquals(List.of("Yoga Mat"), texts(suggester.suggest("yo", 10)));
+
+        suggester.put(product(1, "Yoga Block", "Zen", "accessories"));
+        suggester.put(product(2, "Yoga Mat Pro", "Zen", "accessories"));
+        assertTrue(suggester.isStale());
+        suggester.rebuild();
+        assertEquals(List.of("Yoga Block", "Yoga Mat Pro"), texts(suggester.suggest("yoga", 10)));
+
+        suggester.remove(1L);
+        suggester.rebuild();
+        assertEquals(List.of(2L), suggester.suggest("yoga", 10).stream().map(Suggestion::productId).toList());
+    }
+
+    /**
+     * Lookup latency over 500k synthetic products.
+     *
+     * <p>Opt-in: {@code mvn test -Dtest=ProductSuggesterTest -Dbenchmarks=true}
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void lookupLatencyOnLargeCatalog() {
+        String[] words = { "running", "shoe", "ball", "mat", "yoga", "trail", "indoor", "outdoor", "pro", "lite",
+                "jersey", "glove", "bag", "bottle", "band", "weight", "bench", "rope", "helmet", "sock" };
+        Random random = new Random(42);
+        ProductSuggester suggester = new ProductSuggester();
+        Map<Long, Long> weights = new HashMap<>();
+        for (long id = 1; id <= 500_000; id++) {
+            suggester.put(product(id, words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + id,
+                    "brand" + random.nextInt(2000), "category" + random.nextInt(50)));
+            weights.put(id, (long) random.nextInt(1000));
+        }
+        suggester.setWeights(weights);
+        long started = System.nanoTime();
+        suggester.rebuild();
+        System.out.printf("rebuilt in %d ms: %s%n", (System.nanoTime() - started) / 1_000_000, suggester.stats());
+
+        String[] prefixes = { "r", "ru", "runn", "running sho", "brand1", "category4", "12345", "zzz" };
+        for (String prefix : prefixes) {
+            for (int i = 0; i < 20_000; i++) {
+                suggester.suggest(prefix, 8);
+            }
+        }
+        for (String prefix : prefixes) {
+            int runs = 20_000;
+            long start = System.nanoTime();
+            int found = 0;
+            for (int i = 0; i < runs; i++) {
+                found = suggester.suggest(prefix, 8).size();
+            }
+            System.out.printf("%-12s %d suggestions %6.2f us/lookup%n", prefix, found, (System.nanoTime() - start) / 1000.0 / runs);
+        }
+    }
+}